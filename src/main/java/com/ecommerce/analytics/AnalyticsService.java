@@ -0,0 +1,279 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.analytics.SalesColumnStore.Aggregate;
+import com.ecommerce.analytics.SalesColumnStore.Dimension;
+import com.ecommerce.config.AnalyticsConfig;
+import com.ecommerce.dto.CohortRow;
+import com.ecommerce.dto.ProductSalesRow;
+import com.ecommerce.dto.RevenueRow;
+import com.ecommerce.event.OrderCreatedEvent;
+import com.ecommerce.event.OrderStatusChangedEvent;
+import com.ecommerce.exception.BusinessException;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 管理端销售分析。
+ *
+ * 启动时把全部订单项流式加载到内存列存 {@link SalesColumnStore}, 之后由下单和状态变更事务提交后的
+ * 事件增量更新; 报表查询只扫描内存列, 不访问订单表。已取消的订单不计入销售额。
+ *
+ * 列存是单节点视图: 每个节点各自加载, 事件只在提交事务的节点上发布, 其他节点的下单和状态变更
+ * 要到下次 reload 才可见。多节点部署时用 analytics.reload-cron 定期重新加载, 或只在一个节点上开启。
+ */
+@Slf4j
+@Service
+public class AnalyticsService {
+    private static final int MAX_TOP_PRODUCTS = 100;
+    
+    @Autowired
+    private AnalyticsConfig analyticsConfig;
+    
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private ForkJoinPool pool;
+    private TransactionTemplate readOnlyTemplate;
+    private volatile SalesColumnStore store;
+    // 事件与替换列存互斥; 非 null 表示正在重新加载, 收集期间的事件供替换前重放
+    private final Object swapLock = new Object();
+    private List<Consumer<SalesColumnStore>> pendingUpdates;
+    private volatile long lastLoadMs;
+    private volatile LocalDateTime loadedAt;
+    
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Math.max(1, analyticsConfig.getParallelism()));
+        store = new SalesColumnStore(pool);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (analyticsConfig.isEnabled()) {
+            reload();
+        }
+    }
+    
+    // 多节点部署时定期重新加载, 补上其他节点的订单; 默认不开启
+    @Scheduled(cron = "${analytics.reload-cron:-}")
+    public void scheduledReload() {
+        if (analyticsConfig.isEnabled()) {
+            reload();
+        }
+    }
+    
+    // 重新从订单项加载: 新列存在旁边填充, 期间查询和事件仍作用于旧列存; 加载期间到达的事件另外缓存,
+    // 填充完成后在替换前重放到新列存, 快照已包含的下单按 id 忽略, 状态变更重放结果相同
+    public synchronized int reload() {
+        long started = System.currentTimeMillis();
+        SalesColumnStore fresh = new SalesColumnStore(pool);
+        synchronized (swapLock) {
+            pendingUpdates = new ArrayList<>();
+        }
+        try {
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<OrderLine> lines = orderItemRepository.streamOrderLines()) {
+                    List<OrderLine> order = new ArrayList<>();
+                    for (OrderLine line : (Iterable<OrderLine>) lines::iterator) {
+                        if (!order.isEmpty() && !order.get(0).getOrderId().equals(line.getOrderId())) {
+                            fresh.append(order);
+                            order = new ArrayList<>();
+                        }
+                        order.add(line);
+                    }
+                    fresh.append(order);
+                }
+            });
+            synchronized (swapLock) {
+                pendingUpdates.forEach(update -> update.accept(fresh));
+                store = fresh;
+            }
+        } finally {
+            synchronized (swapLock) {
+                pendingUpdates = null;
+            }
+        }
+        lastLoadMs = System.currentTimeMillis() - started;
+        loadedAt = LocalDateTime.now();
+        log.info("Loaded {} order lines of {} orders into analytics store in {} ms",
+            fresh.size(), fresh.orderCount(), lastLoadMs);
+        return fresh.size();
+    }
+    
+    @TransactionalEventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (analyticsConfig.isEnabled()) {
+            apply(current -> current.append(event.getLines()));
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (analyticsConfig.isEnabled()) {
+            apply(current -> current.updateStatus(event.getOrderId(), event.getStatus()));
+        }
+    }
+    
+    private void apply(Consumer<SalesColumnStore> update) {
+        synchronized (swapLock) {
+            update.accept(store);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        }
+    }
+    
+    // 按天汇总, 默认最近 30 天, 没有销售的日期也返回零值
+    public List<RevenueRow> getDailyRevenue(LocalDate from, LocalDate to, String category, String brand) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new BusinessException("'from' must not be after 'to'");
+        }
+        if (end.toEpochDay() - start.toEpochDay() >= analyticsConfig.getMaxDays()) {
+            throw new BusinessException("Date range must not exceed " + analyticsConfig.getMaxDays() + " days");
+        }
+        Aggregate result = store.aggregate(Dimension.DAY, (int) start.toEpochDay(), (int) end.toEpochDay(), category, brand);
+        List<RevenueRow> rows = new ArrayList<>(result.groups());
+        for (int key = 0; key < result.groups(); key++) {
+            rows.add(new RevenueRow(LocalDate.ofEpochDay(result.base + key).toString(),
+                money(result.revenueCents[key]), result.units[key]));
+        }
+        return rows;
+    }
+    
+    public List<RevenueRow> getRevenueByCategory(LocalDate from, LocalDate to, String brand) {
+        SalesColumnStore current = store;
+        return byName(current.aggregate(Dimension.CATEGORY, fromDay(from), toDay(to), null, brand), current::category);
+    }
+    
+    public List<RevenueRow> getRevenueByBrand(LocalDate from, LocalDate to, String category) {
+        SalesColumnStore current = store;
+        return byName(current.aggregate(Dimension.BRAND, fromDay(from), toDay(to), category, null), current::brand);
+    }
+    
+    // 销售额前 n 的商品: 小顶堆保留 n 个分组, 只为入选商品查询名称
+    public List<ProductSalesRow> getTopProducts(LocalDate from, LocalDate to, String category, String brand, int n) {
+        if (n < 1 || n > MAX_TOP_PRODUCTS) {
+            throw new BusinessException("n must be between 1 and " + MAX_TOP_PRODUCTS);
+        }
+        SalesColumnStore current = store;
+        Aggregate result = current.aggregate(Dimension.PRODUCT, fromDay(from), toDay(to), category, brand);
+        PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.comparingLong(key -> result.revenueCents[key]));
+        for (int key = 0; key < result.groups(); key++) {
+            if (result.units[key] == 0) {
+                continue;
+            }
+            if (top.size() < n) {
+                top.add(key);
+            } else if (result.revenueCents[key] > result.revenueCents[top.peek()]) {
+                top.poll();
+                top.add(key);
+            }
+        }
+        
+        List<Integer> keys = new ArrayList<>(top);
+        keys.sort(Comparator.comparingLong((Integer key) -> result.revenueCents[key]).reversed());
+        List<Long> productIds = keys.stream().map(current::productId).toList();
+        Map<Long, String> names = productRepository.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Product::getName));
+        List<ProductSalesRow> rows = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            int key = keys.get(i);
+            Long productId = productIds.get(i);
+            rows.add(new ProductSalesRow(productId, names.get(productId), money(result.revenueCents[key]), result.units[key]));
+        }
+        return rows;
+    }
+    
+    // 按用户首单月份分组, 每组再按距首单的月数展开
+    public List<CohortRow> getCohorts(LocalDate from, LocalDate to) {
+        Aggregate result = store.aggregate(Dimension.COHORT, fromDay(from), toDay(to), null, null);
+        List<CohortRow> rows = new ArrayList<>();
+        for (int key = 0; key < result.groups(); key++) {
+            if (result.units[key] == 0) {
+                continue;
+            }
+            int month = result.base + key / result.span;
+            rows.add(new CohortRow(YearMonth.of(month / 12, month % 12 + 1).toString(), key % result.span,
+                money(result.revenueCents[key]), result.units[key]));
+        }
+        return rows;
+    }
+    
+    public Map<String, Object> getStatistics() {
+        SalesColumnStore current = store;
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", analyticsConfig.isEnabled());
+        statistics.put("parallelism", pool.getParallelism());
+        statistics.put("rows", current.size());
+        statistics.put("orders", current.orderCount());
+        statistics.put("products", current.productCount());
+        statistics.put("users", current.userCount());
+        statistics.put("categories", current.categoryCount());
+        statistics.put("brands", current.brandCount());
+        statistics.put("lastLoadMs", lastLoadMs);
+        statistics.put("loadedAt", loadedAt);
+        return statistics;
+    }
+    
+    private static List<RevenueRow> byName(Aggregate result, Function<Integer, String> names) {
+        List<RevenueRow> rows = new ArrayList<>();
+        for (int key = 0; key < result.groups(); key++) {
+            if (result.units[key] > 0) {
+                String name = names.apply(key);
+                rows.add(new RevenueRow(name.isEmpty() ? null : name, money(result.revenueCents[key]), result.units[key]));
+            }
+        }
+        rows.sort(Comparator.comparing(RevenueRow::getRevenue).reversed());
+        return rows;
+    }
+    
+    private static int fromDay(LocalDate from) {
+        return from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+    }
+    
+    private static int toDay(LocalDate to) {
+        return to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+    }
+    
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
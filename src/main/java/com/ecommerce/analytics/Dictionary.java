@@ -0,0 +1,36 @@
+package com.ecommerce.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 字符串字典编码: 分类/品牌在列中只存 int 编码, 分组结果再解码回名称
+class Dictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    
+    synchronized int encode(String value) {
+        String key = value == null ? "" : value;
+        Integer code = codes.get(key);
+        if (code == null) {
+            code = values.size();
+            codes.put(key, code);
+            values.add(key);
+        }
+        return code;
+    }
+    
+    // 不存在时返回 -1, 不新增编码
+    synchronized int lookup(String value) {
+        return codes.getOrDefault(value == null ? "" : value, -1);
+    }
+    
+    synchronized String decode(int code) {
+        return values.get(code);
+    }
+    
+    synchronized int size() {
+        return values.size();
+    }
+}
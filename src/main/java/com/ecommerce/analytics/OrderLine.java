@@ -0,0 +1,21 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.model.OrderStatus;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// 分析库的一行输入: 一个订单项连同订单和商品上用于分组的字段
+@Value
+public class OrderLine {
+    Long orderId;
+    Long userId;
+    LocalDateTime orderDate;
+    OrderStatus status;
+    Long productId;
+    String category;
+    String brand;
+    Integer quantity;
+    BigDecimal price;
+}
@@ -0,0 +1,377 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.model.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 订单项的内存列存。
+ *
+ * 每列是一个原始类型数组, 按 65536 行分块追加: 日期存 epoch day, 分类/品牌/商品/用户存字典编码,
+ * 金额存分。查询逐块先扫描过滤列得到选择向量, 再只对选中的行按分组键累加; 块区间在
+ * ForkJoinPool 中并行计算后合并。追加和状态更新串行执行, 查询只读取已发布的行数, 不阻塞写入。
+ */
+public class SalesColumnStore {
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final byte CANCELLED = (byte) OrderStatus.CANCELLED.ordinal();
+    
+    public enum Dimension {
+        DAY,
+        CATEGORY,
+        BRAND,
+        PRODUCT,
+        COHORT
+    }
+    
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary brands = new Dictionary();
+    private final LongLongHashMap orderRows = new LongLongHashMap(1 << 16); // orderId -> 起始行 << 32 | 行数
+    private final LongLongHashMap productCodes = new LongLongHashMap(1 << 10);
+    private final LongLongHashMap userCodes = new LongLongHashMap(1 << 10);
+    private long[] productIds = new long[1 << 10];
+    private int productCount;
+    private int[] userFirstMonth = new int[1 << 10]; // 用户首单月份, 同期群分析用
+    private int userCount;
+    private int minMonth = Integer.MAX_VALUE;
+    private int maxMonth = Integer.MIN_VALUE;
+    
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+    
+    public SalesColumnStore(ForkJoinPool pool) {
+        this.pool = pool;
+        this.parallelism = pool.getParallelism();
+    }
+    
+    // 追加一个订单的全部订单项, 订单已存在时忽略 (全量加载与下单事件可能重复)
+    public synchronized boolean append(List<OrderLine> lines) {
+        if (lines.isEmpty()) {
+            return false;
+        }
+        OrderLine first = lines.get(0);
+        if (orderRows.get(first.getOrderId(), -1) != -1) {
+            return false;
+        }
+        LocalDate date = first.getOrderDate().toLocalDate();
+        int day = (int) date.toEpochDay();
+        int month = monthIndex(date);
+        int user = userCode(first.getUserId(), month);
+        byte status = (byte) first.getStatus().ordinal();
+        
+        int start = size;
+        for (int i = 0; i < lines.size(); i++) {
+            OrderLine line = lines.get(i);
+            int row = start + i;
+            Chunk chunk = chunkFor(row);
+            int offset = row & CHUNK_MASK;
+            chunk.day[offset] = day;
+            chunk.month[offset] = month;
+            chunk.user[offset] = user;
+            chunk.status[offset] = status;
+            chunk.product[offset] = productCode(line.getProductId());
+            chunk.category[offset] = categories.encode(line.getCategory());
+            chunk.brand[offset] = brands.encode(line.getBrand());
+            chunk.quantity[offset] = line.getQuantity();
+            chunk.revenueCents[offset] = line.getPrice().movePointRight(2).longValue() * line.getQuantity();
+        }
+        orderRows.put(first.getOrderId(), (long) start << 32 | lines.size());
+        minMonth = Math.min(minMonth, month);
+        maxMonth = Math.max(maxMonth, month);
+        size = start + lines.size(); // volatile 写发布新行
+        return true;
+    }
+    
+    public synchronized boolean updateStatus(Long orderId, OrderStatus status) {
+        long rows = orderRows.get(orderId, -1);
+        if (rows == -1) {
+            return false;
+        }
+        int start = (int) (rows >>> 32);
+        int count = (int) rows;
+        for (int row = start; row < start + count; row++) {
+            chunks[row >>> CHUNK_BITS].status[row & CHUNK_MASK] = (byte) status.ordinal();
+        }
+        size = size; // 重新写一次 volatile, 让之后的查询看到状态变更
+        return true;
+    }
+    
+    /**
+     * 按维度汇总 [fromDay, toDay] 内未取消订单项的销售额和件数。
+     * category/brand 为 null 时不过滤; 结果下标即分组键, 见 {@link Aggregate}。
+     */
+    public Aggregate aggregate(Dimension dimension, int fromDay, int toDay, String category, String brand) {
+        Query query = new Query();
+        query.dimension = dimension;
+        query.fromDay = fromDay;
+        query.toDay = toDay;
+        synchronized (this) {
+            query.rows = size;
+            query.chunks = chunks;
+            query.category = category == null ? -1 : categories.lookup(category);
+            query.brand = brand == null ? -1 : brands.lookup(brand);
+            switch (dimension) {
+                case DAY -> {
+                    long days = (long) toDay - fromDay + 1;
+                    if (days > Integer.MAX_VALUE / 2) {
+                        throw new IllegalArgumentException("Day range too large: " + days);
+                    }
+                    query.base = fromDay;
+                    query.groups = (int) Math.max(0, days);
+                }
+                case CATEGORY -> query.groups = categories.size();
+                case BRAND -> query.groups = brands.size();
+                case PRODUCT -> query.groups = productCount;
+                case COHORT -> {
+                    query.base = minMonth;
+                    query.span = size == 0 ? 0 : maxMonth - minMonth + 1;
+                    query.groups = query.span * query.span;
+                    query.firstMonth = Arrays.copyOf(userFirstMonth, userCount);
+                }
+            }
+        }
+        if ((category != null && query.category < 0) || (brand != null && query.brand < 0) || query.rows == 0) {
+            return new Aggregate(dimension, query.base, query.span, query.groups);
+        }
+        
+        int chunkCount = (query.rows + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        // 每个任务至少一块, 任务数约为并行度的 4 倍以便负载均衡
+        query.chunksPerTask = Math.max(1, chunkCount / (parallelism * 4));
+        return pool.invoke(new ScanTask(query, 0, chunkCount));
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public synchronized int orderCount() {
+        return orderRows.size();
+    }
+    
+    public synchronized int productCount() {
+        return productCount;
+    }
+    
+    public synchronized int userCount() {
+        return userCount;
+    }
+    
+    public int categoryCount() {
+        return categories.size();
+    }
+    
+    public int brandCount() {
+        return brands.size();
+    }
+    
+    public String category(int code) {
+        return categories.decode(code);
+    }
+    
+    public String brand(int code) {
+        return brands.decode(code);
+    }
+    
+    public synchronized long productId(int code) {
+        return productIds[code];
+    }
+    
+    public static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+    
+    private Chunk chunkFor(int row) {
+        int index = row >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        Chunk[] grown = Arrays.copyOf(current, index + 1);
+        grown[index] = new Chunk();
+        chunks = grown;
+        return grown[index];
+    }
+    
+    private int productCode(Long productId) {
+        long code = productCodes.get(productId, -1);
+        if (code != -1) {
+            return (int) code;
+        }
+        if (productCount == productIds.length) {
+            productIds = Arrays.copyOf(productIds, productCount * 2);
+        }
+        productIds[productCount] = productId;
+        productCodes.put(productId, productCount);
+        return productCount++;
+    }
+    
+    private int userCode(Long userId, int month) {
+        long code = userCodes.get(userId, -1);
+        if (code != -1) {
+            userFirstMonth[(int) code] = Math.min(userFirstMonth[(int) code], month);
+            return (int) code;
+        }
+        if (userCount == userFirstMonth.length) {
+            userFirstMonth = Arrays.copyOf(userFirstMonth, userCount * 2);
+        }
+        userFirstMonth[userCount] = month;
+        userCodes.put(userId, userCount);
+        return userCount++;
+    }
+    
+    // 扫描单个块: 先过滤得到选择向量, 再按分组键累加
+    private static void scan(Chunk chunk, int rows, Query query, int[] selection, Aggregate result) {
+        int[] day = chunk.day;
+        byte[] status = chunk.status;
+        int fromDay = query.fromDay;
+        int toDay = query.toDay;
+        int selected = 0;
+        for (int i = 0; i < rows; i++) {
+            int d = day[i];
+            selection[selected] = i;
+            selected += (d >= fromDay & d <= toDay & status[i] != CANCELLED) ? 1 : 0;
+        }
+        if (query.category >= 0) {
+            selected = refine(selection, selected, chunk.category, query.category);
+        }
+        if (query.brand >= 0) {
+            selected = refine(selection, selected, chunk.brand, query.brand);
+        }
+        
+        long[] revenue = result.revenueCents;
+        long[] units = result.units;
+        long[] cents = chunk.revenueCents;
+        int[] quantity = chunk.quantity;
+        if (query.dimension == Dimension.COHORT) {
+            int[] user = chunk.user;
+            int[] month = chunk.month;
+            for (int j = 0; j < selected; j++) {
+                int i = selection[j];
+                int cohort = query.firstMonth[user[i]];
+                int key = (cohort - query.base) * query.span + (month[i] - cohort);
+                revenue[key] += cents[i];
+                units[key] += quantity[i];
+            }
+            return;
+        }
+        int[] keys = switch (query.dimension) {
+            case DAY -> day;
+            case CATEGORY -> chunk.category;
+            case BRAND -> chunk.brand;
+            default -> chunk.product;
+        };
+        int base = query.base;
+        for (int j = 0; j < selected; j++) {
+            int i = selection[j];
+            int key = keys[i] - base;
+            revenue[key] += cents[i];
+            units[key] += quantity[i];
+        }
+    }
+    
+    private static int refine(int[] selection, int selected, int[] column, int value) {
+        int kept = 0;
+        for (int j = 0; j < selected; j++) {
+            int i = selection[j];
+            selection[kept] = i;
+            kept += column[i] == value ? 1 : 0;
+        }
+        return kept;
+    }
+    
+    private static final class Chunk {
+        final int[] day = new int[CHUNK_SIZE];
+        final int[] month = new int[CHUNK_SIZE];
+        final int[] product = new int[CHUNK_SIZE];
+        final int[] category = new int[CHUNK_SIZE];
+        final int[] brand = new int[CHUNK_SIZE];
+        final int[] user = new int[CHUNK_SIZE];
+        final int[] quantity = new int[CHUNK_SIZE];
+        final long[] revenueCents = new long[CHUNK_SIZE];
+        final byte[] status = new byte[CHUNK_SIZE];
+    }
+    
+    private static final class Query {
+        Dimension dimension;
+        int fromDay;
+        int toDay;
+        int category;
+        int brand;
+        int rows;
+        Chunk[] chunks;
+        int base;
+        int span;
+        int groups;
+        int[] firstMonth;
+        int chunksPerTask;
+    }
+    
+    /**
+     * 汇总结果, 下标为分组键: DAY 为 epochDay - base, CATEGORY/BRAND/PRODUCT 为字典编码,
+     * COHORT 为 (首单月 - base) * span + 距首单的月数。
+     */
+    public static final class Aggregate {
+        public final Dimension dimension;
+        public final int base;
+        public final int span;
+        public final long[] revenueCents;
+        public final long[] units;
+        
+        Aggregate(Dimension dimension, int base, int span, int groups) {
+            this.dimension = dimension;
+            this.base = base;
+            this.span = span;
+            this.revenueCents = new long[groups];
+            this.units = new long[groups];
+        }
+        
+        public int groups() {
+            return units.length;
+        }
+        
+        void merge(Aggregate other) {
+            for (int i = 0; i < units.length; i++) {
+                revenueCents[i] += other.revenueCents[i];
+                units[i] += other.units[i];
+            }
+        }
+    }
+    
+    private static final class ScanTask extends RecursiveTask<Aggregate> {
+        private final Query query;
+        private final int fromChunk;
+        private final int toChunk;
+        
+        ScanTask(Query query, int fromChunk, int toChunk) {
+            this.query = query;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+        
+        @Override
+        protected Aggregate compute() {
+            if (toChunk - fromChunk <= query.chunksPerTask) {
+                Aggregate result = new Aggregate(query.dimension, query.base, query.span, query.groups);
+                int[] selection = new int[CHUNK_SIZE];
+                for (int index = fromChunk; index < toChunk; index++) {
+                    int rows = Math.min(CHUNK_SIZE, query.rows - (index << CHUNK_BITS));
+                    scan(query.chunks[index], rows, query, selection, result);
+                }
+                return result;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            ScanTask left = new ScanTask(query, fromChunk, middle);
+            left.fork();
+            Aggregate result = new ScanTask(query, middle, toChunk).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.ecommerce.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 容量受限的本地缓存, 采用 W-TinyLFU 思路:
+ * 新条目先进入一个小的 LRU 窗口, 被挤出窗口时与主区 LRU 末尾的条目比较访问频率
+ * (Count-Min 计数, 定期减半衰减), 频率更高者留下。按 key 哈希分段加锁。
+ */
+public class BoundedLocalCache<K, V> {
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+    
+    private final Segment<K, V>[] segments;
+    private final long defaultTtlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public BoundedLocalCache(int maximumSize) {
+        this(maximumSize, null);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public BoundedLocalCache(int maximumSize, Duration defaultTtl) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(16, maximumSize / 64)));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment<>(capacity);
+        }
+        this.defaultTtlNanos = defaultTtl == null ? 0 : defaultTtl.toNanos();
+    }
+    
+    public V get(K key) {
+        V value = segmentFor(key).get(key, System.nanoTime());
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+    
+    public void put(K key, V value) {
+        put(key, value, defaultTtlNanos == 0 ? null : Duration.ofNanos(defaultTtlNanos));
+    }
+    
+    public void put(K key, V value, Duration ttl) {
+        long now = System.nanoTime();
+        long expiresAt = ttl == null ? NO_EXPIRY : now + ttl.toNanos();
+        if (segmentFor(key).put(key, value, expiresAt)) {
+            evictions.increment();
+        }
+    }
+    
+    public void invalidate(K key) {
+        segmentFor(key).remove(key);
+    }
+    
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+    
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+    
+    public long hitCount() {
+        return hits.sum();
+    }
+    
+    public long missCount() {
+        return misses.sum();
+    }
+    
+    public long evictionCount() {
+        return evictions.sum();
+    }
+    
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+    
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<K, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+        private final int windowCapacity;
+        private final int mainCapacity;
+        
+        private Segment(int capacity) {
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = Math.max(0, capacity - windowCapacity);
+            this.sketch = new FrequencySketch(capacity);
+        }
+        
+        V get(K key, long now) {
+            lock.lock();
+            try {
+                sketch.increment(key);
+                Entry<V> entry = window.get(key);
+                if (entry == null) {
+                    entry = main.get(key);
+                }
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.expiresAt <= now) {
+                    window.remove(key);
+                    main.remove(key);
+                    return null;
+                }
+                return entry.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        // 返回是否发生了淘汰
+        boolean put(K key, V value, long expiresAt) {
+            lock.lock();
+            try {
+                sketch.increment(key);
+                Entry<V> entry = new Entry<>(value, expiresAt);
+                if (main.containsKey(key)) {
+                    main.put(key, entry);
+                    return false;
+                }
+                window.put(key, entry);
+                if (window.size() <= windowCapacity) {
+                    return false;
+                }
+                
+                Iterator<Map.Entry<K, Entry<V>>> eldest = window.entrySet().iterator();
+                Map.Entry<K, Entry<V>> candidate = eldest.next();
+                eldest.remove();
+                return !admit(candidate.getKey(), candidate.getValue());
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        // 窗口淘汰出的候选与主区 LRU 末尾比较频率, 返回是否保留候选且未淘汰其他条目
+        private boolean admit(K candidateKey, Entry<V> candidate) {
+            if (main.size() < mainCapacity) {
+                main.put(candidateKey, candidate);
+                return true;
+            }
+            if (mainCapacity == 0) {
+                return false;
+            }
+            Iterator<Map.Entry<K, Entry<V>>> eldest = main.entrySet().iterator();
+            K victimKey = eldest.next().getKey();
+            if (sketch.frequency(candidateKey) > sketch.frequency(victimKey)) {
+                eldest.remove();
+                main.put(candidateKey, candidate);
+            }
+            return false;
+        }
+        
+        void remove(K key) {
+            lock.lock();
+            try {
+                window.remove(key);
+                main.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        void clear() {
+            lock.lock();
+            try {
+                window.clear();
+                main.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        int size() {
+            lock.lock();
+            try {
+                return window.size() + main.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    // 4 行 Count-Min, 每个计数器 4 位 (上限 15), 累计增量达到 10 倍容量时全部减半
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+        
+        private final byte[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+        
+        private FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(16, capacity * 4 - 1)) << 1;
+            this.table = new byte[size];
+            this.mask = size - 1;
+            this.sampleSize = Math.max(10, capacity * 10);
+        }
+        
+        void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int seed : SEEDS) {
+                int index = indexOf(hash, seed);
+                if (table[index] < 15) {
+                    table[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (byte) (table[i] >>> 1);
+                }
+                additions /= 2;
+            }
+        }
+        
+        int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int seed : SEEDS) {
+                frequency = Math.min(frequency, table[indexOf(hash, seed)]);
+            }
+            return frequency;
+        }
+        
+        private int indexOf(int hash, int seed) {
+            int h = (hash ^ seed) * 0x9E3779B1;
+            return (h ^ (h >>> 15)) & mask;
+        }
+    }
+}
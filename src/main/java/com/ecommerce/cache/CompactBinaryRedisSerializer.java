@@ -0,0 +1,460 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Review;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑二进制格式, 替代带类名的 JSON:
+ * 头部为魔数 + 格式版本(最高位表示压缩), 根类型用注册表中的编号表示;
+ * 对象先经 Jackson 转为树(沿用 @JsonIgnore 等注解), 数字用 zigzag 变长编码,
+ * BigDecimal 存 unscaled + scale, 字段名和短字符串在同一条消息内只写一次, 之后按编号引用。
+ * 字段按名称匹配, 增删字段不影响读旧条目; 切换前写入的 JSON 条目(无魔数)仍可读取。
+ * 对象图中的双向关联须用 @JsonManagedReference/@JsonBackReference 断开, 否则转树时无限递归。
+ */
+public class CompactBinaryRedisSerializer implements RedisSerializer<Object> {
+    static final byte MAGIC = (byte) 0xCB;
+    static final int FORMAT_VERSION = 1;
+    private static final int COMPRESSED_FLAG = 0x80;
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    private static final int MAX_INTERNED_LENGTH = 64;
+    
+    // 编号一经上线不得修改或复用, 新类型只能追加在末尾
+    private static final List<Class<?>> REGISTERED_TYPES = List.of(
+        Product.class, Order.class, OrderItem.class, Review.class);
+    
+    // 根类型
+    private static final int KIND_TYPE = 1;
+    private static final int KIND_LIST = 2;
+    private static final int KIND_JSON = 3;
+    
+    // 节点类型
+    private static final int T_NULL = 0;
+    private static final int T_TRUE = 1;
+    private static final int T_FALSE = 2;
+    private static final int T_LONG = 3;
+    private static final int T_DOUBLE = 4;
+    private static final int T_DECIMAL = 5;
+    private static final int T_BIG_DECIMAL = 6;
+    private static final int T_BIG_INTEGER = 7;
+    private static final int T_STRING = 8;
+    private static final int T_BINARY = 9;
+    private static final int T_ARRAY = 10;
+    private static final int T_OBJECT = 11;
+    
+    private final ObjectMapper objectMapper;
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final int compressionThreshold;
+    
+    public CompactBinaryRedisSerializer() {
+        this(DEFAULT_COMPRESSION_THRESHOLD);
+    }
+    
+    public CompactBinaryRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        this.objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .nodeFactory(JsonNodeFactory.withExactBigDecimals(true))
+            .build();
+    }
+    
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            Output body = new Output();
+            writeRoot(value, body);
+            
+            byte[] bytes = body.toByteArray();
+            Output out = new Output();
+            out.write(MAGIC);
+            if (bytes.length >= compressionThreshold) {
+                byte[] compressed = deflate(bytes);
+                if (compressed.length < bytes.length) {
+                    out.write(FORMAT_VERSION | COMPRESSED_FLAG);
+                    out.writeVarint(bytes.length);
+                    out.write(compressed, 0, compressed.length);
+                    return out.toByteArray();
+                }
+            }
+            out.write(FORMAT_VERSION);
+            out.write(bytes, 0, bytes.length);
+            return out.toByteArray();
+        } catch (IllegalArgumentException ex) {
+            throw new SerializationException("Could not write compact binary value: " + ex.getMessage(), ex);
+        }
+    }
+    
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        // 以魔数作为格式标记: 本格式的条目总以 MAGIC 开头, 而合法的 JSON 文本以 ASCII 字符开头, 不可能是 0xCB;
+        // 没有该标记的都是切换前写入的 JSON 条目(对象、数组、字符串、数字、布尔都可能)
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < 2) {
+            throw new SerializationException("Truncated compact binary value");
+        }
+        int version = bytes[1] & ~COMPRESSED_FLAG & 0xFF;
+        if (version > FORMAT_VERSION) {
+            // 新版本节点写入的条目, 当作未命中处理
+            return null;
+        }
+        
+        try {
+            Input in = new Input(bytes, 2);
+            if ((bytes[1] & COMPRESSED_FLAG) != 0) {
+                int length = (int) in.readVarint();
+                in = new Input(inflate(bytes, in.position, length), 0);
+            }
+            return readRoot(in);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DataFormatException ex) {
+            throw new SerializationException("Could not read compact binary value", ex);
+        }
+    }
+    
+    private void writeRoot(Object value, Output out) {
+        int typeId = REGISTERED_TYPES.indexOf(value.getClass());
+        if (typeId >= 0) {
+            out.writeVarint(KIND_TYPE);
+            out.writeVarint(typeId);
+            writeNode(objectMapper.valueToTree(value), out, new HashMap<>());
+            return;
+        }
+        if (value instanceof List && isUniformRegisteredList((List<?>) value)) {
+            List<?> list = (List<?>) value;
+            out.writeVarint(KIND_LIST);
+            out.writeVarint(list.isEmpty() ? 0 : REGISTERED_TYPES.indexOf(list.get(0).getClass()));
+            writeNode(objectMapper.valueToTree(list), out, new HashMap<>());
+            return;
+        }
+        // 未注册的类型仍用带类名的 JSON, 只是套上统一的头部
+        byte[] json = jsonSerializer.serialize(value);
+        out.writeVarint(KIND_JSON);
+        out.write(json, 0, json.length);
+    }
+    
+    private Object readRoot(Input in) {
+        int kind = (int) in.readVarint();
+        switch (kind) {
+            case KIND_TYPE: {
+                Class<?> type = REGISTERED_TYPES.get((int) in.readVarint());
+                return objectMapper.convertValue(readNode(in, new ArrayList<>()), type);
+            }
+            case KIND_LIST: {
+                Class<?> elementType = REGISTERED_TYPES.get((int) in.readVarint());
+                JavaType listType = objectMapper.getTypeFactory().constructCollectionType(ArrayList.class, elementType);
+                return objectMapper.convertValue(readNode(in, new ArrayList<>()), listType);
+            }
+            case KIND_JSON:
+                return jsonSerializer.deserialize(Arrays.copyOfRange(in.bytes, in.position, in.bytes.length));
+            default:
+                throw new IllegalArgumentException("Unknown root kind " + kind);
+        }
+    }
+    
+    private boolean isUniformRegisteredList(List<?> list) {
+        if (list.isEmpty()) {
+            return true;
+        }
+        Class<?> type = list.get(0) == null ? null : list.get(0).getClass();
+        if (!REGISTERED_TYPES.contains(type)) {
+            return false;
+        }
+        for (Object element : list) {
+            if (element == null || element.getClass() != type) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void writeNode(JsonNode node, Output out, Map<String, Integer> strings) {
+        switch (node.getNodeType()) {
+            case NULL:
+            case MISSING:
+                out.write(T_NULL);
+                break;
+            case BOOLEAN:
+                out.write(node.booleanValue() ? T_TRUE : T_FALSE);
+                break;
+            case NUMBER:
+                writeNumber(node, out);
+                break;
+            case STRING:
+                out.write(T_STRING);
+                writeString(node.textValue(), out, strings);
+                break;
+            case BINARY:
+                byte[] binary = ((BinaryNode) node).binaryValue();
+                out.write(T_BINARY);
+                out.writeVarint(binary.length);
+                out.write(binary, 0, binary.length);
+                break;
+            case ARRAY:
+                out.write(T_ARRAY);
+                out.writeVarint(node.size());
+                for (JsonNode element : node) {
+                    writeNode(element, out, strings);
+                }
+                break;
+            case OBJECT:
+                out.write(T_OBJECT);
+                out.writeVarint(node.size());
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    writeString(field.getKey(), out, strings);
+                    writeNode(field.getValue(), out, strings);
+                }
+                break;
+            case POJO:
+                writeNode(objectMapper.valueToTree(((POJONode) node).getPojo()), out, strings);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported node type " + node.getNodeType());
+        }
+    }
+    
+    private void writeNumber(JsonNode node, Output out) {
+        if (node.isBigDecimal()) {
+            BigDecimal decimal = node.decimalValue();
+            BigInteger unscaled = decimal.unscaledValue();
+            if (unscaled.bitLength() < 64) {
+                out.write(T_DECIMAL);
+                out.writeVarint(zigzag(decimal.scale()));
+                out.writeVarint(zigzag(unscaled.longValue()));
+            } else {
+                byte[] magnitude = unscaled.toByteArray();
+                out.write(T_BIG_DECIMAL);
+                out.writeVarint(zigzag(decimal.scale()));
+                out.writeVarint(magnitude.length);
+                out.write(magnitude, 0, magnitude.length);
+            }
+        } else if (node.isBigInteger() && !node.canConvertToLong()) {
+            byte[] magnitude = node.bigIntegerValue().toByteArray();
+            out.write(T_BIG_INTEGER);
+            out.writeVarint(magnitude.length);
+            out.write(magnitude, 0, magnitude.length);
+        } else if (node.isIntegralNumber()) {
+            out.write(T_LONG);
+            out.writeVarint(zigzag(node.longValue()));
+        } else {
+            out.write(T_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(node.doubleValue()));
+        }
+    }
+    
+    // 首次出现写 (长度 << 1) + UTF-8, 再次出现写 (编号 << 1 | 1); 只有短字符串进入字典
+    private void writeString(String value, Output out, Map<String, Integer> strings) {
+        Integer index = strings.get(value);
+        if (index != null) {
+            out.writeVarint(((long) index << 1) | 1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeVarint((long) utf8.length << 1);
+        out.write(utf8, 0, utf8.length);
+        if (utf8.length <= MAX_INTERNED_LENGTH) {
+            strings.put(value, strings.size());
+        }
+    }
+    
+    private JsonNode readNode(Input in, List<String> strings) {
+        JsonNodeFactory nodes = objectMapper.getNodeFactory();
+        int tag = in.read();
+        switch (tag) {
+            case T_NULL:
+                return nodes.nullNode();
+            case T_TRUE:
+                return nodes.booleanNode(true);
+            case T_FALSE:
+                return nodes.booleanNode(false);
+            case T_LONG:
+                return nodes.numberNode(unzigzag(in.readVarint()));
+            case T_DOUBLE:
+                return nodes.numberNode(Double.longBitsToDouble(in.readLong()));
+            case T_DECIMAL: {
+                int scale = (int) unzigzag(in.readVarint());
+                return nodes.numberNode(BigDecimal.valueOf(unzigzag(in.readVarint()), scale));
+            }
+            case T_BIG_DECIMAL: {
+                int scale = (int) unzigzag(in.readVarint());
+                return nodes.numberNode(new BigDecimal(new BigInteger(in.readBytes((int) in.readVarint())), scale));
+            }
+            case T_BIG_INTEGER:
+                return nodes.numberNode(new BigInteger(in.readBytes((int) in.readVarint())));
+            case T_STRING:
+                return nodes.textNode(readString(in, strings));
+            case T_BINARY:
+                return nodes.binaryNode(in.readBytes((int) in.readVarint()));
+            case T_ARRAY: {
+                int size = (int) in.readVarint();
+                ArrayNode array = nodes.arrayNode(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readNode(in, strings));
+                }
+                return array;
+            }
+            case T_OBJECT: {
+                int size = (int) in.readVarint();
+                ObjectNode object = nodes.objectNode();
+                for (int i = 0; i < size; i++) {
+                    String name = readString(in, strings);
+                    object.set(name, readNode(in, strings));
+                }
+                return object;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown node tag " + tag);
+        }
+    }
+    
+    private String readString(Input in, List<String> strings) {
+        long header = in.readVarint();
+        if ((header & 1) != 0) {
+            return strings.get((int) (header >>> 1));
+        }
+        int length = (int) (header >>> 1);
+        String value = new String(in.bytes, in.position, length, StandardCharsets.UTF_8);
+        in.position += length;
+        if (length <= MAX_INTERNED_LENGTH) {
+            strings.add(value);
+        }
+        return value;
+    }
+    
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    private static byte[] inflate(byte[] bytes, int offset, int length) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] result = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int count = inflater.inflate(result, read, length - read);
+                if (count == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated compressed value");
+                }
+                read += count;
+            }
+            return result;
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    private static final class Output extends ByteArrayOutputStream {
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+        
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+    }
+    
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+        
+        Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+        
+        int read() {
+            return bytes[position++] & 0xFF;
+        }
+        
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+        
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+        
+        byte[] readBytes(int length) {
+            if (length < 0 || position + length > bytes.length) {
+                throw new IndexOutOfBoundsException("Value truncated at " + position);
+            }
+            byte[] result = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return result;
+        }
+    }
+}
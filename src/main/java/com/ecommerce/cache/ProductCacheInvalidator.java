@@ -0,0 +1,53 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// 商品写操作提交后清理缓存, 避免回滚的修改或未提交的数据被其他请求读到并缓存
+@Component
+public class ProductCacheInvalidator {
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCTS_BY_CATEGORY = "productsByCategory";
+    public static final String PRODUCTS_SORTED = "productsSorted";
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(PRODUCTS, event.getProductId());
+        // 仅库存、评分变化时不清列表, 列表中的这些字段依赖较短的 TTL 刷新, 否则下单高峰时列表缓存形同虚设
+        if (!event.isCounterChange()) {
+            clear(PRODUCTS_BY_CATEGORY);
+            clear(PRODUCTS_SORTED);
+        }
+    }
+    
+    // 批量导入各批次已分别提交, 完成后一次清空全部商品缓存
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        clear(PRODUCTS);
+        clear(PRODUCTS_BY_CATEGORY);
+        clear(PRODUCTS_SORTED);
+    }
+    
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+    
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+// 本地缓存 + 远端缓存(Redis): 读先查本地, 未命中再查远端并回填; 写穿透到远端, 失效时广播给其他节点
+public class TwoLevelCache implements Cache {
+    private final String name;
+    private final BoundedLocalCache<String, Object> local;
+    private final Cache remote;
+    private final InvalidationPublisher publisher;
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    
+    public TwoLevelCache(String name, BoundedLocalCache<String, Object> local, Cache remote, InvalidationPublisher publisher) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+    
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.get(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        if (wrapper.get() != null) {
+            local.put(localKey, wrapper.get());
+        }
+        return wrapper;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        put(key, value);
+        return value;
+    }
+    
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(localKey(key), value);
+        }
+    }
+    
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(localKey(key));
+        publisher.publish(name, localKey(key));
+    }
+    
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        publisher.publish(name, null);
+    }
+    
+    // 只清本地, 用于处理其他节点发来的失效消息
+    public void evictLocal(String key) {
+        local.invalidate(key);
+    }
+    
+    public void clearLocal() {
+        local.invalidateAll();
+    }
+    
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("localHits", local.hitCount());
+        statistics.put("localMisses", local.missCount());
+        statistics.put("localEvictions", local.evictionCount());
+        statistics.put("localSize", local.size());
+        statistics.put("remoteHits", remoteHits.sum());
+        statistics.put("remoteMisses", remoteMisses.sum());
+        return statistics;
+    }
+    
+    // 与 RedisCache 一致按字符串比较 key, 失效消息中的 key 才能对上
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+    
+    @FunctionalInterface
+    public interface InvalidationPublisher {
+        // key 为 null 表示清空整个缓存
+        void publish(String cacheName, String key);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.config.NearCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// 为远端 CacheManager 的每个缓存套一层本地缓存, 并通过 Redis pub/sub 同步各节点的本地失效
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    private static final String SEPARATOR = "|";
+    
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final NearCacheConfig config;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate, NearCacheConfig config) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+    }
+    
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote == null) {
+                return null;
+            }
+            BoundedLocalCache<String, Object> local =
+                new BoundedLocalCache<>(config.getMaximumSize(), Duration.ofSeconds(config.getTtlSeconds()));
+            return new TwoLevelCache(cacheName, local, remote, this::publish);
+        });
+    }
+    
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+    
+    public Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Map<String, Long>> statistics = new TreeMap<>();
+        caches.forEach((name, cache) -> statistics.put(name, cache.getStatistics()));
+        return statistics;
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts.length == 2) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+    
+    private void publish(String cacheName, String key) {
+        String message = nodeId + SEPARATOR + cacheName + (key == null ? "" : SEPARATOR + key);
+        try {
+            redisTemplate.convertAndSend(config.getChannel(), message);
+        } catch (DataAccessException ex) {
+            // 通知失败时其他节点的本地条目最多在 TTL 后过期
+            log.warn("Failed to publish cache invalidation for {}::{}", cacheName, key, ex);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsConfig {
+    private boolean enabled = false; // 开启后启动时加载订单项到内存列存 (占用与订单项数成正比的堆内存), 关闭时分析接口返回空结果
+    private String reloadCron = "-"; // 定期重新加载的 cron, "-" 表示不定期加载; 多节点部署时用它同步其他节点的订单
+    private int parallelism = Runtime.getRuntime().availableProcessors(); // 查询扫描的并行度
+    private int maxDays = 3660; // 按天汇总允许的最大日期跨度
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "expiry")
+public class ExpiryConfig {
+    private boolean enabled = true; // 按时间轮精确触发支付/订单超时, 关闭后只依赖定时清理
+    private long tickMs = 100; // 时间轮精度
+    private int wheelSize = 512; // 每层格数, 第一层覆盖 tickMs * wheelSize
+    private long unpaidOrderTimeoutSeconds = 1800; // 未支付订单保留库存的时长, 默认30分钟
+}
\ No newline at end of file
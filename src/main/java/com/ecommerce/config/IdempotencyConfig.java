@@ -0,0 +1,21 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyConfig {
+    private boolean enabled = true;
+    private List<String> paths = new ArrayList<>(List.of(
+        "/api/orders", "/api/payments/process", "/api/payments/retry")); // 支持 Idempotency-Key 的 POST 接口
+    private long ttlHours = 24; // 已完成响应的保留时长
+    private long lockSeconds = 60; // 执行中记录的租约, 超时后视为执行方已失联
+    private long waitTimeoutMs = 10000; // 并发重复请求等待首个请求完成的最长时间
+    private int localCacheSize = 10000; // 本地缓存的响应条数
+    private int maxBodyBytes = 65536; // 请求体超过该大小时不做幂等处理
+}
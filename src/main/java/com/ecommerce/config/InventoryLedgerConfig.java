@@ -0,0 +1,18 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "inventory.ledger")
+public class InventoryLedgerConfig {
+    private boolean enabled = false; // 默认关闭, 仅秒杀期间开启
+    private List<Long> productIds = new ArrayList<>(); // 走内存账本的热点商品
+    private int stripes = 16; // 每个商品的计数分片数
+    private long flushIntervalMs = 1000; // 回写数据库的间隔
+    private long leaseMs = 30000; // 账本归属租约, 持有者每次回写时续租, 过期后由其他节点接管
+}
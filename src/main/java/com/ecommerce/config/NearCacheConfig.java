@@ -0,0 +1,15 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache.near")
+public class NearCacheConfig {
+    private int maximumSize = 10000; // 每个缓存的本地条目上限
+    private long ttlSeconds = 60; // 本地条目存活时间, 兜底丢失的失效消息
+    private long listingTtlSeconds = 300; // 列表类缓存在 Redis 中的存活时间
+    private String channel = "cache:invalidation"; // 跨节点失效通知的频道
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "order.async")
+public class OrderPlacementConfig {
+    private boolean enabled = false; // 开启后 POST /api/orders 写入 outbox 并返回 202
+    private int workers = 4; // 建单 worker 线程数
+    private int batchSize = 20; // 每次从 outbox 领取的条数
+    private long pollIntervalMs = 200; // outbox 轮询间隔
+    private int maxAttempts = 3; // 非业务异常的最大尝试次数
+    private long leaseSeconds = 60; // 领取后超过该时间未完成则重新派发
+    private long retentionHours = 24; // 已完成/失败记录的保留时长
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "security.password-hashing")
+public class PasswordHashingConfig {
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2); // 专用哈希线程数
+    private int queueCapacity = 64; // 排队上限, 超出直接返回 503
+    private long waitTimeoutMs = 5000; // 请求线程等待哈希结果的上限
+    private long retryAfterSeconds = 2; // 503 响应的 Retry-After
+    private int strength = 10; // BCrypt 成本因子, 开启自动调优时被覆盖
+    private boolean autoTune = false; // 启动时按目标耗时选择成本因子
+    private long targetMillis = 250; // 自动调优的单次哈希目标耗时
+    private int minStrength = 10;
+    private int maxStrength = 14;
+}
@@ -12,4 +12,30 @@ public class PaymentConfig {
     private int timeoutSeconds = 300; // 默认5分钟超时
     private BigDecimal maxAmount = new BigDecimal("50000"); // 默认最大支付金额
     private int maxRetries = 3; // 最大重试次数
+    private int cleanupBatchSize = 500; // 超时清理每块更新的行数, 每块一个事务
+    private long cleanupLeaseSeconds = 150; // 清理任务租约, 主节点失联超过该时长后由其他节点接管
+    private Gateway gateway = new Gateway();
+    
+    @Data
+    public static class Gateway {
+        private String type = "simulated"; // simulated: 进程内模拟; http: 调用外部网关
+        
+        // 调用方式, 与网关类型无关
+        private int maxConcurrency = 64; // 同时进行的网关调用上限
+        private int queueCapacity = 256; // 等待调用的队列长度, 满时返回 503
+        private long deadlineMs = 5000; // 单笔支付等待网关的总时长 (含对冲)
+        private long hedgeAfterMs = 0; // 超过该时长未返回时发出对冲请求, 0 表示不对冲
+        
+        // simulated: 按交易号哈希决定结果和延迟, 同一交易在任何节点上结果一致
+        private double declineRate = 1.0 / 3; // 拒付比例
+        private double errorRate = 0; // 网关不可用比例
+        private long latencyMs = 0; // 基础延迟
+        private long latencyJitterMs = 0; // 在基础延迟上叠加的指数分布延迟均值
+        private long seed = 0; // 改变种子可得到另一组确定性结果
+        
+        // http
+        private String url = "http://localhost:8089";
+        private long connectTimeoutMs = 1000;
+        private long readTimeoutMs = 3000;
+    }
 } 
\ No newline at end of file
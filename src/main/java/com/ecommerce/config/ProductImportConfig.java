@@ -0,0 +1,14 @@
+package com.ecommerce.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "product-import")
+public class ProductImportConfig {
+    private int batchSize = 1000; // 每个 JDBC batch / 事务的行数, 也是解析任务的粒度
+    private int parallelism = Runtime.getRuntime().availableProcessors(); // 解析校验的并行度
+    private int maxReportedErrors = 1000; // 结果中返回的错误行数上限
+}
@@ -1,14 +1,23 @@
 package com.ecommerce.config;
 
+import com.ecommerce.cache.CompactBinaryRedisSerializer;
+import com.ecommerce.cache.ProductCacheInvalidator;
+import com.ecommerce.cache.TwoLevelCacheManager;
+import com.ecommerce.service.ProductIndexSynchronizer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -17,28 +26,57 @@ import java.time.Duration;
 @EnableCaching
 public class RedisConfig {
 
+    // 缓存值的序列化方式: compact 为紧凑二进制(可读旧 JSON 条目), json 为带类名的 JSON
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisSerializer<Object> cacheValueSerializer(@Value("${cache.serializer:compact}") String format) {
+        return "json".equalsIgnoreCase(format)
+            ? new GenericJackson2JsonRedisSerializer()
+            : new CompactBinaryRedisSerializer();
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisSerializer<Object> cacheValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(cacheValueSerializer);
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setHashValueSerializer(cacheValueSerializer);
         template.setEnableTransactionSupport(true);
         template.afterPropertiesSet();
         return template;
     }
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             RedisSerializer<Object> cacheValueSerializer,
+                                             NearCacheConfig nearCacheConfig) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
             .entryTtl(Duration.ofHours(1))
             .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer));
+        RedisCacheConfiguration listingConfig = config.entryTtl(Duration.ofSeconds(nearCacheConfig.getListingTtlSeconds()));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
             .cacheDefaults(config)
+            .withCacheConfiguration(ProductCacheInvalidator.PRODUCTS_BY_CATEGORY, listingConfig)
+            .withCacheConfiguration(ProductCacheInvalidator.PRODUCTS_SORTED, listingConfig)
             .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, nearCacheConfig);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager,
+                                                                            NearCacheConfig nearCacheConfig,
+                                                                            ProductIndexSynchronizer productIndexSynchronizer) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(nearCacheConfig.getChannel()));
+        container.addMessageListener(productIndexSynchronizer, new ChannelTopic(productIndexSynchronizer.getChannel()));
+        return container;
     }
 } 
\ No newline at end of file
@@ -1,21 +1,36 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.cache.TwoLevelCacheManager;
+import com.ecommerce.dto.DataFormat;
+import com.ecommerce.dto.ProductImportResult;
 import com.ecommerce.model.Order;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
+import com.ecommerce.payment.PaymentGatewayExecutor;
+import com.ecommerce.security.BoundedPasswordEncoder;
+import com.ecommerce.service.ExpiryService;
+import com.ecommerce.service.ExportService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.PaymentCleanupService;
+import com.ecommerce.service.ProductImportService;
 import com.ecommerce.service.ProductService;
 import com.ecommerce.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +49,27 @@ public class AdminController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+    
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private PaymentGatewayExecutor paymentGatewayExecutor;
+    
+    @Autowired
+    private PaymentCleanupService paymentCleanupService;
+    
+    @Autowired
+    private ExpiryService expiryService;
+    
+    @Autowired
+    private ProductImportService productImportService;
+    
+    @Autowired
+    private ExportService exportService;
+    
     // 产品管理
     @PostMapping("/products")
     public ResponseEntity<Product> createProduct(@RequestBody Product product) {
@@ -58,6 +94,62 @@ public class AdminController {
         return ResponseEntity.ok(productService.updateProductImage(id, file));
     }
     
+    @Operation(summary = "Bulk import products from CSV or NDJSON",
+        description = "The body is streamed line by line; rows with an id update that product, other rows are inserted")
+    @PostMapping(value = "/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResult> importProducts(HttpServletRequest request) throws IOException {
+        DataFormat format = DataFormat.fromContentType(request.getContentType());
+        return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), format));
+    }
+    
+    @Operation(summary = "Get progress of the running or last product import")
+    @GetMapping("/products/import/progress")
+    public ResponseEntity<Map<String, Object>> getProductImportProgress() {
+        return ResponseEntity.ok(productImportService.getProgress());
+    }
+    
+    @Operation(summary = "Get per-tier cache hit/miss statistics")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheManager.getStatistics());
+    }
+    
+    @Operation(summary = "Get password hashing pool statistics")
+    @GetMapping("/security/password-hashing")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStatistics() {
+        return ResponseEntity.ok(passwordEncoder.getStatistics());
+    }
+    
+    @Operation(summary = "Get payment gateway call statistics")
+    @GetMapping("/payments/gateway")
+    public ResponseEntity<Map<String, Object>> getPaymentGatewayStatistics() {
+        return ResponseEntity.ok(paymentGatewayExecutor.getStatistics());
+    }
+    
+    @Operation(summary = "Get payment timeout sweeper statistics")
+    @GetMapping("/payments/cleanup")
+    public ResponseEntity<Map<String, Object>> getPaymentCleanupStatistics() {
+        return ResponseEntity.ok(paymentCleanupService.getStatistics());
+    }
+    
+    @Operation(summary = "Get payment/order expiry timer statistics")
+    @GetMapping("/expiry")
+    public ResponseEntity<Map<String, Object>> getExpiryStatistics() {
+        return ResponseEntity.ok(expiryService.getStatistics());
+    }
+    
+    @Operation(summary = "Rebuild product rating aggregates from reviews")
+    @PostMapping("/products/ratings/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildRatingAggregates() {
+        return ResponseEntity.ok(Map.of("updated", productService.rebuildRatingAggregates()));
+    }
+    
+    @Operation(summary = "Rebuild the order history read model from orders")
+    @PostMapping("/orders/summaries/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildOrderSummaries() {
+        return ResponseEntity.ok(Map.of("inserted", orderService.rebuildOrderSummaries()));
+    }
+    
     // 订单管理
     @Operation(summary = "Get all orders")
     @GetMapping("/orders")
@@ -65,12 +157,28 @@ public class AdminController {
         return ResponseEntity.ok(orderService.getAllOrders());
     }
     
+    @Operation(summary = "Export all orders as NDJSON or CSV",
+        description = "Streamed row by row without order items; gzip=true returns a compressed download")
+    @GetMapping("/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        DataFormat dataFormat = DataFormat.fromName(format);
+        return export("orders", dataFormat, gzip, out -> exportService.exportOrders(out, dataFormat, gzip));
+    }
+    
     @Operation(summary = "Get order statistics")
     @GetMapping("/orders/statistics")
     public ResponseEntity<Map<String, Object>> getOrderStatistics() {
         return ResponseEntity.ok(orderService.getOrderStatistics());
     }
     
+    @Operation(summary = "Rebuild order statistics rollups from orders")
+    @PostMapping("/orders/statistics/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildOrderStatistics() {
+        return ResponseEntity.ok(Map.of("buckets", orderService.rebuildOrderStatistics()));
+    }
+    
     // 用户管理
     @Operation(summary = "Get all users")
     @GetMapping("/users")
@@ -78,6 +186,16 @@ public class AdminController {
         return ResponseEntity.ok(userService.getAllUsers());
     }
     
+    @Operation(summary = "Export all users as NDJSON or CSV",
+        description = "Streamed row by row; credentials are never included")
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        DataFormat dataFormat = DataFormat.fromName(format);
+        return export("users", dataFormat, gzip, out -> exportService.exportUsers(out, dataFormat, gzip));
+    }
+    
     @Operation(summary = "Update user")
     @PutMapping("/users/{id}")
     public ResponseEntity<User> updateUser(
@@ -93,4 +211,12 @@ public class AdminController {
         userService.deleteUser(id);
         return ResponseEntity.ok().build();
     }
+    
+    private ResponseEntity<StreamingResponseBody> export(String name, DataFormat format, boolean gzip, StreamingResponseBody body) {
+        String filename = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getMediaType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .body(body);
+    }
 } 
\ No newline at end of file
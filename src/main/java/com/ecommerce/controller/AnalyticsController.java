@@ -0,0 +1,89 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.analytics.AnalyticsService;
+import com.ecommerce.dto.CohortRow;
+import com.ecommerce.dto.ProductSalesRow;
+import com.ecommerce.dto.RevenueRow;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Analytics", description = "Admin sales reporting APIs")
+@SecurityRequirement(name = "bearerAuth")
+public class AnalyticsController {
+    @Autowired
+    private AnalyticsService analyticsService;
+    
+    @Operation(summary = "Get daily revenue", description = "Defaults to the last 30 days; cancelled orders are excluded")
+    @GetMapping("/revenue/daily")
+    public ResponseEntity<List<RevenueRow>> getDailyRevenue(
+            @Parameter(description = "First day (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand) {
+        return ResponseEntity.ok(analyticsService.getDailyRevenue(from, to, category, brand));
+    }
+    
+    @Operation(summary = "Get revenue by category")
+    @GetMapping("/revenue/by-category")
+    public ResponseEntity<List<RevenueRow>> getRevenueByCategory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String brand) {
+        return ResponseEntity.ok(analyticsService.getRevenueByCategory(from, to, brand));
+    }
+    
+    @Operation(summary = "Get revenue by brand")
+    @GetMapping("/revenue/by-brand")
+    public ResponseEntity<List<RevenueRow>> getRevenueByBrand(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category) {
+        return ResponseEntity.ok(analyticsService.getRevenueByBrand(from, to, category));
+    }
+    
+    @Operation(summary = "Get top products by revenue")
+    @GetMapping("/products/top")
+    public ResponseEntity<List<ProductSalesRow>> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @Parameter(description = "Number of products (max 100)") @RequestParam(defaultValue = "10") int n) {
+        return ResponseEntity.ok(analyticsService.getTopProducts(from, to, category, brand, n));
+    }
+    
+    @Operation(summary = "Get revenue by first-order cohort and months since first order")
+    @GetMapping("/cohorts")
+    public ResponseEntity<List<CohortRow>> getCohorts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(analyticsService.getCohorts(from, to));
+    }
+    
+    @Operation(summary = "Get analytics store statistics")
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStatistics() {
+        return ResponseEntity.ok(analyticsService.getStatistics());
+    }
+    
+    @Operation(summary = "Reload the analytics store from order items")
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        analyticsService.reload();
+        return ResponseEntity.ok(analyticsService.getStatistics());
+    }
+}
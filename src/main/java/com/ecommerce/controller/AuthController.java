@@ -15,8 +15,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -40,26 +38,23 @@ public class AuthController {
         @ApiResponse(responseCode = "200", description = "User registered successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid input data")
     })
-@PostMapping("/register")
-public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest) {
-    User user = userService.registerUser(registerRequest);
-    
-    Authentication authentication = authenticationManager.authenticate(
-        new UsernamePasswordAuthenticationToken(
-            registerRequest.getUsername(),
-            registerRequest.getPassword()
-        )
-    );
-
-    SecurityContextHolder.getContext().setAuthentication(authentication);
-    String jwt = tokenProvider.generateToken((UserDetails)authentication.getPrincipal());
-
-    Map<String, Object> response = new HashMap<>();
-    response.put("token", jwt);
-    response.put("user", user);
-    
-    return ResponseEntity.ok(response);
-}
+    @PostMapping("/register")
+    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest registerRequest) {
+        User user = new User();
+        user.setUsername(registerRequest.getUsername());
+        user.setPassword(registerRequest.getPassword());
+        user.setEmail(registerRequest.getEmail());
+        User savedUser = userService.registerUser(user);
+        
+        // 刚注册的用户无需再走一遍密码校验, 直接签发令牌
+        String jwt = tokenProvider.generateToken(savedUser);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", jwt);
+        response.put("user", savedUser);
+        
+        return ResponseEntity.ok(response);
+    }
     
     @Operation(summary = "Login user")
     @ApiResponses(value = {
@@ -75,11 +70,12 @@ public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest)
             )
         );
         
-        String token = tokenProvider.generateToken(loginRequest.getUsername());
+        User user = userService.findByUsername(authentication.getName());
+        String token = tokenProvider.generateToken(user);
         
         Map<String, Object> response = new HashMap<>();
         response.put("token", token);
-        response.put("user", userService.findByUsername(loginRequest.getUsername()));
+        response.put("user", user);
         
         return ResponseEntity.ok(response);
     }
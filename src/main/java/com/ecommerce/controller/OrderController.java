@@ -1,7 +1,11 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.dto.OrderRequest;
 import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderPlacement;
+import com.ecommerce.model.OrderSummary;
+import com.ecommerce.service.OrderPlacementService;
 import com.ecommerce.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +18,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -25,17 +30,38 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
     
-    @Operation(summary = "Create a new order")
+    @Autowired
+    private OrderPlacementService orderPlacementService;
+    
+    @Operation(summary = "Create a new order",
+        description = "Returns 202 with an order placement to poll when asynchronous ordering is enabled")
     @PostMapping
-    public ResponseEntity<Order> createOrder(
+    public ResponseEntity<?> createOrder(
             @AuthenticationPrincipal UserDetails userDetails,
             @Valid @RequestBody OrderRequest orderRequest) {
+        if (orderPlacementService.isEnabled()) {
+            OrderPlacement placement = orderPlacementService.submit(
+                userDetails.getUsername(),
+                orderRequest.getShippingAddress(),
+                orderRequest.getPaymentMethod());
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/placements/" + placement.getId()))
+                .body(placement);
+        }
         return ResponseEntity.ok(orderService.createOrder(
             userDetails.getUsername(), 
             orderRequest.getShippingAddress(), 
             orderRequest.getPaymentMethod()));
     }
     
+    @Operation(summary = "Get order placement status")
+    @GetMapping("/placements/{placementId}")
+    public ResponseEntity<OrderPlacement> getPlacement(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Order placement ID") @PathVariable Long placementId) {
+        return ResponseEntity.ok(orderPlacementService.getPlacement(userDetails.getUsername(), placementId));
+    }
+    
     @Operation(summary = "Get user's orders")
     @GetMapping
     public ResponseEntity<List<Order>> getUserOrders(
@@ -43,11 +69,21 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getUserOrders(userDetails.getUsername()));
     }
     
+    @Operation(summary = "Get user's order history page",
+        description = "Newest first; pass nextCursor from the previous page to continue")
+    @GetMapping("/history")
+    public ResponseEntity<CursorPage<OrderSummary>> getOrderHistory(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Continuation token from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(orderService.getOrderHistory(userDetails.getUsername(), cursor, size));
+    }
+    
     @Operation(summary = "Get order by ID")
     @GetMapping("/{orderId}")
     public ResponseEntity<Order> getOrder(
             @Parameter(description = "Order ID") @PathVariable Long orderId) {
-        return ResponseEntity.ok(orderService.getOrder(orderId));
+        return ResponseEntity.ok(orderService.getOrderWithItems(orderId));
     }
     
     @Operation(summary = "Confirm order")
@@ -1,6 +1,7 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.PaymentResponse;
+import com.ecommerce.exception.ServiceUnavailableException;
 import com.ecommerce.model.Payment;
 import com.ecommerce.model.PaymentStatus;
 import com.ecommerce.service.PaymentService;
@@ -34,6 +35,9 @@ public class PaymentController {
                 return ResponseEntity.badRequest().body(response);
             }
             return ResponseEntity.ok(response);
+        } catch (ServiceUnavailableException e) {
+            // 网关不可用交给全局处理返回 503, 客户端可稍后重试
+            throw e;
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -52,6 +56,9 @@ public class PaymentController {
                 return ResponseEntity.badRequest().body(response);
             }
             return ResponseEntity.ok(response);
+        } catch (ServiceUnavailableException e) {
+            // 网关不可用交给全局处理返回 503, 客户端可稍后重试
+            throw e;
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -1,6 +1,9 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.ProductFacetResult;
 import com.ecommerce.dto.ProductRequest;
+import com.ecommerce.dto.ProductSearchResult;
 import com.ecommerce.model.Product;
 import com.ecommerce.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -9,10 +12,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -29,11 +34,42 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts());
     }
     
+    @Operation(summary = "Get a page of products using keyset pagination")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Product>> getProductPage(
+            @Parameter(description = "Sort field (price/name/id)") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "true") boolean ascending,
+            @Parameter(description = "Category filter") @RequestParam(required = false) String category,
+            @Parameter(description = "Continuation token from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getProductPage(sortBy, ascending, category, cursor, size));
+    }
+    
+    @Operation(summary = "Filter products by category, brand and price range with per-facet counts")
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetResult> getFacetedProducts(
+            @Parameter(description = "Categories (any of)") @RequestParam(required = false) List<String> category,
+            @Parameter(description = "Brands (any of)") @RequestParam(required = false) List<String> brand,
+            @Parameter(description = "Price ranges such as 0-50 or 1000+ (any of)") @RequestParam(required = false) List<String> price,
+            @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getFacetedProducts(category, brand, price, page, size));
+    }
+    
+    @Operation(summary = "Export the full catalog as NDJSON")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = productService::exportProducts;
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+    
     @Operation(summary = "Get product by ID")
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProduct(
             @Parameter(description = "Product ID") @PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProduct(id));
+        return ResponseEntity.ok(productService.findProduct(id));
     }
     
     @Operation(summary = "Get products by category")
@@ -66,6 +102,15 @@ public class ProductController {
         return ResponseEntity.ok(productService.searchProducts(keyword));
     }
     
+    @Operation(summary = "Ranked full-text search over name, brand, category and description")
+    @GetMapping(value = "/search", params = "mode=ranked")
+    public ResponseEntity<ProductSearchResult> searchProductsRanked(
+            @Parameter(description = "Search query") @RequestParam String keyword,
+            @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.searchProductsRanked(keyword, page, size));
+    }
+    
     @Operation(summary = "Create new product", security = @SecurityRequirement(name = "bearerAuth"))
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -1,6 +1,9 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.CursorPage;
 import com.ecommerce.dto.ReviewRequest;
+import com.ecommerce.dto.ReviewResponse;
+import com.ecommerce.dto.ReviewSummary;
 import com.ecommerce.model.Review;
 import com.ecommerce.service.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -65,6 +68,23 @@ public class ReviewController {
         return ResponseEntity.ok(reviewService.getProductReviews(productId));
     }
     
+    @Operation(summary = "Get a page of product reviews using keyset pagination")
+    @GetMapping("/products/{productId}/page")
+    public ResponseEntity<CursorPage<ReviewResponse>> getProductReviewPage(
+            @Parameter(description = "Product ID") @PathVariable Long productId,
+            @Parameter(description = "Order (newest/highest/lowest)") @RequestParam(defaultValue = "newest") String sort,
+            @Parameter(description = "Continuation token from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(reviewService.getProductReviewPage(productId, sort, cursor, size));
+    }
+    
+    @Operation(summary = "Get product rating summary with star histogram")
+    @GetMapping("/product/{productId}/summary")
+    public ResponseEntity<ReviewSummary> getReviewSummary(
+            @Parameter(description = "Product ID") @PathVariable Long productId) {
+        return ResponseEntity.ok(reviewService.getReviewSummary(productId));
+    }
+    
     @Operation(summary = "Get user's reviews", security = @SecurityRequirement(name = "bearerAuth"))
     @GetMapping("/users/me")
     public ResponseEntity<List<Review>> getUserReviews(@AuthenticationPrincipal UserDetails userDetails) {
@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+// cohort 为用户首单月份, monthOffset 为距首单的月数
+@Data
+@AllArgsConstructor
+public class CohortRow {
+    private String cohort;
+    private int monthOffset;
+    private BigDecimal revenue;
+    private long units;
+}
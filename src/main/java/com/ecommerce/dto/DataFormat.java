@@ -0,0 +1,44 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.exception.BusinessException;
+
+import java.util.Locale;
+
+// 批量导入/导出的行格式
+public enum DataFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+    
+    private final String mediaType;
+    private final String extension;
+    
+    DataFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+    
+    public String getMediaType() {
+        return mediaType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    public static DataFormat fromName(String name) {
+        for (DataFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new BusinessException("Unsupported format: " + name);
+    }
+    
+    // 除 text/csv 外都按 NDJSON 处理
+    public static DataFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(CSV.mediaType)) {
+            return CSV;
+        }
+        return NDJSON;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// 订单导出的一行, 只含订单头和订单项数量, 不展开订单项
+@Data
+@AllArgsConstructor
+public class OrderExportRow {
+    private Long id;
+    private Long userId;
+    private String username;
+    private LocalDateTime orderDate;
+    private OrderStatus status;
+    private BigDecimal totalAmount;
+    private Integer itemCount;
+    private String shippingAddress;
+    private String paymentMethod;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+public class OrderItemSummary {
+    private String productName;
+    private Integer quantity;
+    private BigDecimal price;
+    private BigDecimal subtotal;
+    
+    // JPQL 构造器投影使用
+    public OrderItemSummary(String productName, Integer quantity, BigDecimal price) {
+        this.productName = productName;
+        this.quantity = quantity;
+        this.price = price;
+        this.subtotal = price.multiply(new BigDecimal(quantity));
+    }
+}
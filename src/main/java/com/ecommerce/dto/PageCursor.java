@@ -0,0 +1,41 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// 键集分页游标: 每段单独 base64url 编码后以 '.' 拼接, 对客户端不透明
+public final class PageCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private PageCursor() {
+    }
+    
+    public static String encode(Object... parts) {
+        StringBuilder token = new StringBuilder();
+        for (Object part : parts) {
+            if (token.length() > 0) {
+                token.append('.');
+            }
+            token.append(ENCODER.encodeToString(String.valueOf(part).getBytes(StandardCharsets.UTF_8)));
+        }
+        return token.toString();
+    }
+    
+    public static String[] decode(String token, int expectedParts) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != expectedParts) {
+            throw new BusinessException("Invalid page cursor");
+        }
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new String(DECODER.decode(parts[i]), StandardCharsets.UTF_8);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new BusinessException("Invalid page cursor");
+        }
+        return parts;
+    }
+}
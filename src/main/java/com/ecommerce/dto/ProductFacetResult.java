@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ProductFacetResult {
+    private List<Product> products;
+    private long total;
+    private Map<String, Map<String, Integer>> facets; // 维度 -> 取值 -> 商品数
+}
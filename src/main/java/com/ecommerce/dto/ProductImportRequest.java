@@ -0,0 +1,11 @@
+package com.ecommerce.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+// 批量导入的一行: 带 id 时更新该商品, 否则新建
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ProductImportRequest extends ProductRequest {
+    private Long id;
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class ProductSalesRow {
+    private Long productId;
+    private String name;
+    private BigDecimal revenue;
+    private long units;
+}
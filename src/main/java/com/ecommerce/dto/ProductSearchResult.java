@@ -0,0 +1,22 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductSearchResult {
+    private List<Hit> hits;
+    private long total;
+    private int page;
+    private int size;
+    
+    @Data
+    @AllArgsConstructor
+    public static class Hit {
+        private Product product;
+        private double score;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+// 按天/分类/品牌汇总的一行, key 为日期或名称
+@Data
+@AllArgsConstructor
+public class RevenueRow {
+    private String key;
+    private BigDecimal revenue;
+    private long units;
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// 评价分页列表的一行, JPQL 构造器投影直接查出, 不加载商品和完整的用户实体
+@Data
+@AllArgsConstructor
+public class ReviewResponse {
+    private Long id;
+    private Integer rating;
+    private String comment;
+    private LocalDateTime createdAt;
+    private String username;
+}
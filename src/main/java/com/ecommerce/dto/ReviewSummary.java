@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ReviewSummary {
+    private Long productId;
+    private double averageRating;
+    private int reviewCount;
+    private Map<Integer, Integer> histogram; // 星级 -> 评价数
+}
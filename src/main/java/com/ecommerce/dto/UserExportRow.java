@@ -0,0 +1,15 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.model.Role;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// 用户导出的一行, 不含密码哈希等凭证字段
+@Data
+@AllArgsConstructor
+public class UserExportRow {
+    private Long id;
+    private String username;
+    private String email;
+    private Role role;
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.event;
+
+import com.ecommerce.analytics.OrderLine;
+import com.ecommerce.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 订单提交后发布, 用于登记未支付超时和更新分析数据
+// 监听器在事务提交后、可能在其他线程中运行, 只携带下单时复制的不可变快照, 不引用 JPA 实体
+@Getter
+@AllArgsConstructor
+public class OrderCreatedEvent {
+    private final Long orderId;
+    private final LocalDateTime orderDate;
+    private final List<OrderLine> lines;
+    
+    public static OrderCreatedEvent of(Order order) {
+        return new OrderCreatedEvent(order.getId(), order.getOrderDate(), order.getOrderItems().stream()
+            .map(item -> new OrderLine(order.getId(), order.getUser().getId(), order.getOrderDate(), order.getStatus(),
+                item.getProduct().getId(), item.getProduct().getCategory(), item.getProduct().getBrand(),
+                item.getQuantity(), item.getPrice()))
+            .toList());
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.event;
+
+import com.ecommerce.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 订单状态变更提交后发布
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private final Long orderId;
+    private final OrderStatus status;
+}
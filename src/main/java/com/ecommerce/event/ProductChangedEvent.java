@@ -0,0 +1,27 @@
+package com.ecommerce.event;
+
+import com.ecommerce.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 商品写操作提交后发布, 供搜索索引、缓存等派生数据同步
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_CHANGED,
+        RATING_CHANGED
+    }
+    
+    private final Long productId;
+    private final Type type;
+    private final Product product; // 仅 CREATED、UPDATED 时携带
+    
+    // 库存、评分等计数字段的变化, 不影响索引内容和列表中的成员与顺序
+    public boolean isCounterChange() {
+        return type == Type.STOCK_CHANGED || type == Type.RATING_CHANGED;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 批量导入完成后发布一次, 搜索索引和缓存整体刷新, 不逐行处理 ProductChangedEvent
+@Getter
+@AllArgsConstructor
+public class ProductsImportedEvent {
+    private final long inserted;
+    private final long updated;
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 用户密码、角色变更或被删除后发布, 已签发的令牌随之失效
+@Getter
+@AllArgsConstructor
+public class UserTokensRevokedEvent {
+    private final Long userId;
+}
@@ -0,0 +1,270 @@
+package com.ecommerce.idempotency;
+
+import com.ecommerce.config.IdempotencyConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// 带 Idempotency-Key 的 POST 请求: 首个请求正常执行并保存响应, 重复请求直接回放, 不再进入 Controller
+// 注册在 Spring Security 过滤器之后, 幂等键按登录用户隔离
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    @Autowired
+    private IdempotencyStore store;
+    
+    @Autowired
+    private IdempotencyConfig config;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled()
+            || !"POST".equals(request.getMethod())
+            || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+            || !config.getPaths().contains(pathOf(request));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key header");
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || request.getContentLengthLong() > config.getMaxBodyBytes()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        // 先解析参数再读请求体, 表单参数不会因请求体被读走而丢失
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        // 分块传输的请求没有 Content-Length, 读取时按上限截断; 超限时把已读部分与剩余流拼接后原样放行
+        InputStream input = request.getInputStream();
+        byte[] body = input.readNBytes(config.getMaxBodyBytes() + 1);
+        if (body.length > config.getMaxBodyBytes()) {
+            filterChain.doFilter(new CachedBodyRequest(request, body, input), response);
+            return;
+        }
+        String scopeKey = digest(authentication.getName(), request.getMethod(), pathOf(request), key);
+        String fingerprint = fingerprint(parameters, body);
+        
+        IdempotencyStore.Claim claim = store.begin(scopeKey, fingerprint);
+        switch (claim.getKind()) {
+            case EXECUTE -> execute(new CachedBodyRequest(request, body, null), response, filterChain, scopeKey, fingerprint);
+            case REPLAY -> replay(response, claim.getResponse());
+            case WAIT -> {
+                StoredResponse completed = await(claim);
+                if (completed == null) {
+                    writeConflict(response);
+                } else {
+                    replay(response, completed);
+                }
+            }
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency-Key was already used with a different request");
+            case CONFLICT -> writeConflict(response);
+        }
+    }
+    
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String scopeKey, String fingerprint) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            // 5xx 不保存, 同一个键重试时重新执行
+            if (wrapper.getStatus() < 500) {
+                store.complete(scopeKey, new StoredResponse(fingerprint, wrapper.getStatus(),
+                    wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.abandon(scopeKey);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+    
+    private StoredResponse await(IdempotencyStore.Claim claim) {
+        try {
+            return claim.getPending().get(config.getWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException ex) {
+            return null;
+        }
+    }
+    
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = stored.getBody() == null ? new byte[0] : stored.getBody();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+    
+    private void writeConflict(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed");
+    }
+    
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(Collections.singletonMap("error", message)));
+    }
+    
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+    
+    private static String fingerprint(Map<String, String[]> parameters, byte[] body) {
+        MessageDigest digest = sha256();
+        parameters.forEach((name, values) -> {
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            for (String value : values) {
+                digest.update((byte) 0);
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+        });
+        digest.update(body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static String digest(String... parts) {
+        MessageDigest digest = sha256();
+        for (String part : parts) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    // 请求体已被读出用于计算指纹, 交给后续过滤器时从内存重放; remainder 不为空时在已读部分之后继续读原始流
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+        private final InputStream remainder;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body, InputStream remainder) {
+            super(request);
+            this.body = body;
+            this.remainder = remainder;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream buffered = new ByteArrayInputStream(body);
+            InputStream input = remainder == null ? buffered : new SequenceInputStream(buffered, remainder);
+            return new ServletInputStream() {
+                private boolean finished;
+                
+                @Override
+                public boolean isFinished() {
+                    return finished || remainder == null && buffered.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                // 数据已在内存中(或可阻塞读取), 注册时立即通知可读, 由监听器读完后再通知结束
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException ex) {
+                        readListener.onError(ex);
+                    }
+                }
+                
+                @Override
+                public int read() throws IOException {
+                    int value = input.read();
+                    finished = value < 0;
+                    return value;
+                }
+                
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int count = input.read(buffer, offset, length);
+                    finished = count < 0;
+                    return count;
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+            try {
+                return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+            } catch (UnsupportedEncodingException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        
+        @Override
+        public int getContentLength() {
+            return remainder == null ? body.length : super.getContentLength();
+        }
+        
+        @Override
+        public long getContentLengthLong() {
+            return remainder == null ? body.length : super.getContentLengthLong();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ecommerce.idempotency;
+
+import com.ecommerce.cache.BoundedLocalCache;
+import com.ecommerce.config.IdempotencyConfig;
+import com.ecommerce.model.IdempotencyRecord;
+import com.ecommerce.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// 幂等键存储: 已完成的响应放本地缓存, 数据库为准; 同一节点上的并发重复请求合并到同一次执行
+@Slf4j
+@Service
+public class IdempotencyStore {
+    @Autowired
+    private IdempotencyRecordRepository repository;
+    
+    @Autowired
+    private IdempotencyConfig config;
+    
+    private BoundedLocalCache<String, StoredResponse> responses;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        responses = new BoundedLocalCache<>(config.getLocalCacheSize());
+    }
+    
+    public Claim begin(String scopeKey, String fingerprint) {
+        StoredResponse cached = responses.get(scopeKey);
+        if (cached != null) {
+            return Claim.replayOrMismatch(cached, fingerprint);
+        }
+        
+        InFlight mine = new InFlight(fingerprint);
+        InFlight current = inFlight.putIfAbsent(scopeKey, mine);
+        if (current != null) {
+            return current.fingerprint.equals(fingerprint) ? new Claim(Kind.WAIT, null, current.future) : Claim.of(Kind.MISMATCH);
+        }
+        
+        // 本节点的首个请求, 再通过主键约束与其他节点竞争
+        LocalDateTime now = LocalDateTime.now();
+        repository.deleteIfExpired(scopeKey, now);
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScopeKey(scopeKey);
+        record.setFingerprint(fingerprint);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plusSeconds(config.getLockSeconds()));
+        if (repository.insertIfAbsent(record)) {
+            return Claim.of(Kind.EXECUTE);
+        }
+        
+        StoredResponse stored = repository.findById(scopeKey)
+            .filter(existing -> existing.getResponseStatus() != null)
+            .map(existing -> new StoredResponse(existing.getFingerprint(), existing.getResponseStatus(),
+                existing.getContentType(), existing.getResponseBody()))
+            .orElse(null);
+        inFlight.remove(scopeKey, mine);
+        mine.future.complete(stored);
+        if (stored == null) {
+            // 其他节点正在执行
+            return Claim.of(Kind.CONFLICT);
+        }
+        responses.put(scopeKey, stored, Duration.ofHours(config.getTtlHours()));
+        return Claim.replayOrMismatch(stored, fingerprint);
+    }
+    
+    public void complete(String scopeKey, StoredResponse response) {
+        repository.complete(scopeKey, response.getStatus(), response.getContentType(), response.getBody(),
+            LocalDateTime.now().plusHours(config.getTtlHours()));
+        responses.put(scopeKey, response, Duration.ofHours(config.getTtlHours()));
+        release(scopeKey, response);
+    }
+    
+    // 执行失败 (5xx 或异常) 时放弃该键, 客户端可用同一个键重试
+    public void abandon(String scopeKey) {
+        repository.deleteInProgress(scopeKey);
+        release(scopeKey, null);
+    }
+    
+    @Scheduled(fixedRate = 3600000) // 每小时清理一次
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+    
+    private void release(String scopeKey, StoredResponse response) {
+        InFlight waiting = inFlight.remove(scopeKey);
+        if (waiting != null) {
+            waiting.future.complete(response);
+        }
+    }
+    
+    public enum Kind {
+        EXECUTE,  // 由当前请求执行并保存响应
+        REPLAY,   // 直接返回保存的响应
+        WAIT,     // 等待本节点上正在执行的同一请求
+        MISMATCH, // 同一个键对应了不同的请求内容
+        CONFLICT  // 其他节点正在执行同一请求
+    }
+    
+    @Getter
+    public static class Claim {
+        private final Kind kind;
+        private final StoredResponse response;
+        private final CompletableFuture<StoredResponse> pending;
+        
+        private Claim(Kind kind, StoredResponse response, CompletableFuture<StoredResponse> pending) {
+            this.kind = kind;
+            this.response = response;
+            this.pending = pending;
+        }
+        
+        private static Claim of(Kind kind) {
+            return new Claim(kind, null, null);
+        }
+        
+        private static Claim replayOrMismatch(StoredResponse stored, String fingerprint) {
+            return stored.getFingerprint().equals(fingerprint) ? new Claim(Kind.REPLAY, stored, null) : of(Kind.MISMATCH);
+        }
+    }
+    
+    private static class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> future = new CompletableFuture<>();
+        
+        private InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
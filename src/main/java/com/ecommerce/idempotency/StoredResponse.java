@@ -0,0 +1,11 @@
+package com.ecommerce.idempotency;
+
+import lombok.Value;
+
+@Value
+public class StoredResponse {
+    String fingerprint;
+    int status;
+    String contentType;
+    byte[] body;
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// 幂等键记录: responseStatus 为空表示首个请求仍在执行
+@Data
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "scope_key", length = 64)
+    private String scopeKey; // 用户 + 接口 + Idempotency-Key 的摘要
+    
+    @Column(name = "fingerprint", length = 64, nullable = false)
+    private String fingerprint; // 查询串 + 请求体的摘要
+    
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    
+    @Column(name = "content_type")
+    private String contentType;
+    
+    @Lob
+    @Column(name = "response_body")
+    private byte[] responseBody;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+
+// 内存账本的预占流水: 与订单在同一事务中写入, 增量回写 products.stock 时在同一事务中删除
+// 恢复时剩余的行 (订单未取消) 即为已提交但未回写的扣减, 与订单 id 的大小顺序无关
+@Data
+@Entity
+@Table(name = "inventory_reservations")
+@IdClass(InventoryReservation.Key.class)
+public class InventoryReservation {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Data
+    public static class Key implements Serializable {
+        private Long orderId;
+        private Long productId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// 下单请求的 outbox 记录: 接口只写入这一行, 由后台 worker 完成扣库存和建单
+@Data
+@Entity
+@Table(name = "order_outbox", indexes = {
+    @Index(name = "idx_order_outbox_status_id", columnList = "status, id"),
+    @Index(name = "idx_order_outbox_username_status", columnList = "username, status")
+})
+public class OrderPlacement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String username;
+    
+    @Column(nullable = false)
+    private String shippingAddress;
+    
+    @Column(nullable = false)
+    private String paymentMethod;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderPlacementStatus status;
+    
+    private Long orderId; // 完成后生成的订单
+    
+    private String failureReason;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @JsonIgnore
+    private LocalDateTime claimedAt; // worker 领取时间, 超过租约仍未完成视为 worker 已失联
+    
+    private LocalDateTime completedAt;
+}
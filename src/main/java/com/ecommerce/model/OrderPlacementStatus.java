@@ -0,0 +1,8 @@
+package com.ecommerce.model;
+
+public enum OrderPlacementStatus {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+// 订单统计的增量汇总行: bucket 为 "status:<状态>" 或 "month:<yyyy-MM>", 同一 bucket 按订单 id 拆成多行分散行锁
+@Data
+@Entity
+@Table(name = "order_stats")
+@IdClass(OrderStatsBucket.Key.class)
+public class OrderStatsBucket {
+    @Id
+    @Column(name = "bucket", length = 32)
+    private String bucket;
+    
+    @Id
+    @Column(name = "stripe")
+    private Integer stripe;
+    
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+    
+    @Column(name = "sales", nullable = false)
+    private BigDecimal sales = BigDecimal.ZERO;
+    
+    @Data
+    public static class Key implements Serializable {
+        private String bucket;
+        private Integer stripe;
+    }
+}
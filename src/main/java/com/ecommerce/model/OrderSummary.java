@@ -0,0 +1,77 @@
+package com.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// 订单历史读模型: 每个订单一行, 随订单写操作在同一事务中维护; 按 (user_id, order_date, order_id) 键集分页
+@Data
+@Entity
+@Table(name = "order_summary", indexes = {
+    @Index(name = "idx_order_summary_user_date", columnList = "user_id, order_date, order_id")
+})
+public class OrderSummary implements Persistable<Long> {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private OrderStatus status;
+    
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+    
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount; // 商品件数合计
+    
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl; // 第一个订单项商品的图片
+    
+    // 主键取订单 id, 新建时直接 INSERT, 不先 SELECT
+    @Transient
+    @JsonIgnore
+    private boolean persisted;
+    
+    public static OrderSummary of(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.setOrderId(order.getId());
+        summary.setUserId(order.getUser().getId());
+        summary.setOrderDate(order.getOrderDate());
+        summary.setStatus(order.getStatus());
+        summary.setTotalAmount(order.getTotalAmount());
+        summary.setItemCount(order.getOrderItems().stream().mapToInt(OrderItem::getQuantity).sum());
+        if (!order.getOrderItems().isEmpty()) {
+            summary.setThumbnailUrl(order.getOrderItems().get(0).getProduct().getImageUrl());
+        }
+        return summary;
+    }
+    
+    @Override
+    @JsonIgnore
+    public Long getId() {
+        return orderId;
+    }
+    
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+    
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
\ No newline at end of file
@@ -7,14 +7,17 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payments_status_payment_date", columnList = "status, paymentDate")
+})
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // 每个订单至多一条支付, 重试复用同一条 (见 PaymentService)
     @OneToOne
-    @JoinColumn(name = "order_id", nullable = false)
+    @JoinColumn(name = "order_id", nullable = false, unique = true)
     private Order order;
     
     @Column(nullable = false)
@@ -29,7 +32,11 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     private PaymentStatus status;
     
-    private String transactionId;
+    private String transactionId; // 网关幂等键, 重试沿用同一个
     
     private String failureReason;
+    
+    // 网关调用次数 (含重试); 列默认值让已有行按一次计
+    @Column(nullable = false, columnDefinition = "integer default 1")
+    private int attempts = 1;
 } 
\ No newline at end of file
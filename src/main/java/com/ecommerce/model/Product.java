@@ -1,14 +1,22 @@
 package com.ecommerce.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
+// 只更新修改过的列: 库存和评分聚合由原子 SQL 维护, 整行更新会用加载时的旧值覆盖它们
 @Data
 @Entity
-@Table(name = "products")
+@DynamicUpdate
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_price_id", columnList = "price, id"),
+    @Index(name = "idx_products_name_id", columnList = "name, id"),
+    @Index(name = "idx_products_category_price_id", columnList = "category, price, id")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,6 +39,7 @@ public class Product {
     
     private String imageUrl;
     
+    @JsonIgnore
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL)
     private List<Review> reviews = new ArrayList<>();
     
@@ -39,4 +48,11 @@ public class Product {
     
     @Column
     private Integer reviewCount;
+    
+    @JsonIgnore
+    @Column
+    private Long ratingSum = 0L;
+    
+    @Embedded
+    private RatingHistogram ratingHistogram = new RatingHistogram();
 } 
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+
+// 各星级的评价数量, 随评价增删改以增量方式维护
+@Data
+@Embeddable
+public class RatingHistogram {
+    @Column(name = "rating_1_count")
+    private Integer oneStar = 0;
+    
+    @Column(name = "rating_2_count")
+    private Integer twoStars = 0;
+    
+    @Column(name = "rating_3_count")
+    private Integer threeStars = 0;
+    
+    @Column(name = "rating_4_count")
+    private Integer fourStars = 0;
+    
+    @Column(name = "rating_5_count")
+    private Integer fiveStars = 0;
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// 集群定时任务的租约行: 持有者在 lockedUntil 之前独占执行, 过期后其他节点可接管
+@Data
+@Entity
+@Table(name = "scheduler_locks")
+public class SchedulerLock {
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+    
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+    
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+    
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
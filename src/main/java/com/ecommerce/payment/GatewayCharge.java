@@ -0,0 +1,12 @@
+package com.ecommerce.payment;
+
+import lombok.Value;
+import java.math.BigDecimal;
+
+@Value
+public class GatewayCharge {
+    String transactionId; // 同时作为网关侧的幂等键
+    Long orderId;
+    BigDecimal amount;
+    String paymentMethod;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.payment;
+
+import lombok.Value;
+
+@Value
+public class GatewayResult {
+    boolean approved;
+    String reference; // 网关流水号
+    String failureReason;
+    
+    public static GatewayResult approved(String reference) {
+        return new GatewayResult(true, reference, null);
+    }
+    
+    public static GatewayResult declined(String reference, String failureReason) {
+        return new GatewayResult(false, reference, failureReason);
+    }
+}
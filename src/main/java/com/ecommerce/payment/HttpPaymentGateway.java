@@ -0,0 +1,79 @@
+package com.ecommerce.payment;
+
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 通过 HTTP 调用外部网关: POST {url}/charges, 以交易号作为 Idempotency-Key
+// 200 返回 {"approved", "reference", "reason"}; 402 视为拒付; 其他状态和网络错误视为网关不可用
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.gateway.type", havingValue = "http")
+public class HttpPaymentGateway implements PaymentGateway {
+    @Autowired
+    private PaymentConfig paymentConfig;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private HttpClient httpClient;
+    
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(paymentConfig.getGateway().getConnectTimeoutMs()))
+            .build();
+    }
+    
+    @Override
+    public GatewayResult charge(GatewayCharge charge) {
+        PaymentConfig.Gateway config = paymentConfig.getGateway();
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("transactionId", charge.getTransactionId());
+            body.put("orderId", charge.getOrderId());
+            body.put("amount", charge.getAmount());
+            body.put("paymentMethod", charge.getPaymentMethod());
+            
+            HttpRequest request = HttpRequest.newBuilder(URI.create(config.getUrl() + "/charges"))
+                .timeout(Duration.ofMillis(config.getReadTimeoutMs()))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", charge.getTransactionId())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            
+            if (response.statusCode() != 200 && response.statusCode() != 402) {
+                log.warn("Payment gateway returned status {} for transaction {}", response.statusCode(), charge.getTransactionId());
+                throw new ServiceUnavailableException("Payment gateway unavailable", 1);
+            }
+            JsonNode result = objectMapper.readTree(response.body());
+            String reference = result.path("reference").asText(null);
+            if (response.statusCode() == 200 && result.path("approved").asBoolean(false)) {
+                return GatewayResult.approved(reference);
+            }
+            return GatewayResult.declined(reference, result.path("reason").asText("Payment declined by bank"));
+        } catch (IOException ex) {
+            log.warn("Payment gateway call failed for transaction {}: {}", charge.getTransactionId(), ex.getMessage());
+            throw new ServiceUnavailableException("Payment gateway unavailable", 1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Payment gateway unavailable", 1);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.payment;
+
+// 支付网关 SPI: 由 payment.gateway.type 选择实现 (simulated 或 http)
+// 拒付返回 declined 结果; 网关不可用 (超时、5xx、网络错误) 抛出 ServiceUnavailableException
+public interface PaymentGateway {
+    GatewayResult charge(GatewayCharge charge);
+}
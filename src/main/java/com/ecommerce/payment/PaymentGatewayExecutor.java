@@ -0,0 +1,178 @@
+package com.ecommerce.payment;
+
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// 在有界线程池上调用支付网关: 每次调用有截止时间, 可选对冲请求 (超过 hedgeAfterMs 未返回时再发一次, 取先成功者)
+// 对冲依赖网关按交易号幂等, 同一交易重复提交不会重复扣款
+@Slf4j
+@Component
+public class PaymentGatewayExecutor {
+    private static final int LATENCY_SAMPLES = 1024;
+    
+    @Autowired
+    private PaymentGateway gateway;
+    
+    @Autowired
+    private PaymentConfig paymentConfig;
+    
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService hedgeTimer;
+    
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    // 最近的调用耗时 (环形缓冲), 用于估算分位数
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private final AtomicLong latencyIndex = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        PaymentConfig.Gateway config = paymentConfig.getGateway();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(config.getMaxConcurrency(), config.getMaxConcurrency(),
+            60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "payment-gateway-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        hedgeTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-gateway-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        hedgeTimer.shutdownNow();
+        executor.shutdown();
+    }
+    
+    public GatewayResult charge(GatewayCharge charge) {
+        PaymentConfig.Gateway config = paymentConfig.getGateway();
+        long start = System.nanoTime();
+        calls.increment();
+        
+        boolean hedging = config.getHedgeAfterMs() > 0;
+        CompletableFuture<GatewayResult> result = new CompletableFuture<>();
+        // 计划中的尝试次数, 每次尝试失败 (或对冲未能发出) 减一, 全部失败才算失败
+        AtomicInteger outstanding = new AtomicInteger(hedging ? 2 : 1);
+        AtomicReference<RuntimeException> lastError = new AtomicReference<>();
+        List<Future<?>> attempts = new CopyOnWriteArrayList<>();
+        
+        try {
+            attempts.add(executor.submit(() -> attempt(charge, 0, result, outstanding, lastError)));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Payment gateway is busy, please retry later", 1);
+        }
+        ScheduledFuture<?> hedge = !hedging ? null : hedgeTimer.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            hedged.increment();
+            try {
+                attempts.add(executor.submit(() -> attempt(charge, 1, result, outstanding, lastError)));
+            } catch (RejectedExecutionException ex) {
+                fail(new ServiceUnavailableException("Payment gateway is busy, please retry later", 1), result, outstanding, lastError);
+            }
+        }, config.getHedgeAfterMs(), TimeUnit.MILLISECONDS);
+        
+        try {
+            return result.get(config.getDeadlineMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            timedOut.increment();
+            log.warn("Payment gateway call for transaction {} exceeded {} ms", charge.getTransactionId(), config.getDeadlineMs());
+            throw new ServiceUnavailableException("Payment gateway timed out", 1);
+        } catch (ExecutionException ex) {
+            failed.increment();
+            throw ex.getCause() instanceof RuntimeException runtime
+                ? runtime : new ServiceUnavailableException("Payment gateway unavailable", 1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Payment gateway call interrupted", 1);
+        } finally {
+            if (hedge != null) {
+                hedge.cancel(false);
+            }
+            attempts.forEach(attempt -> attempt.cancel(true));
+            latencies[(int) (latencyIndex.getAndIncrement() % LATENCY_SAMPLES)] = System.nanoTime() - start;
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        long samples = Math.min(latencyIndex.get(), LATENCY_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, (int) samples);
+        Arrays.sort(sorted);
+        
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("calls", calls.sum());
+        statistics.put("failed", failed.sum());
+        statistics.put("timedOut", timedOut.sum());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("hedged", hedged.sum());
+        statistics.put("hedgeWins", hedgeWins.sum());
+        statistics.put("active", executor.getActiveCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("p50Millis", percentile(sorted, 0.50));
+        statistics.put("p99Millis", percentile(sorted, 0.99));
+        statistics.put("maxMillis", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+        return statistics;
+    }
+    
+    private void attempt(GatewayCharge charge, int index, CompletableFuture<GatewayResult> result,
+                         AtomicInteger outstanding, AtomicReference<RuntimeException> lastError) {
+        try {
+            GatewayResult gatewayResult = gateway.charge(charge);
+            // 先统计再完成, 调用方返回时计数已可见
+            synchronized (result) {
+                if (!result.isDone()) {
+                    if (index > 0) {
+                        hedgeWins.increment();
+                    }
+                    result.complete(gatewayResult);
+                }
+            }
+        } catch (RuntimeException ex) {
+            fail(ex, result, outstanding, lastError);
+        }
+    }
+    
+    private void fail(RuntimeException error, CompletableFuture<GatewayResult> result,
+                      AtomicInteger outstanding, AtomicReference<RuntimeException> lastError) {
+        lastError.set(error);
+        if (outstanding.decrementAndGet() == 0) {
+            result.completeExceptionally(lastError.get());
+        }
+    }
+    
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
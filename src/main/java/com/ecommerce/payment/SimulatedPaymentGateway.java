@@ -0,0 +1,75 @@
+package com.ecommerce.payment;
+
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// 模拟网关: 批准/拒付只由交易号和种子决定, 并发和多节点下比例都准确;
+// 延迟和不可用每次调用重新抽样, 同一交易重试时不会总是命中同一个长尾或同一个 503
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payment.gateway.type", havingValue = "simulated", matchIfMissing = true)
+public class SimulatedPaymentGateway implements PaymentGateway {
+    @Autowired
+    private PaymentConfig paymentConfig;
+    
+    // 调用序号, 只参与延迟和不可用的抽样
+    private final AtomicLong calls = new AtomicLong();
+    
+    @Override
+    public GatewayResult charge(GatewayCharge charge) {
+        PaymentConfig.Gateway config = paymentConfig.getGateway();
+        long hash = hash(charge.getTransactionId(), config.getSeed());
+        long call = mix(hash ^ mix(calls.incrementAndGet()));
+        
+        simulateLatency(config, uniform(call));
+        if (uniform(mix(call + 1)) < config.getErrorRate()) {
+            throw new ServiceUnavailableException("Payment gateway unavailable", 1);
+        }
+        String reference = "SIM-" + Long.toHexString(hash);
+        if (uniform(hash) < config.getDeclineRate()) {
+            log.debug("Simulated decline for transaction {}", charge.getTransactionId());
+            return GatewayResult.declined(reference, "Payment declined by bank");
+        }
+        return GatewayResult.approved(reference);
+    }
+    
+    // 基础延迟 + 指数分布的长尾
+    private void simulateLatency(PaymentConfig.Gateway config, double u) {
+        long latencyMs = config.getLatencyMs();
+        if (config.getLatencyJitterMs() > 0) {
+            latencyMs += (long) (-Math.log(1 - u) * config.getLatencyJitterMs());
+        }
+        if (latencyMs > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+        }
+    }
+    
+    static long hash(String transactionId, long seed) {
+        long hash = seed;
+        for (byte b : transactionId.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+    
+    // SplitMix64 终结函数
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    // 映射到 [0, 1)
+    static double uniform(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+}
@@ -2,13 +2,24 @@ package com.ecommerce.repository;
 
 import com.ecommerce.model.CartItem;
 import com.ecommerce.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+    @EntityGraph(attributePaths = {"user", "product"})
     List<CartItem> findByUser(User user);
+    
     Optional<CartItem> findByUserAndProduct_Id(User user, Long productId);
+    
+    // 一条语句清空购物车, 不逐条加载再删除
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user = :user")
+    int deleteByUser(@Param("user") User user);
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// 写操作各自独立提交: 幂等记录必须先于业务请求对其他节点可见
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.contentType = :contentType, " +
+           "r.responseBody = :body, r.expiresAt = :expiresAt WHERE r.scopeKey = :scopeKey")
+    int complete(@Param("scopeKey") String scopeKey, @Param("status") Integer status,
+                 @Param("contentType") String contentType, @Param("body") byte[] body,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // 仅删除仍在执行中的记录, 不会误删已完成的响应
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopeKey = :scopeKey AND r.responseStatus IS NULL")
+    int deleteInProgress(@Param("scopeKey") String scopeKey);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scopeKey = :scopeKey AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("scopeKey") String scopeKey, @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
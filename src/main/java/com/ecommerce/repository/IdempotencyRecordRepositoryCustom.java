@@ -0,0 +1,8 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.IdempotencyRecord;
+
+public interface IdempotencyRecordRepositoryCustom {
+    // 以主键唯一约束抢占幂等键, 已存在时返回 false
+    boolean insertIfAbsent(IdempotencyRecord record);
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.IdempotencyRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+
+public class IdempotencyRecordRepositoryImpl implements IdempotencyRecordRepositoryCustom {
+    private static final String INSERT_SQL =
+        "INSERT INTO idempotency_keys (scope_key, fingerprint, created_at, expires_at) VALUES (?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public boolean insertIfAbsent(IdempotencyRecord record) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, record.getScopeKey(), record.getFingerprint(),
+                Timestamp.valueOf(record.getCreatedAt()), Timestamp.valueOf(record.getExpiresAt()));
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.InventoryReservation;
+import com.ecommerce.model.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, InventoryReservation.Key> {
+    // 在下单事务中写入; 主键已知, 直接插入省去 save 合并前的查询
+    @Modifying
+    @Query(value = "INSERT INTO inventory_reservations (order_id, product_id, quantity) VALUES (:orderId, :productId, :quantity)",
+           nativeQuery = true)
+    int insert(@Param("orderId") Long orderId, @Param("productId") Long productId, @Param("quantity") Integer quantity);
+    
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM InventoryReservation r, Order o " +
+           "WHERE o.id = r.orderId AND r.productId = :productId AND o.status <> :excludedStatus")
+    long sumQuantity(@Param("productId") Long productId, @Param("excludedStatus") OrderStatus excludedStatus);
+    
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.productId = :productId AND r.orderId IN :orderIds")
+    int deleteByProductIdAndOrderIds(@Param("productId") Long productId, @Param("orderIds") Collection<Long> orderIds);
+    
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.productId = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.analytics.OrderLine;
+import com.ecommerce.dto.OrderItemSummary;
+import com.ecommerce.model.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+    @Query("SELECT new com.ecommerce.dto.OrderItemSummary(p.name, i.quantity, i.price) " +
+           "FROM OrderItem i JOIN i.product p WHERE i.order.id = :orderId ORDER BY i.id")
+    List<OrderItemSummary> findSummariesByOrderId(@Param("orderId") Long orderId);
+    
+    // 分析库全量加载: 按订单顺序流式读取投影, 不加载实体
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new com.ecommerce.analytics.OrderLine(o.id, o.user.id, o.orderDate, o.status, p.id, p.category, p.brand, i.quantity, i.price) " +
+           "FROM OrderItem i JOIN i.order o JOIN i.product p ORDER BY o.id, i.id")
+    Stream<OrderLine> streamOrderLines();
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.OrderPlacement;
+import com.ecommerce.model.OrderPlacementStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderPlacementRepository extends JpaRepository<OrderPlacement, Long> {
+    Optional<OrderPlacement> findFirstByUsernameAndStatusIn(String username, Collection<OrderPlacementStatus> statuses);
+    
+    // 锁超时 -2 即 SKIP LOCKED: 多个节点并发领取时跳过已被他人锁住的行 (方言不支持时退化为普通 FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM OrderPlacement p WHERE p.status = :status ORDER BY p.id")
+    List<OrderPlacement> findForClaim(@Param("status") OrderPlacementStatus status, Pageable pageable);
+    
+    // 以领取次数作为租约凭证, 租约已过期并被重新领取时返回 0
+    @Modifying
+    @Query("UPDATE OrderPlacement p SET p.status = com.ecommerce.model.OrderPlacementStatus.COMPLETED, " +
+           "p.orderId = :orderId, p.completedAt = :now " +
+           "WHERE p.id = :id AND p.status = com.ecommerce.model.OrderPlacementStatus.PROCESSING AND p.attempts = :attempt")
+    int markCompleted(@Param("id") Long id, @Param("attempt") Integer attempt,
+                      @Param("orderId") Long orderId, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE OrderPlacement p SET p.status = :status, p.failureReason = :reason, p.completedAt = :completedAt " +
+           "WHERE p.id = :id AND p.status = com.ecommerce.model.OrderPlacementStatus.PROCESSING AND p.attempts = :attempt")
+    int release(@Param("id") Long id, @Param("attempt") Integer attempt,
+                @Param("status") OrderPlacementStatus status, @Param("reason") String reason,
+                @Param("completedAt") LocalDateTime completedAt);
+    
+    @Modifying
+    @Query("UPDATE OrderPlacement p SET p.status = com.ecommerce.model.OrderPlacementStatus.PENDING " +
+           "WHERE p.status = com.ecommerce.model.OrderPlacementStatus.PROCESSING AND p.claimedAt < :threshold")
+    int requeueExpired(@Param("threshold") LocalDateTime threshold);
+    
+    @Modifying
+    @Query("DELETE FROM OrderPlacement p WHERE p.status IN :statuses AND p.completedAt < :threshold")
+    int deleteFinishedBefore(@Param("statuses") Collection<OrderPlacementStatus> statuses,
+                             @Param("threshold") LocalDateTime threshold);
+}
@@ -1,13 +1,67 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.OrderExportRow;
 import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
 import com.ecommerce.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUser(User user);
     List<Order> findByUserOrderByOrderDateDesc(User user);
+    
+    // 一次 join 取回订单、订单项及商品, 避免逐项懒加载
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    Optional<Order> findWithItemsById(Long id);
+    
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    List<Order> findWithItemsByUserOrderByOrderDateDesc(User user);
+    
+    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithItems();
+    
+    // 超时取消时锁住订单行, 与并发的状态变更串行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findForUpdateById(@Param("id") Long id);
+    
+    // 启动时重建超时登记, 只取 id 和下单时间
+    @Query("SELECT o.id, o.orderDate FROM Order o WHERE o.status = :status")
+    List<Object[]> findIdAndOrderDateByStatus(@Param("status") OrderStatus status);
+    
+    // 兜底清理: 超时未支付且没有进行中支付的订单, 按 id 续页
+    @Query("SELECT o.id FROM Order o WHERE o.status = com.ecommerce.model.OrderStatus.PENDING " +
+           "AND o.orderDate < :date AND o.id > :afterId AND NOT EXISTS (SELECT p.id FROM Payment p " +
+           "WHERE p.order = o AND p.status = com.ecommerce.model.PaymentStatus.PENDING) ORDER BY o.id")
+    List<Long> findUnpaidIdsBefore(@Param("date") LocalDateTime date, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT o FROM Order o ORDER BY o.id")
+    Stream<Order> streamAll();
+    
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new com.ecommerce.dto.OrderExportRow(o.id, u.id, u.username, o.orderDate, o.status, o.totalAmount, " +
+           "SIZE(o.orderItems), o.shippingAddress, o.paymentMethod) FROM Order o JOIN o.user u ORDER BY o.id")
+    Stream<OrderExportRow> streamExportRows();
 } 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.OrderStatsBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface OrderStatsBucketRepository extends JpaRepository<OrderStatsBucket, OrderStatsBucket.Key> {
+    // 在调用方事务中原子累加, 行不存在时返回 0 (原生 SQL: JPQL 中金额参数的类型推断会生成无效的 cast)
+    @Modifying
+    @Query(value = "UPDATE order_stats SET order_count = order_count + :count, sales = sales + :sales " +
+                   "WHERE bucket = :bucket AND stripe = :stripe", nativeQuery = true)
+    int increment(@Param("bucket") String bucket, @Param("stripe") Integer stripe,
+                  @Param("count") long count, @Param("sales") BigDecimal sales);
+    
+    // 首次用到某个 bucket 时插入零值行, 并发插入时违反主键约束
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO order_stats (bucket, stripe, order_count, sales) VALUES (:bucket, :stripe, 0, 0)",
+           nativeQuery = true)
+    int insertEmpty(@Param("bucket") String bucket, @Param("stripe") Integer stripe);
+    
+    // 行数与 bucket 数 (状态数 + 月份数) 成正比, 与订单数无关
+    @Query("SELECT b.bucket, SUM(b.orderCount), SUM(b.sales) FROM OrderStatsBucket b GROUP BY b.bucket")
+    List<Object[]> sumByBucket();
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OrderStatsBucket")
+    int deleteAllBuckets();
+}
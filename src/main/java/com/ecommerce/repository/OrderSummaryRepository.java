@@ -0,0 +1,46 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+    // 键集分页: 按用户名子查询定位用户, 一条语句沿 (user_id, order_date, order_id) 索引范围扫描
+    @Query("SELECT s FROM OrderSummary s " +
+           "WHERE s.userId = (SELECT u.id FROM User u WHERE u.username = :username) " +
+           "AND (s.orderDate < :orderDate OR (s.orderDate = :orderDate AND s.orderId < :orderId)) " +
+           "ORDER BY s.orderDate DESC, s.orderId DESC")
+    List<OrderSummary> findHistoryAfter(@Param("username") String username, @Param("orderDate") LocalDateTime orderDate,
+                                        @Param("orderId") Long orderId, Pageable pageable);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status WHERE s.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId, @Param("status") OrderStatus status);
+    
+    // 从订单表整体重建, 用于上线前已有的订单或修复数据
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO order_summary (order_id, user_id, order_date, status, total_amount, item_count, thumbnail_url) " +
+                   "SELECT o.id, o.user_id, o.order_date, o.status, o.total_amount, " +
+                   "COALESCE((SELECT SUM(i.quantity) FROM order_items i WHERE i.order_id = o.id), 0), " +
+                   "(SELECT p.image_url FROM order_items i JOIN products p ON p.id = i.product_id " +
+                   "WHERE i.order_id = o.id ORDER BY i.id LIMIT 1) " +
+                   "FROM orders o", nativeQuery = true)
+    int insertAllFromOrders();
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OrderSummary")
+    int deleteAllSummaries();
+}
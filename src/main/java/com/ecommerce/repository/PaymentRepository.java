@@ -2,15 +2,34 @@ package com.ecommerce.repository;
 
 import com.ecommerce.model.Payment;
 import com.ecommerce.model.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+    // order_id 唯一约束保证至多一条
     Optional<Payment> findByOrderId(Long orderId);
-    long countByOrderId(Long orderId);
-    List<Payment> findByStatusAndPaymentDateBefore(PaymentStatus status, LocalDateTime date);
+    
+    // 超时清理按块进行: 先按 (status, paymentDate) 索引取一块 id, 再批量更新
+    @Query("SELECT p.id FROM Payment p WHERE p.status = :status AND p.paymentDate < :date ORDER BY p.id")
+    List<Long> findIdsByStatusAndPaymentDateBefore(@Param("status") PaymentStatus status,
+                                                   @Param("date") LocalDateTime date, Pageable pageable);
+    
+    @Query("SELECT p.id, p.paymentDate FROM Payment p WHERE p.status = :status")
+    List<Object[]> findIdAndPaymentDateByStatus(@Param("status") PaymentStatus status);
+    
+    // 仍为 PENDING 才更新, 与同时写回结果的支付不冲突
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = com.ecommerce.model.PaymentStatus.FAILED, p.failureReason = :reason " +
+           "WHERE p.id IN :ids AND p.status = com.ecommerce.model.PaymentStatus.PENDING")
+    int failPending(@Param("ids") List<Long> ids, @Param("reason") String reason);
 } 
\ No newline at end of file
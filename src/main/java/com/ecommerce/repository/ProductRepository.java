@@ -1,13 +1,19 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.model.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     List<Product> findByCategory(String category);
     List<Product> findByBrand(String brand);
     List<Product> findByPriceBetween(BigDecimal min, BigDecimal max);
@@ -24,4 +30,52 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategoryOrderByPriceDesc(String category);
     List<Product> findByBrandOrderByPriceAsc(String brand);
     List<Product> findByBrandOrderByPriceDesc(String brand);
+    
+    // 全量导出用游标流, 调用方需在只读事务内消费并逐条 detach
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAll();
+    
+    // 原子库存回补, 不经过实体读改写
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+    
+    // 评分聚合的原子增量更新, rating 为 0 表示没有新增或移除的评分;
+    // 平均分放在第一个赋值, 在按顺序求值的数据库(MySQL)上也基于更新前的值计算
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET " +
+           "p.averageRating = CASE WHEN COALESCE(p.reviewCount, 0) + :countDelta > 0 " +
+           "THEN (COALESCE(p.ratingSum, 0) + :sumDelta) * 1.0 / (COALESCE(p.reviewCount, 0) + :countDelta) ELSE 0.0 END, " +
+           "p.ratingSum = COALESCE(p.ratingSum, 0) + :sumDelta, " +
+           "p.reviewCount = COALESCE(p.reviewCount, 0) + :countDelta, " +
+           "p.ratingHistogram.oneStar = COALESCE(p.ratingHistogram.oneStar, 0) " +
+           "+ CASE WHEN :added = 1 THEN 1 ELSE 0 END - CASE WHEN :removed = 1 THEN 1 ELSE 0 END, " +
+           "p.ratingHistogram.twoStars = COALESCE(p.ratingHistogram.twoStars, 0) " +
+           "+ CASE WHEN :added = 2 THEN 1 ELSE 0 END - CASE WHEN :removed = 2 THEN 1 ELSE 0 END, " +
+           "p.ratingHistogram.threeStars = COALESCE(p.ratingHistogram.threeStars, 0) " +
+           "+ CASE WHEN :added = 3 THEN 1 ELSE 0 END - CASE WHEN :removed = 3 THEN 1 ELSE 0 END, " +
+           "p.ratingHistogram.fourStars = COALESCE(p.ratingHistogram.fourStars, 0) " +
+           "+ CASE WHEN :added = 4 THEN 1 ELSE 0 END - CASE WHEN :removed = 4 THEN 1 ELSE 0 END, " +
+           "p.ratingHistogram.fiveStars = COALESCE(p.ratingHistogram.fiveStars, 0) " +
+           "+ CASE WHEN :added = 5 THEN 1 ELSE 0 END - CASE WHEN :removed = 5 THEN 1 ELSE 0 END " +
+           "WHERE p.id = :id")
+    int applyRatingChange(@Param("id") Long id, @Param("sumDelta") long sumDelta, @Param("countDelta") int countDelta,
+                          @Param("added") int addedRating, @Param("removed") int removedRating);
+    
+    // 按评价表全量重算评分聚合, 仅用于上线增量维护前的数据回填
+    @Modifying
+    @Query("UPDATE Product p SET " +
+           "p.averageRating = COALESCE((SELECT AVG(r.rating * 1.0) FROM Review r WHERE r.product = p), 0.0), " +
+           "p.ratingSum = (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.product = p), " +
+           "p.reviewCount = (SELECT COUNT(r) FROM Review r WHERE r.product = p), " +
+           "p.ratingHistogram.oneStar = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 1), " +
+           "p.ratingHistogram.twoStars = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 2), " +
+           "p.ratingHistogram.threeStars = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 3), " +
+           "p.ratingHistogram.fourStars = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 4), " +
+           "p.ratingHistogram.fiveStars = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 5)")
+    int rebuildRatingAggregates();
 } 
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductImportRequest;
+import com.ecommerce.model.Product;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface ProductRepositoryCustom {
+    // 单个 JDBC batch 条件扣减库存, 返回值按 map 迭代顺序对应: 1 成功, 0 库存不足;
+    // 驱动不返回 batch 影响行数 (SUCCESS_NO_INFO) 时退化为逐条执行, 返回值含义不变
+    int[] decrementStock(Map<Long, Integer> quantitiesByProductId);
+    
+    // 单个 JDBC batch 按增量调整库存 (正数回补, 负数扣减), 不做库存校验
+    int[] adjustStock(Map<Long, Long> deltasByProductId);
+    
+    // 批量导入: 单个 JDBC batch 插入新商品, 评分聚合取初始值
+    int[] insertAll(List<ProductImportRequest> products);
+    
+    // 批量导入: 单个 JDBC batch 按 id 覆盖可编辑字段, 为 null 的字段保留原值; 返回值与参数顺序对应, 0 表示商品不存在
+    int[] updateAll(List<ProductImportRequest> products);
+    
+    // 键集分页: 取排序键 (sortField, id) 严格位于 (lastValue, lastId) 之后的 limit 条, lastId 为 null 时从头开始
+    List<Product> findPageAfter(String sortField, boolean ascending, String category,
+                                Comparable<?> lastValue, Long lastId, int limit);
+    
+    // 按 ids 顺序返回商品, 已不存在的 id 跳过
+    List<Product> findAllByIdInOrder(List<Long> ids);
+    
+    // 内存索引全量重建用: 在只读事务内按 id 顺序游标遍历全部商品, 每条回调后即 detach
+    @Transactional(readOnly = true)
+    void forEachProduct(Consumer<Product> action);
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductImportRequest;
+import com.ecommerce.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    private static final String DECREMENT_STOCK_SQL =
+        "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String BATCH_COUNT_PROBE_SQL =
+        "UPDATE products SET stock = stock WHERE id = ?";
+    private static final String ADJUST_STOCK_SQL =
+        "UPDATE products SET stock = stock + ? WHERE id = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO products (name, description, price, stock, category, brand, rating_sum, " +
+        "rating_1_count, rating_2_count, rating_3_count, rating_4_count, rating_5_count) " +
+        "VALUES (?, ?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0)";
+    // 省略的可选字段 (null) 保留原值; 库存为 null 表示由内存账本设定, 不写库存列
+    private static final String UPDATE_SQL =
+        "UPDATE products SET name = ?, description = COALESCE(?, description), price = ?, stock = COALESCE(?, stock), " +
+        "category = COALESCE(?, category), brand = COALESCE(?, brand) WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // 驱动能否在 batch 中返回逐条影响行数, 首次扣减时探测
+    private volatile Boolean batchCountsReported;
+
+    @Override
+    public int[] decrementStock(Map<Long, Integer> quantitiesByProductId) {
+        List<Object[]> batchArgs = new ArrayList<>(quantitiesByProductId.size());
+        quantitiesByProductId.forEach((productId, quantity) ->
+            batchArgs.add(new Object[]{quantity, productId, quantity}));
+        if (!batchCountsReported()) {
+            // 条件扣减必须知道每条是否命中, 驱动只返回 SUCCESS_NO_INFO 时逐条执行
+            return batchArgs.stream().mapToInt(args -> jdbcTemplate.update(DECREMENT_STOCK_SQL, args)).toArray();
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batchArgs);
+        for (int count : updated) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                throw new IncorrectUpdateSemanticsDataAccessException(
+                    "Driver did not report row counts for conditional stock decrement");
+            }
+        }
+        return updated;
+    }
+    
+    // 对不存在的 id 执行两条无副作用的更新: 驱动返回 0 说明 batch 会报告影响行数, 返回 SUCCESS_NO_INFO 则不会
+    private boolean batchCountsReported() {
+        Boolean reported = batchCountsReported;
+        if (reported == null) {
+            int[] probe = jdbcTemplate.batchUpdate(BATCH_COUNT_PROBE_SQL, List.of(new Object[]{-1L}, new Object[]{-2L}));
+            reported = Arrays.stream(probe).noneMatch(count -> count == Statement.SUCCESS_NO_INFO);
+            batchCountsReported = reported;
+        }
+        return reported;
+    }
+    
+    @Override
+    public int[] adjustStock(Map<Long, Long> deltasByProductId) {
+        List<Object[]> batchArgs = new ArrayList<>(deltasByProductId.size());
+        deltasByProductId.forEach((productId, delta) ->
+            batchArgs.add(new Object[]{delta, productId}));
+        return jdbcTemplate.batchUpdate(ADJUST_STOCK_SQL, batchArgs);
+    }
+    
+    @Override
+    public int[] insertAll(List<ProductImportRequest> products) {
+        return jdbcTemplate.batchUpdate(INSERT_SQL, new ProductBatchSetter(products, false));
+    }
+    
+    @Override
+    public int[] updateAll(List<ProductImportRequest> products) {
+        return jdbcTemplate.batchUpdate(UPDATE_SQL, new ProductBatchSetter(products, true));
+    }
+    
+    @Override
+    public List<Product> findPageAfter(String sortField, boolean ascending, String category,
+                                       Comparable<?> lastValue, Long lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+        Path<Long> idPath = root.get("id");
+        
+        List<Predicate> predicates = new ArrayList<>();
+        if (category != null) {
+            predicates.add(cb.equal(root.get("category"), category));
+        }
+        if (lastId != null) {
+            predicates.add(after(cb, root.get(sortField), lastValue, idPath, lastId, ascending));
+        }
+        
+        query.select(root)
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(ascending ? cb.asc(root.get(sortField)) : cb.desc(root.get(sortField)),
+                     ascending ? cb.asc(idPath) : cb.desc(idPath));
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+    
+    @Override
+    public List<Product> findAllByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> products = entityManager
+            .createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+            .setParameter("ids", ids)
+            .getResultList().stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+    
+    @Override
+    public void forEachProduct(Consumer<Product> action) {
+        try (Stream<Product> products = entityManager
+                .createQuery("SELECT p FROM Product p ORDER BY p.id", Product.class)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, 500)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            products.forEach(product -> {
+                action.accept(product);
+                entityManager.detach(product);
+            });
+        }
+    }
+    
+    // (sortField, id) > (lastValue, lastId), 降序时取 <
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate after(CriteriaBuilder cb, Path sortPath, Comparable lastValue,
+                            Path<Long> idPath, Long lastId, boolean ascending) {
+        Predicate beyondValue = ascending ? cb.greaterThan(sortPath, lastValue) : cb.lessThan(sortPath, lastValue);
+        Predicate beyondId = ascending ? cb.greaterThan(idPath, lastId) : cb.lessThan(idPath, lastId);
+        return cb.or(beyondValue, cb.and(cb.equal(sortPath, lastValue), beyondId));
+    }
+    
+    private static class ProductBatchSetter implements BatchPreparedStatementSetter {
+        private final List<ProductImportRequest> products;
+        private final boolean withId;
+        
+        ProductBatchSetter(List<ProductImportRequest> products, boolean withId) {
+            this.products = products;
+            this.withId = withId;
+        }
+        
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            ProductImportRequest product = products.get(i);
+            ps.setString(1, product.getName());
+            ps.setString(2, product.getDescription());
+            ps.setBigDecimal(3, product.getPrice());
+            ps.setObject(4, product.getStock(), Types.INTEGER);
+            ps.setString(5, product.getCategory());
+            ps.setString(6, product.getBrand());
+            if (withId) {
+                ps.setLong(7, product.getId());
+            }
+        }
+        
+        @Override
+        public int getBatchSize() {
+            return products.size();
+        }
+    }
+}
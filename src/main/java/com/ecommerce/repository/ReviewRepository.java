@@ -1,10 +1,15 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.ReviewResponse;
 import com.ecommerce.model.Review;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +19,26 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByUser(User user);
     Optional<Review> findByUserAndProduct(User user, Product product);
     boolean existsByUserAndProduct(User user, Product product);
+    
+    // 以下为键集分页, 调用方传入上一页最后一条的排序值和 id, 首页传入哨兵值
+    @Query("SELECT new com.ecommerce.dto.ReviewResponse(r.id, r.rating, r.comment, r.createdAt, u.username) " +
+           "FROM Review r JOIN r.user u WHERE r.product.id = :productId " +
+           "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewResponse> findNewestAfter(@Param("productId") Long productId, @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT new com.ecommerce.dto.ReviewResponse(r.id, r.rating, r.comment, r.createdAt, u.username) " +
+           "FROM Review r JOIN r.user u WHERE r.product.id = :productId " +
+           "AND (r.rating < :rating OR (r.rating = :rating AND r.id < :id)) " +
+           "ORDER BY r.rating DESC, r.id DESC")
+    List<ReviewResponse> findHighestAfter(@Param("productId") Long productId, @Param("rating") Integer rating,
+                                          @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT new com.ecommerce.dto.ReviewResponse(r.id, r.rating, r.comment, r.createdAt, u.username) " +
+           "FROM Review r JOIN r.user u WHERE r.product.id = :productId " +
+           "AND (r.rating > :rating OR (r.rating = :rating AND r.id > :id)) " +
+           "ORDER BY r.rating ASC, r.id ASC")
+    List<ReviewResponse> findLowestAfter(@Param("productId") Long productId, @Param("rating") Integer rating,
+                                         @Param("id") Long id, Pageable pageable);
 } 
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+    // 租约已过期或本节点已持有时续租
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedBy = :node, l.lockedAt = :now, l.lockedUntil = :until " +
+           "WHERE l.name = :name AND (l.lockedUntil <= :now OR l.lockedBy = :node)")
+    int acquire(@Param("name") String name, @Param("node") String node,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+    
+    // 首次使用时创建租约行, 其他节点并发创建时违反主键约束
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_locks (name, locked_by, locked_at, locked_until) VALUES (:name, :node, :now, :until)",
+           nativeQuery = true)
+    int insert(@Param("name") String name, @Param("node") String node,
+               @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :node")
+    int release(@Param("name") String name, @Param("node") String node, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,153 @@
+package com.ecommerce.security;
+
+import com.ecommerce.config.PasswordHashingConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// 在专用的有界线程池中执行 BCrypt, 登录高峰只占用固定数量的 CPU, 队列满时返回 503 而不是拖慢所有请求
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+    private static final String SAMPLE_PASSWORD = "auto-tune-sample-password";
+    
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMs;
+    private final long retryAfterSeconds;
+    private final int strength;
+    
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    
+    public BoundedPasswordEncoder(PasswordHashingConfig config) {
+        this(chooseStrength(config), config);
+    }
+    
+    private BoundedPasswordEncoder(int strength, PasswordHashingConfig config) {
+        this(new BCryptPasswordEncoder(strength), strength, config);
+    }
+    
+    BoundedPasswordEncoder(PasswordEncoder delegate, int strength, PasswordHashingConfig config) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.waitTimeoutMs = config.getWaitTimeoutMs();
+        this.retryAfterSeconds = config.getRetryAfterSeconds();
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(),
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    public Map<String, Object> getStatistics() {
+        long count = completed.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("strength", strength);
+        statistics.put("completed", count);
+        statistics.put("averageMillis", count == 0 ? 0.0 : totalNanos.sum() / 1e6 / count);
+        statistics.put("maxMillis", maxNanos.get() / 1e6);
+        statistics.put("active", executor.getActiveCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("timedOut", timedOut.sum());
+        return statistics;
+    }
+    
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+    
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    completed.increment();
+                    totalNanos.add(elapsed);
+                    maxNanos.accumulate(elapsed);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many concurrent sign-in requests, please retry later", retryAfterSeconds);
+        }
+        
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new ServiceUnavailableException("Too many concurrent sign-in requests, please retry later", retryAfterSeconds);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+    
+    // 从最小成本开始逐级测量, 取耗时不超过目标的最大成本; 已有哈希自带成本, 调整后仍可校验
+    static int chooseStrength(PasswordHashingConfig config) {
+        if (!config.isAutoTune()) {
+            return config.getStrength();
+        }
+        int chosen = config.getMinStrength();
+        for (int candidate = config.getMinStrength(); candidate <= config.getMaxStrength(); candidate++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(candidate);
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 3; i++) {
+                long start = System.nanoTime();
+                encoder.encode(SAMPLE_PASSWORD);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(best);
+            log.info("BCrypt strength {} takes {} ms on this host", candidate, millis);
+            if (millis > config.getTargetMillis()) {
+                break;
+            }
+            chosen = candidate;
+        }
+        log.info("Using BCrypt strength {} for target {} ms", chosen, config.getTargetMillis());
+        return chosen;
+    }
+}
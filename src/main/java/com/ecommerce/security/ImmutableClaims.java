@@ -0,0 +1,118 @@
+package com.ecommerce.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+// 缓存中的声明被多个请求共享, 对外只暴露只读视图, 任何修改都抛出 UnsupportedOperationException
+final class ImmutableClaims extends AbstractMap<String, Object> implements Claims {
+    private final Claims claims;
+    private final Map<String, Object> view;
+    
+    ImmutableClaims(Claims claims) {
+        this.claims = claims;
+        this.view = Collections.unmodifiableMap(claims);
+    }
+    
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return view.entrySet();
+    }
+    
+    @Override
+    public Object get(Object key) {
+        return view.get(key);
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return view.containsKey(key);
+    }
+    
+    @Override
+    public <T> T get(String claimName, Class<T> requiredType) {
+        return claims.get(claimName, requiredType);
+    }
+    
+    @Override
+    public String getIssuer() {
+        return claims.getIssuer();
+    }
+    
+    @Override
+    public String getSubject() {
+        return claims.getSubject();
+    }
+    
+    @Override
+    public String getAudience() {
+        return claims.getAudience();
+    }
+    
+    @Override
+    public Date getExpiration() {
+        return copy(claims.getExpiration());
+    }
+    
+    @Override
+    public Date getNotBefore() {
+        return copy(claims.getNotBefore());
+    }
+    
+    @Override
+    public Date getIssuedAt() {
+        return copy(claims.getIssuedAt());
+    }
+    
+    @Override
+    public String getId() {
+        return claims.getId();
+    }
+    
+    @Override
+    public Claims setIssuer(String iss) {
+        throw readOnly();
+    }
+    
+    @Override
+    public Claims setSubject(String sub) {
+        throw readOnly();
+    }
+    
+    @Override
+    public Claims setAudience(String aud) {
+        throw readOnly();
+    }
+    
+    @Override
+    public Claims setExpiration(Date exp) {
+        throw readOnly();
+    }
+    
+    @Override
+    public Claims setNotBefore(Date nbf) {
+        throw readOnly();
+    }
+    
+    @Override
+    public Claims setIssuedAt(Date iat) {
+        throw readOnly();
+    }
+    
+    @Override
+    public Claims setId(String jti) {
+        throw readOnly();
+    }
+    
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+    
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Cached claims are read-only");
+    }
+}
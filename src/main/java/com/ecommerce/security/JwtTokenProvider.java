@@ -1,15 +1,24 @@
 package com.ecommerce.security;
 
+import com.ecommerce.cache.BoundedLocalCache;
+import com.ecommerce.model.User;
 import io.jsonwebtoken.*;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 
 @Component
 public class JwtTokenProvider {
+    // 令牌中携带的声明, 过滤器据此直接构建认证信息, 无需查库
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String VERSION_CLAIM = "ver";
 
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -17,45 +26,87 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration}")
     private int jwtExpirationInMs;
 
+    @Value("${jwt.claims-cache.maximum-size:10000}")
+    private int claimsCacheSize;
 
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // 已验签令牌的声明缓存, 以完整令牌为 key(仅用签名部分作 key 会让篡改过载荷的令牌命中), 随 exp 过期
+    private BoundedLocalCache<String, Claims> verifiedTokens;
 
-    public String generateToken(UserDetails userDetails) {
+    // 签名和校验使用同一个密钥, 原先校验时把密钥当作 base64 解码, 与签名时的字节不一致
+    @PostConstruct
+    public void init() {
+        signingKey = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS256.getJcaName());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = new BoundedLocalCache<>(claimsCacheSize);
+    }
+
+    public String generateToken(User user) {
+        Date now = new Date();
         return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 86400000)) // 24 hours
-                .signWith(SignatureAlgorithm.HS256, jwtSecret.getBytes()) // 改用 HS256 而不是 HS512
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .claim(VERSION_CLAIM, user.getTokenVersion() == null ? 0 : user.getTokenVersion())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + jwtExpirationInMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256) // 改用 HS256 而不是 HS512
                 .compact();
     }
 
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        Claims claims = parseAndVerify(token);
+        return claims == null ? null : claims.getSubject();
     }
 
     public boolean validateToken(String authToken) {
+        return parseAndVerify(authToken) != null;
+    }
+
+    // 一次解析完成验签和过期检查, 令牌无效时返回 null; 重复出现的令牌直接命中缓存, 不再做 HMAC 计算;
+    // 返回的声明为只读, 缓存中的同一份对象会被并发请求共享
+    public Claims parseAndVerify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims parsed = parse(token);
+        if (parsed == null) {
+            return null;
+        }
+        Claims claims = new ImmutableClaims(parsed);
+        if (claims.getExpiration() != null) {
+            long ttl = claims.getExpiration().getTime() - System.currentTimeMillis();
+            if (ttl > 0) {
+                verifiedTokens.put(token, claims, Duration.ofMillis(ttl));
+            }
+        }
+        return claims;
+    }
+
+    Claims parse(String token) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(token).getBody();
         } catch (SignatureException ex) {
             // 无效的JWT签名
-            return false;
+            return null;
         } catch (MalformedJwtException ex) {
             // 无效的JWT令牌
-            return false;
+            return null;
         } catch (ExpiredJwtException ex) {
             // 过期的JWT令牌
-            return false;
+            return null;
         } catch (UnsupportedJwtException ex) {
             // 不支持的JWT令牌
-            return false;
+            return null;
         } catch (IllegalArgumentException ex) {
             // JWT声明字符串为空
-            return false;
+            return null;
         }
     }
 } 
\ No newline at end of file
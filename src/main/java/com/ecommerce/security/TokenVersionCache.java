@@ -0,0 +1,49 @@
+package com.ecommerce.security;
+
+import com.ecommerce.cache.BoundedLocalCache;
+import com.ecommerce.event.UserTokensRevokedEvent;
+import com.ecommerce.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// 用户当前令牌版本的本地缓存, 令牌中的版本落后即视为已撤销;
+// 本节点的撤销提交后立即生效, 其他节点最多在 TTL 后生效
+@Component
+public class TokenVersionCache {
+    private static final int DELETED = -1;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${jwt.version-cache.maximum-size:10000}")
+    private int maximumSize;
+    
+    @Value("${jwt.version-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+    
+    private BoundedLocalCache<Long, Integer> versions;
+    
+    @PostConstruct
+    public void init() {
+        versions = new BoundedLocalCache<>(maximumSize, Duration.ofSeconds(ttlSeconds));
+    }
+    
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = versions.get(userId);
+        if (current == null) {
+            current = userRepository.findTokenVersionById(userId).orElse(DELETED);
+            versions.put(userId, current);
+        }
+        return current != DELETED && current == tokenVersion;
+    }
+    
+    @TransactionalEventListener
+    public void onTokensRevoked(UserTokensRevokedEvent event) {
+        versions.invalidate(event.getUserId());
+    }
+}
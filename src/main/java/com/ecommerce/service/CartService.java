@@ -94,9 +94,11 @@ public class CartService {
     
     public void clearCart(String username) {
         log.info("Clearing cart for user: {}", username);
-        User user = userService.findByUsername(username);
-        List<CartItem> cartItems = cartItemRepository.findByUser(user);
-        cartItemRepository.deleteAll(cartItems);
-        log.info("Cleared cart for user: {}", username);
+        clearCart(userService.findByUsername(username));
+    }
+    
+    public void clearCart(User user) {
+        int removed = cartItemRepository.deleteByUser(user);
+        log.info("Cleared {} cart items for user: {}", removed, user.getUsername());
     }
 } 
\ No newline at end of file
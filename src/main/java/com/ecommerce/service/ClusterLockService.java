@@ -0,0 +1,68 @@
+package com.ecommerce.service;
+
+import com.ecommerce.repository.SchedulerLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// 基于数据库租约行的选主: 同一任务同一时刻只有一个节点持有租约, 持有者每次执行时续租
+@Slf4j
+@Service
+public class ClusterLockService {
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+    
+    private final String nodeId = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    
+    public boolean tryAcquire(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lease);
+        if (lockRepository.acquire(name, nodeId, now, until) > 0) {
+            return true;
+        }
+        if (lockRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            lockRepository.insert(name, nodeId, now, until);
+            log.info("Node {} acquired new scheduler lock {}", nodeId, name);
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            return false;
+        }
+    }
+    
+    // 启动阶段的一次性任务: 等待其他节点释放租约, 一个租约期内仍未拿到视为启动失败
+    public void awaitAcquire(String name, Duration lease) throws InterruptedException {
+        long deadline = System.nanoTime() + lease.toNanos();
+        while (!tryAcquire(name, lease)) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Timed out waiting for lock " + name);
+            }
+            Thread.sleep(200);
+        }
+    }
+    
+    public void release(String name) {
+        lockRepository.release(name, nodeId, LocalDateTime.now());
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ExpiryConfig;
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.event.OrderCreatedEvent;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Payment;
+import com.ecommerce.model.PaymentStatus;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 支付/订单超时的精确触发。
+ *
+ * PENDING 支付和未支付订单在创建时按截止时间登记到分层时间轮, 推进线程每个 tick
+ * 只处理到期的格子: 支付批量标记为超时失败, 订单取消并回补库存。登记只在内存中,
+ * 启动时从数据库重建; 到期处理都是带状态条件的更新, 多个节点重复触发也只生效一次。
+ * 节点宕机后其他节点上的 PaymentCleanupService 定时清理仍作为兜底。
+ */
+@Slf4j
+@Service
+public class ExpiryService {
+    private static final long RETRY_DELAY_MS = 60000;
+    
+    @Autowired
+    private ExpiryConfig expiryConfig;
+    
+    @Autowired
+    private PaymentConfig paymentConfig;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    private HierarchicalTimingWheel<Expiry> wheel;
+    private ScheduledExecutorService ticker;
+    private final Map<Long, HierarchicalTimingWheel.Timeout<Expiry>> paymentTimeouts = new ConcurrentHashMap<>();
+    
+    private final LongAdder expiredPayments = new LongAdder();
+    private final LongAdder expiredOrders = new LongAdder();
+    private final LongAdder deferredOrders = new LongAdder();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        wheel = new HierarchicalTimingWheel<>(expiryConfig.getTickMs(), expiryConfig.getWheelSize(), System.currentTimeMillis());
+        if (!expiryConfig.isEnabled()) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, expiryConfig.getTickMs(), expiryConfig.getTickMs(), TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+    
+    // 重启后内存登记丢失, 从数据库重新登记所有 PENDING 支付和订单, 已过期的在下一个 tick 触发
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!expiryConfig.isEnabled()) {
+            return;
+        }
+        List<Object[]> payments = paymentRepository.findIdAndPaymentDateByStatus(PaymentStatus.PENDING);
+        payments.forEach(row -> schedulePayment((Long) row[0], (LocalDateTime) row[1]));
+        List<Object[]> orders = orderRepository.findIdAndOrderDateByStatus(OrderStatus.PENDING);
+        orders.forEach(row -> scheduleOrder((Long) row[0], (LocalDateTime) row[1]));
+        log.info("Registered {} pending payments and {} pending orders for expiry", payments.size(), orders.size());
+    }
+    
+    public void schedulePayment(Long paymentId, LocalDateTime paymentDate) {
+        if (!expiryConfig.isEnabled()) {
+            return;
+        }
+        schedulePaymentAt(paymentId, epochMillis(paymentDate.plusSeconds(paymentConfig.getTimeoutSeconds())));
+    }
+    
+    // 支付已有结果时撤销登记
+    public void cancelPayment(Long paymentId) {
+        HierarchicalTimingWheel.Timeout<Expiry> timeout = paymentTimeouts.remove(paymentId);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+    
+    @TransactionalEventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        scheduleOrder(event.getOrderId(), event.getOrderDate());
+    }
+    
+    public void scheduleOrder(Long orderId, LocalDateTime orderDate) {
+        if (!expiryConfig.isEnabled()) {
+            return;
+        }
+        scheduleOrderAt(orderId, epochMillis(orderDate.plusSeconds(expiryConfig.getUnpaidOrderTimeoutSeconds())));
+    }
+    
+    // 推进时间轮并处理到期项, 由推进线程每个 tick 调用
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<Expiry> due;
+        try {
+            due = wheel.advance(now);
+        } catch (RuntimeException ex) {
+            log.error("Failed to advance expiry wheel", ex);
+            return;
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        
+        List<Long> paymentIds = new ArrayList<>();
+        for (Expiry expiry : due) {
+            maxLagMs.accumulateAndGet(now - expiry.getDeadlineMs(), Math::max);
+            if (expiry.getKind() == Kind.PAYMENT) {
+                paymentTimeouts.remove(expiry.getId());
+                paymentIds.add(expiry.getId());
+            } else {
+                expireOrder(expiry.getId(), now);
+            }
+        }
+        if (!paymentIds.isEmpty()) {
+            expirePayments(paymentIds, now);
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", expiryConfig.isEnabled());
+        statistics.put("pending", wheel.size());
+        statistics.put("levels", wheel.levels());
+        statistics.put("expiredPayments", expiredPayments.sum());
+        statistics.put("expiredOrders", expiredOrders.sum());
+        statistics.put("deferredOrders", deferredOrders.sum());
+        statistics.put("maxLagMs", maxLagMs.get());
+        return statistics;
+    }
+    
+    // 同一支付重复登记时撤销旧的时钟, 否则旧时钟会按原截止时间让支付失败
+    private void schedulePaymentAt(Long paymentId, long deadline) {
+        HierarchicalTimingWheel.Timeout<Expiry> old =
+            paymentTimeouts.put(paymentId, wheel.schedule(new Expiry(Kind.PAYMENT, paymentId, deadline), deadline));
+        if (old != null) {
+            wheel.cancel(old);
+        }
+    }
+    
+    private void expirePayments(List<Long> paymentIds, long now) {
+        try {
+            int failed = paymentRepository.failPending(paymentIds, "Payment timeout");
+            expiredPayments.add(failed);
+            if (failed > 0) {
+                log.info("Marked {} timed-out payments as failed", failed);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to expire payments {}, retrying later", paymentIds, ex);
+            paymentIds.forEach(id -> schedulePaymentAt(id, now + RETRY_DELAY_MS));
+        }
+    }
+    
+    private void expireOrder(Long orderId, long now) {
+        try {
+            // 支付仍在进行中时不取消, 等支付超时后再检查; 加锁后 OrderService 会再确认一次
+            Optional<Payment> payment = pendingPayment(orderId);
+            if (payment.isEmpty()) {
+                OrderService.ExpiryResult result = orderService.expireOrder(orderId);
+                if (result == OrderService.ExpiryResult.EXPIRED) {
+                    expiredOrders.increment();
+                    return;
+                }
+                if (result != OrderService.ExpiryResult.PAYMENT_PENDING) {
+                    return;
+                }
+                payment = pendingPayment(orderId);
+            }
+            long paymentDeadline = payment
+                .map(existing -> epochMillis(existing.getPaymentDate().plusSeconds(paymentConfig.getTimeoutSeconds())))
+                .orElse(now);
+            deferredOrders.increment();
+            scheduleOrderAt(orderId, Math.max(paymentDeadline, now) + expiryConfig.getTickMs());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to expire order {}, retrying later", orderId, ex);
+            scheduleOrderAt(orderId, now + RETRY_DELAY_MS);
+        }
+    }
+    
+    private Optional<Payment> pendingPayment(Long orderId) {
+        return paymentRepository.findByOrderId(orderId)
+            .filter(existing -> existing.getStatus() == PaymentStatus.PENDING);
+    }
+    
+    private void scheduleOrderAt(Long orderId, long deadline) {
+        wheel.schedule(new Expiry(Kind.ORDER, orderId, deadline), deadline);
+    }
+    
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    private enum Kind {
+        PAYMENT,
+        ORDER
+    }
+    
+    @Value
+    private static class Expiry {
+        Kind kind;
+        Long id;
+        long deadlineMs;
+    }
+}
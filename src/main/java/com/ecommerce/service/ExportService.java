@@ -0,0 +1,101 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.DataFormat;
+import com.ecommerce.dto.OrderExportRow;
+import com.ecommerce.dto.UserExportRow;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// 管理端全量导出: 游标按 fetchSize 逐批读取 DTO 投影并逐行写出, 投影不进入持久化上下文, 内存占用与行数无关
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final List<String> ORDER_COLUMNS = List.of("id", "userId", "username", "orderDate", "status",
+        "totalAmount", "itemCount", "shippingAddress", "paymentMethod");
+    private static final List<String> USER_COLUMNS = List.of("id", "username", "email", "role");
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public void exportOrders(OutputStream out, DataFormat format, boolean gzip) throws IOException {
+        try (Stream<OrderExportRow> rows = orderRepository.streamExportRows()) {
+            write(rows, out, format, gzip, ORDER_COLUMNS, row -> new Object[]{row.getId(), row.getUserId(),
+                row.getUsername(), row.getOrderDate(), row.getStatus(), row.getTotalAmount(), row.getItemCount(),
+                row.getShippingAddress(), row.getPaymentMethod()});
+        }
+    }
+    
+    public void exportUsers(OutputStream out, DataFormat format, boolean gzip) throws IOException {
+        try (Stream<UserExportRow> rows = userRepository.streamExportRows()) {
+            write(rows, out, format, gzip, USER_COLUMNS,
+                row -> new Object[]{row.getId(), row.getUsername(), row.getEmail(), row.getRole()});
+        }
+    }
+    
+    private <T> void write(Stream<T> rows, OutputStream out, DataFormat format, boolean gzip,
+                           List<String> columns, Function<T, Object[]> values) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        BufferedOutputStream buffer = new BufferedOutputStream(target, BUFFER_SIZE);
+        if (format == DataFormat.CSV) {
+            writeCsvLine(buffer, columns.toArray());
+        }
+        for (T row : (Iterable<T>) rows::iterator) {
+            if (format == DataFormat.CSV) {
+                writeCsvLine(buffer, values.apply(row));
+            } else {
+                buffer.write(objectMapper.writeValueAsBytes(row));
+                buffer.write('\n');
+            }
+        }
+        buffer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        out.flush();
+    }
+    
+    private static void writeCsvLine(OutputStream out, Object[] values) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(csvField(values[i]));
+        }
+        line.append('\n');
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // 含逗号、引号或换行的字段加引号, 引号写成两个
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
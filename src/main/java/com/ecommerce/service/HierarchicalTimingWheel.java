@@ -0,0 +1,170 @@
+package com.ecommerce.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// 分层时间轮: 插入和取消 O(1), 每个 tick 只处理一个槽位
+// 超出本层范围的任务放到上一层 (每格跨度为下层一整圈), 时间推进到该格时再逐层下放
+public class HierarchicalTimingWheel<T> {
+    private final Level<T> root;
+    private int pending;
+    
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("Tick must be positive and wheel size at least 2");
+        }
+        this.root = new Level<>(tickMs, wheelSize, startMs);
+    }
+    
+    public synchronized Timeout<T> schedule(T task, long deadlineMs) {
+        Timeout<T> timeout = new Timeout<>(task, deadlineMs);
+        // 已过期的任务放到当前格, 由下一次推进触发
+        place(timeout, Math.max(deadlineMs, root.currentTime), null);
+        pending++;
+        return timeout;
+    }
+    
+    // 只打标记, 所在槽位被推进时丢弃
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.cancelled || timeout.expired) {
+            return false;
+        }
+        timeout.cancelled = true;
+        pending--;
+        return true;
+    }
+    
+    // 推进到 nowMs, 返回截止时间早于推进后时间的任务
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        if (pending == 0) {
+            // 空轮直接跳到当前时间, 不逐格空转
+            for (Level<T> level = root; level != null; level = level.overflow) {
+                level.clear(nowMs);
+            }
+            return expired;
+        }
+        while (root.currentTime + root.tickMs <= nowMs) {
+            long passed = root.currentTime;
+            root.currentTime += root.tickMs;
+            if (root.overflow != null) {
+                root.overflow.advanceTo(root.currentTime, this, expired);
+            }
+            drain(root.take(passed), expired);
+        }
+        return expired;
+    }
+    
+    public synchronized int size() {
+        return pending;
+    }
+    
+    public synchronized int levels() {
+        int levels = 0;
+        for (Level<T> level = root; level != null; level = level.overflow) {
+            levels++;
+        }
+        return levels;
+    }
+    
+    private void drain(ArrayDeque<Timeout<T>> bucket, List<T> expired) {
+        for (Timeout<T> timeout : bucket) {
+            if (!timeout.cancelled) {
+                place(timeout, timeout.deadlineMs, expired);
+            }
+        }
+    }
+    
+    private void place(Timeout<T> timeout, long deadlineMs, List<T> expired) {
+        if (expired != null && deadlineMs < root.currentTime) {
+            timeout.expired = true;
+            pending--;
+            expired.add(timeout.task);
+            return;
+        }
+        Level<T> level = root;
+        while (deadlineMs >= level.currentTime + level.interval) {
+            level = level.overflow();
+        }
+        level.bucketFor(deadlineMs).add(timeout);
+    }
+    
+    public static class Timeout<T> {
+        private final T task;
+        private final long deadlineMs;
+        private boolean cancelled;
+        private boolean expired;
+        
+        private Timeout(T task, long deadlineMs) {
+            this.task = task;
+            this.deadlineMs = deadlineMs;
+        }
+        
+        public T getTask() {
+            return task;
+        }
+        
+        public long getDeadlineMs() {
+            return deadlineMs;
+        }
+    }
+    
+    private static class Level<T> {
+        private final long tickMs;
+        private final long interval;
+        private final ArrayDeque<Timeout<T>>[] buckets;
+        private long currentTime;
+        private Level<T> overflow;
+        
+        @SuppressWarnings("unchecked")
+        private Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.interval = tickMs * wheelSize;
+            this.buckets = new ArrayDeque[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new ArrayDeque<>();
+            }
+            this.currentTime = startMs - startMs % tickMs;
+        }
+        
+        private Level<T> overflow() {
+            if (overflow == null) {
+                overflow = new Level<>(interval, buckets.length, currentTime);
+            }
+            return overflow;
+        }
+        
+        private ArrayDeque<Timeout<T>> bucketFor(long timeMs) {
+            return buckets[(int) ((timeMs / tickMs) % buckets.length)];
+        }
+        
+        private ArrayDeque<Timeout<T>> take(long timeMs) {
+            int index = (int) ((timeMs / tickMs) % buckets.length);
+            ArrayDeque<Timeout<T>> bucket = buckets[index];
+            buckets[index] = new ArrayDeque<>();
+            return bucket;
+        }
+        
+        // 上层每格在下层走完一圈时推进一次; 各层先更新当前时间再下放, 任务才能落到下层正确的格子
+        private void advanceTo(long timeMs, HierarchicalTimingWheel<T> wheel, List<T> expired) {
+            if (currentTime + tickMs > timeMs) {
+                return;
+            }
+            currentTime = timeMs - timeMs % tickMs;
+            if (overflow != null) {
+                overflow.advanceTo(timeMs, wheel, expired);
+            }
+            wheel.drain(take(currentTime), expired);
+        }
+        
+        private void clear(long nowMs) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (!buckets[i].isEmpty()) {
+                    buckets[i] = new ArrayDeque<>();
+                }
+            }
+            currentTime = nowMs - nowMs % tickMs;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.InventoryLedgerConfig;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.InventoryReservationRepository;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 秒杀商品的内存库存账本。
+ *
+ * 启用后, 配置中的热点商品由集群中持有账本租约的一个节点加载到分片计数器,
+ * 下单/取消只在内存中扣减/回补, 已提交的增量按固定间隔批量回写数据库。
+ * 其他节点不持有计数器, 对这些商品的下单、取消和库存修改返回 503, 由负载均衡重试到持有者;
+ * 两个节点各自扣减会超卖, 因此账本商品不会退回数据库扣减。
+ *
+ * 每笔预占在下单事务中写一行 inventory_reservations, 回写增量时在同一事务中删除对应的行。
+ * 重启或接管时, 剩余行中未取消订单的数量即为已提交未回写的扣减, 先从库存中补扣再加载。
+ * 丢失的取消回补不会被恢复, 只会少卖不会超卖。
+ */
+@Slf4j
+@Service
+public class InventoryLedgerService {
+    static final String LOCK_NAME = "inventory-ledger";
+    private static final int DELETE_CHUNK_SIZE = 500;
+    private static final long RETRY_AFTER_SECONDS = 1;
+    
+    @Autowired
+    private InventoryLedgerConfig ledgerConfig;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+    
+    @Autowired
+    private ClusterLockService clusterLockService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    private final Map<Long, LedgerEntry> entries = new ConcurrentHashMap<>();
+    // 租约剩余一半时停止接单, 留出时间让已预占的下单事务在接管前提交
+    private volatile long servingUntilNanos;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLedger() {
+        if (ledgerConfig.isEnabled()) {
+            renewLease();
+        }
+    }
+    
+    public boolean manages(Long productId) {
+        return entries.containsKey(productId);
+    }
+    
+    // 预占账本中的商品, 返回不由账本管理、仍需走数据库扣减的部分
+    public Map<Long, Integer> reserve(Order order, Map<Long, Integer> quantities) {
+        if (!ledgerConfig.isEnabled()) {
+            return quantities;
+        }
+        
+        Map<Long, Integer> remaining = new HashMap<>();
+        Map<LedgerEntry, Integer> reserved = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> item : quantities.entrySet()) {
+            if (!ledgerConfig.getProductIds().contains(item.getKey())) {
+                remaining.put(item.getKey(), item.getValue());
+                continue;
+            }
+            LedgerEntry entry = servingEntry(item.getKey());
+            if (entry == null || !entry.counter.tryReserve(item.getValue())) {
+                reserved.forEach((reservedEntry, quantity) -> reservedEntry.counter.release(quantity));
+                if (entry == null) {
+                    throw new ServiceUnavailableException(
+                        "Stock of product " + item.getKey() + " is served by another node", RETRY_AFTER_SECONDS);
+                }
+                throw new InsufficientStockException("Insufficient stock for product: " + entry.productName);
+            }
+            reserved.put(entry, item.getValue());
+        }
+        
+        if (!reserved.isEmpty()) {
+            // 订单在提交前已分配 id, 预占流水随订单一起提交或回滚
+            register(() -> reserved.forEach((entry, quantity) ->
+                    reservationRepository.insert(order.getId(), entry.productId, quantity)),
+                committed -> reserved.forEach((entry, quantity) -> {
+                    if (committed) {
+                        // 先记增量再记订单: 回写时先取订单再取增量, 删除的流水对应的增量一定已经回写
+                        entry.pendingDelta.add(-quantity);
+                        entry.committedOrderIds.add(order.getId());
+                    } else {
+                        entry.counter.release(quantity);
+                    }
+                }));
+        }
+        return remaining;
+    }
+    
+    // 回补账本中的商品, 不由账本管理时返回 false。账本在其他节点时返回 503 而不是直接回补数据库:
+    // 持有者内存中可能还有该订单未回写的扣减, 订单取消后恢复会跳过它的流水, 直接回补会让库存多出一份
+    public boolean release(Long productId, Integer quantity) {
+        if (!isLedgerProduct(productId)) {
+            return false;
+        }
+        LedgerEntry entry = requireServingEntry(productId);
+        afterCompletion(committed -> {
+            if (committed) {
+                entry.counter.release(quantity);
+                entry.pendingDelta.add(quantity);
+            }
+        });
+        return true;
+    }
+    
+    // 管理端按增量调整库存, 不由账本管理时返回 false; 账本商品的库存列只由回写修改
+    public boolean adjustStock(Long productId, int delta) {
+        if (!isLedgerProduct(productId)) {
+            return false;
+        }
+        LedgerEntry entry = requireServingEntry(productId);
+        if (delta < 0 && !entry.counter.tryReserve(-delta)) {
+            throw new InsufficientStockException("Insufficient stock for product: " + entry.productName);
+        }
+        afterCompletion(committed -> {
+            if (committed) {
+                if (delta > 0) {
+                    entry.counter.release(delta);
+                }
+                entry.pendingDelta.add(delta);
+            } else if (delta < 0) {
+                entry.counter.release(-delta);
+            }
+        });
+        return true;
+    }
+    
+    // 管理端直接设定可售库存 (不含未提交的预占), 不由账本管理时返回 false
+    public boolean setStock(Long productId, long stock) {
+        if (!isLedgerProduct(productId)) {
+            return false;
+        }
+        LedgerEntry entry = requireServingEntry(productId);
+        afterCompletion(committed -> {
+            if (committed) {
+                entry.pendingDelta.add(stock - entry.counter.reset(stock));
+            }
+        });
+        return true;
+    }
+    
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        if (!ledgerConfig.isEnabled()) {
+            return;
+        }
+        renewLease();
+        flushEntries();
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (entries.isEmpty()) {
+            return;
+        }
+        servingUntilNanos = System.nanoTime();
+        flushEntries();
+        entries.clear();
+        clusterLockService.release(LOCK_NAME);
+    }
+    
+    // 持有者续租; 其他节点在租约过期后接管。失去租约时回写后丢弃计数器, 之后提交的预占留在流水中由新持有者恢复
+    synchronized void renewLease() {
+        long now = System.nanoTime();
+        if (clusterLockService.tryAcquire(LOCK_NAME, Duration.ofMillis(ledgerConfig.getLeaseMs()))) {
+            if (entries.isEmpty()) {
+                load();
+            }
+            servingUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(ledgerConfig.getLeaseMs() / 2);
+        } else if (!entries.isEmpty()) {
+            log.error("Lost inventory ledger lease to another node, handing over");
+            servingUntilNanos = now;
+            flushEntries();
+            entries.clear();
+        }
+    }
+    
+    private void load() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Long productId : ledgerConfig.getProductIds()) {
+            LedgerEntry entry = transactionTemplate.execute(status -> recover(productId));
+            entries.put(productId, entry);
+            log.info("Loaded product {} into inventory ledger with stock {}", productId, entry.counter.available());
+        }
+    }
+    
+    private synchronized void flushEntries() {
+        if (entries.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, Long> deltas = new TreeMap<>();
+        Map<LedgerEntry, List<Long>> flushedOrders = new HashMap<>();
+        entries.forEach((productId, entry) -> {
+            List<Long> orderIds = new ArrayList<>();
+            for (Long orderId; (orderId = entry.committedOrderIds.poll()) != null; ) {
+                orderIds.add(orderId);
+            }
+            long delta = entry.pendingDelta.sumThenReset();
+            if (delta != 0 || !orderIds.isEmpty()) {
+                deltas.put(productId, delta);
+                flushedOrders.put(entry, orderIds);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                productRepository.adjustStock(deltas);
+                flushedOrders.forEach((entry, orderIds) -> {
+                    for (int from = 0; from < orderIds.size(); from += DELETE_CHUNK_SIZE) {
+                        reservationRepository.deleteByProductIdAndOrderIds(entry.productId,
+                            orderIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, orderIds.size())));
+                    }
+                });
+                deltas.keySet().forEach(productId -> eventPublisher.publishEvent(
+                    new ProductChangedEvent(productId, ProductChangedEvent.Type.STOCK_CHANGED, null)));
+            });
+            log.debug("Flushed inventory ledger deltas: {}", deltas);
+        } catch (RuntimeException ex) {
+            flushedOrders.forEach((entry, orderIds) -> {
+                entry.pendingDelta.add(deltas.get(entry.productId));
+                entry.committedOrderIds.addAll(orderIds);
+            });
+            log.error("Failed to flush inventory ledger, will retry on next run", ex);
+        }
+    }
+    
+    private LedgerEntry recover(Long productId) {
+        Product product = productRepository.findById(productId)
+            .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        
+        long unflushed = reservationRepository.sumQuantity(productId, OrderStatus.CANCELLED);
+        if (unflushed > 0) {
+            productRepository.adjustStock(Map.of(productId, -unflushed));
+            log.warn("Recovered {} unflushed units for product {} from the reservation journal", unflushed, productId);
+        }
+        reservationRepository.deleteByProductId(productId);
+        
+        return new LedgerEntry(productId, product.getName(),
+            new StripedStockCounter(Math.max(0, product.getStock() - unflushed), ledgerConfig.getStripes()));
+    }
+    
+    private boolean isLedgerProduct(Long productId) {
+        return ledgerConfig.isEnabled() && ledgerConfig.getProductIds().contains(productId);
+    }
+    
+    private LedgerEntry servingEntry(Long productId) {
+        if (System.nanoTime() - servingUntilNanos > 0) {
+            return null;
+        }
+        return entries.get(productId);
+    }
+    
+    private LedgerEntry requireServingEntry(Long productId) {
+        LedgerEntry entry = servingEntry(productId);
+        if (entry == null) {
+            throw new ServiceUnavailableException(
+                "Stock of product " + productId + " is served by another node", RETRY_AFTER_SECONDS);
+        }
+        return entry;
+    }
+    
+    private void afterCompletion(CompletionCallback callback) {
+        register(null, callback);
+    }
+    
+    private void register(Runnable beforeCommit, CompletionCallback callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Inventory ledger operations require an active transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (beforeCommit != null) {
+                    beforeCommit.run();
+                }
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                callback.onCompletion(status == STATUS_COMMITTED);
+            }
+        });
+    }
+    
+    private interface CompletionCallback {
+        void onCompletion(boolean committed);
+    }
+    
+    private static class LedgerEntry {
+        private final Long productId;
+        private final String productName;
+        private final StripedStockCounter counter;
+        private final LongAdder pendingDelta = new LongAdder(); // 已提交未回写的库存增量
+        private final Queue<Long> committedOrderIds = new ConcurrentLinkedQueue<>(); // 流水待删除的订单
+        
+        private LedgerEntry(Long productId, String productName, StripedStockCounter counter) {
+            this.productId = productId;
+            this.productName = productName;
+            this.counter = counter;
+        }
+    }
+}
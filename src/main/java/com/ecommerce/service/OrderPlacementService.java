@@ -0,0 +1,221 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.OrderPlacementConfig;
+import com.ecommerce.exception.EcommerceException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.UnauthorizedException;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderPlacement;
+import com.ecommerce.model.OrderPlacementStatus;
+import com.ecommerce.repository.OrderPlacementRepository;
+import com.ecommerce.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 异步下单: 请求线程只写 outbox, worker 批量领取后逐条在独立事务中建单, 客户端轮询状态
+@Slf4j
+@Service
+public class OrderPlacementService {
+    private static final EnumSet<OrderPlacementStatus> ACTIVE =
+        EnumSet.of(OrderPlacementStatus.PENDING, OrderPlacementStatus.PROCESSING);
+    private static final EnumSet<OrderPlacementStatus> FINISHED =
+        EnumSet.of(OrderPlacementStatus.COMPLETED, OrderPlacementStatus.FAILED);
+    
+    @Autowired
+    private OrderPlacementRepository placementRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private OrderPlacementConfig config;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService workers;
+    private ExecutorService dispatcher;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(1, config.getWorkers()), runnable -> {
+            Thread thread = new Thread(runnable, "order-placement-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 领取循环单独一个线程, 不占用所有 @Scheduled 任务共用的调度线程
+        dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-placement-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        workers.shutdown();
+    }
+    
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+    
+    // 同一用户同时只保留一个进行中的请求, 重复提交返回已有记录, 避免同一购物车被下两次单
+    // 先锁用户行再检查: 并发提交在锁上排队, 后到的请求能看到先提交的记录
+    public OrderPlacement submit(String username, String shippingAddress, String paymentMethod) {
+        return transactionTemplate.execute(status -> {
+            userRepository.findForUpdateByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+            return placementRepository.findFirstByUsernameAndStatusIn(username, ACTIVE)
+                .orElseGet(() -> {
+                    OrderPlacement placement = new OrderPlacement();
+                    placement.setUsername(username);
+                    placement.setShippingAddress(shippingAddress);
+                    placement.setPaymentMethod(paymentMethod);
+                    placement.setStatus(OrderPlacementStatus.PENDING);
+                    placement.setCreatedAt(LocalDateTime.now());
+                    log.info("Queued order placement for user: {}", username);
+                    return placementRepository.save(placement);
+                });
+        });
+    }
+    
+    public OrderPlacement getPlacement(String username, Long placementId) {
+        OrderPlacement placement = placementRepository.findById(placementId)
+            .orElseThrow(() -> new ResourceNotFoundException("Order placement not found with id: " + placementId));
+        if (!placement.getUsername().equals(username)) {
+            throw new UnauthorizedException("Unauthorized access to order placement");
+        }
+        return placement;
+    }
+    
+    @Scheduled(fixedDelayString = "${order.async.poll-interval-ms:200}")
+    public void poll() {
+        if (!config.isEnabled() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    drain();
+                } catch (RuntimeException ex) {
+                    log.error("Failed to drain order placements", ex);
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            draining.set(false);
+        }
+    }
+    
+    // 逐批领取直到 outbox 为空; 等一批处理完再领下一批, 不会多领超出 worker 处理能力的行
+    public int drain() {
+        transactionTemplate.executeWithoutResult(status -> {
+            int requeued = placementRepository.requeueExpired(LocalDateTime.now().minusSeconds(config.getLeaseSeconds()));
+            if (requeued > 0) {
+                log.warn("Requeued {} order placements with expired leases", requeued);
+            }
+        });
+        
+        int processed = 0;
+        List<OrderPlacement> batch;
+        while (!(batch = claimBatch()).isEmpty()) {
+            List<Callable<Void>> tasks = new ArrayList<>(batch.size());
+            for (OrderPlacement placement : batch) {
+                tasks.add(() -> {
+                    process(placement);
+                    return null;
+                });
+            }
+            try {
+                workers.invokeAll(tasks);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            processed += batch.size();
+        }
+        return processed;
+    }
+    
+    @Scheduled(fixedRate = 3600000) // 每小时清理一次
+    public void purgeFinished() {
+        int deleted = transactionTemplate.execute(status -> placementRepository.deleteFinishedBefore(
+            FINISHED, LocalDateTime.now().minusHours(config.getRetentionHours())));
+        if (deleted > 0) {
+            log.info("Purged {} finished order placements", deleted);
+        }
+    }
+    
+    private List<OrderPlacement> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            List<OrderPlacement> claimed = placementRepository.findForClaim(
+                OrderPlacementStatus.PENDING, PageRequest.of(0, config.getBatchSize()));
+            LocalDateTime now = LocalDateTime.now();
+            claimed.forEach(placement -> {
+                placement.setStatus(OrderPlacementStatus.PROCESSING);
+                placement.setClaimedAt(now);
+                placement.setAttempts(placement.getAttempts() + 1);
+            });
+            return claimed;
+        });
+    }
+    
+    // 建单与标记完成在同一事务中提交, 任何一步失败都整体回滚
+    private void process(OrderPlacement placement) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Order order = orderService.createOrder(
+                    placement.getUsername(), placement.getShippingAddress(), placement.getPaymentMethod());
+                if (placementRepository.markCompleted(placement.getId(), placement.getAttempts(),
+                        order.getId(), LocalDateTime.now()) == 0) {
+                    throw new IllegalStateException("Lease lost for order placement " + placement.getId());
+                }
+            });
+            log.info("Completed order placement {} for user: {}", placement.getId(), placement.getUsername());
+        } catch (EcommerceException ex) {
+            // 业务失败 (购物车为空、库存不足等) 重试也不会成功
+            finish(placement, OrderPlacementStatus.FAILED, ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Order placement {} failed on attempt {}", placement.getId(), placement.getAttempts(), ex);
+            if (placement.getAttempts() >= config.getMaxAttempts()) {
+                finish(placement, OrderPlacementStatus.FAILED, "Order could not be placed, please try again");
+            } else {
+                finish(placement, OrderPlacementStatus.PENDING, null);
+            }
+        }
+    }
+    
+    private void finish(OrderPlacement placement, OrderPlacementStatus status, String reason) {
+        LocalDateTime completedAt = status == OrderPlacementStatus.FAILED ? LocalDateTime.now() : null;
+        transactionTemplate.executeWithoutResult(tx -> placementRepository.release(
+            placement.getId(), placement.getAttempts(), status, reason, completedAt));
+    }
+}
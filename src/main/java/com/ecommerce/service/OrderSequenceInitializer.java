@@ -0,0 +1,69 @@
+package com.ecommerce.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// 订单/订单项主键由 IDENTITY 改为序列后, 已有数据库的序列从 1 开始, 会与存量主键冲突
+// 启动时 (Web 端口打开前) 把序列推到 MAX(id) 之后; 序列已经足够大时不做任何修改, 重复执行无副作用
+@Slf4j
+@Component
+public class OrderSequenceInitializer {
+    static final int ALLOCATION_SIZE = 50; // 与 Order/OrderItem 上 @SequenceGenerator 的 allocationSize 一致
+    private static final String LOCK_NAME = "order-sequence-seed";
+    private static final Duration LOCK_LEASE = Duration.ofMinutes(1);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private ClusterLockService clusterLockService;
+    
+    @PostConstruct
+    public void init() throws InterruptedException {
+        // 多个节点同时首次启动时只由一个节点调整, 其余节点等它完成后再检查 (届时已无需调整)
+        clusterLockService.awaitAcquire(LOCK_NAME, LOCK_LEASE);
+        try {
+            Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+            seed(dialect, "orders_seq", "orders");
+            seed(dialect, "order_items_seq", "order_items");
+        } finally {
+            clusterLockService.release(LOCK_NAME);
+        }
+    }
+    
+    // pooled 优化器把序列值当作一段主键的上界, 取到 v 时分配 (v - ALLOCATION_SIZE, v]
+    void seed(Dialect dialect, String sequence, String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long restartWith = maxId + ALLOCATION_SIZE + 1;
+        if (dialect.getSequenceSupport().supportsSequences()) {
+            Long next = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+            if (next != null && next - ALLOCATION_SIZE >= maxId) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith);
+        } else {
+            // 不支持序列的方言 (如 MySQL) 由 Hibernate 用单行表 <sequence>(next_val) 模拟
+            if (jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?",
+                    restartWith, restartWith) == 0) {
+                return;
+            }
+        }
+        log.info("Moved sequence {} past existing {} ids, restarting at {}", sequence, table, restartWith);
+    }
+}
@@ -1,34 +1,69 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.OrderItemSummary;
+import com.ecommerce.dto.PageCursor;
+import com.ecommerce.event.OrderCreatedEvent;
+import com.ecommerce.event.OrderStatusChangedEvent;
 import com.ecommerce.model.*;
+import com.ecommerce.repository.OrderItemRepository;
 import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OrderSummaryRepository;
+import com.ecommerce.repository.PaymentRepository;
+import com.ecommerce.repository.UserRepository;
 import com.ecommerce.exception.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @Transactional
 public class OrderService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
     @Autowired
     private OrderRepository orderRepository;
     
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
     @Autowired
     private CartService cartService;
     
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+    
+    @Autowired
+    private OrderStatisticsService orderStatisticsService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     public Order createOrder(String username, String shippingAddress, String paymentMethod) {
         log.info("Creating order for user: {}", username);
+        // 购物车连同商品一条查询取回; 库存一次批量扣减; 订单项用序列主键批量插入; 购物车一条语句清空
         List<CartItem> cartItems = cartService.getCartItems(username);
         if (cartItems.isEmpty()) {
             throw new BusinessException("Cart is empty");
@@ -42,8 +77,9 @@ public class OrderService {
         order.setPaymentMethod(paymentMethod);
         
         BigDecimal totalAmount = BigDecimal.ZERO;
+        Map<Long, Integer> reservations = new HashMap<>();
         
-        // Create order items and update product stock
+        // Create order items and collect stock reservations
         for (CartItem cartItem : cartItems) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -54,29 +90,63 @@ public class OrderService {
             order.getOrderItems().add(orderItem);
             
             totalAmount = totalAmount.add(cartItem.getPrice().multiply(new BigDecimal(cartItem.getQuantity())));
-            
-            Product product = cartItem.getProduct();
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
-            }
-            productService.updateStock(product.getId(), -cartItem.getQuantity());
+            reservations.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
         }
         
+        // 热点商品走内存账本, 其余一次 batch 条件扣减, 库存不足时整单回滚
+        Map<Long, Integer> databaseReservations = inventoryLedgerService.reserve(order, reservations);
+        if (!databaseReservations.isEmpty()) {
+            productService.reserveStock(databaseReservations);
+        }
         order.setTotalAmount(totalAmount);
         
         Order savedOrder = orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(savedOrder));
+        orderStatisticsService.recordCreated(savedOrder);
         log.info("Created order: {} with total amount: {}", savedOrder.getId(), totalAmount);
         
         // Clear cart
-        cartItems.forEach(cartItem -> 
-            cartService.removeFromCart(username, cartItem.getId()));
+        cartService.clearCart(order.getUser());
+        eventPublisher.publishEvent(OrderCreatedEvent.of(savedOrder));
         
         return savedOrder;
     }
     
     public List<Order> getUserOrders(String username) {
         log.debug("Fetching orders for user: {}", username);
-        return orderRepository.findByUserOrderByOrderDateDesc(cartService.getCartItems(username).get(0).getUser());
+        User user = userRepository.findByUsername(username)
+            .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        return orderRepository.findWithItemsByUserOrderByOrderDateDesc(user);
+    }
+    
+    // 订单列表页只读摘要表, 不加载订单实体和订单项
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummary> getOrderHistory(String username, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDateTime lastDate = LATEST;
+        Long lastId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = PageCursor.decode(cursor, 2);
+            try {
+                lastDate = LocalDateTime.parse(parts[0]);
+                lastId = Long.valueOf(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException ex) {
+                throw new BusinessException("Invalid page cursor");
+            }
+        }
+        
+        List<OrderSummary> summaries = orderSummaryRepository.findHistoryAfter(
+            username, lastDate, lastId, PageRequest.of(0, pageSize + 1));
+        boolean hasNext = summaries.size() > pageSize;
+        if (hasNext) {
+            summaries = summaries.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = PageCursor.encode(last.getOrderDate(), last.getOrderId());
+        }
+        return new CursorPage<>(summaries, nextCursor, hasNext);
     }
     
     public Order getOrder(Long orderId) {
@@ -84,15 +154,26 @@ public class OrderService {
             .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
     }
     
+    public Order getOrderWithItems(Long orderId) {
+        return orderRepository.findWithItemsById(orderId)
+            .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+    }
+    
+    // 状态变更和发起支付前先锁订单行再读取当前状态, 并发的变更不会基于同一旧状态各自调整统计汇总
+    public Order getOrderForUpdate(Long orderId) {
+        return orderRepository.findForUpdateById(orderId)
+            .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+    }
+    
     public Order updateOrderStatus(Long orderId, OrderStatus status) {
-        Order order = getOrder(orderId);
-        order.setStatus(status);
+        Order order = getOrderForUpdate(orderId);
+        changeStatus(order, status);
         log.info("Updated order {} status to: {}", orderId, status);
         return orderRepository.save(order);
     }
     
     public Order confirmOrder(String username, Long orderId) {
-        Order order = getOrder(orderId);
+        Order order = getOrderForUpdate(orderId);
         if (!order.getUser().getUsername().equals(username)) {
             throw new UnauthorizedException("Unauthorized access to order");
         }
@@ -101,13 +182,13 @@ public class OrderService {
             throw new BusinessException("Order cannot be confirmed in current status");
         }
         
-        order.setStatus(OrderStatus.PAID);
+        changeStatus(order, OrderStatus.PAID);
         log.info("Order {} confirmed by user: {}", orderId, username);
         return orderRepository.save(order);
     }
     
     public Order cancelOrder(String username, Long orderId) {
-        Order order = getOrder(orderId);
+        Order order = getOrderForUpdate(orderId);
         if (!order.getUser().getUsername().equals(username)) {
             throw new UnauthorizedException("Unauthorized access to order");
         }
@@ -117,49 +198,73 @@ public class OrderService {
         }
         
         // 恢复库存
-        order.getOrderItems().forEach(item -> {
-            productService.updateStock(item.getProduct().getId(), item.getQuantity());
-        });
+        releaseStock(order);
         
-        order.setStatus(OrderStatus.CANCELLED);
+        changeStatus(order, OrderStatus.CANCELLED);
         log.info("Order {} cancelled by user: {}", orderId, username);
         return orderRepository.save(order);
     }
     
+    // 未支付超时: 锁住订单行后确认仍为 PENDING 且没有进行中的支付才取消并回补库存, 多个节点同时触发也只回补一次
+    // 发起支付同样先锁订单行, 两者串行, 不会取消一个刚创建了支付的订单
+    public ExpiryResult expireOrder(Long orderId) {
+        Order order = orderRepository.findForUpdateById(orderId).orElse(null);
+        if (order == null || order.getStatus() != OrderStatus.PENDING) {
+            return ExpiryResult.NOT_PENDING;
+        }
+        boolean paymentPending = paymentRepository.findByOrderId(orderId)
+            .filter(payment -> payment.getStatus() == PaymentStatus.PENDING)
+            .isPresent();
+        if (paymentPending) {
+            return ExpiryResult.PAYMENT_PENDING;
+        }
+        releaseStock(order);
+        changeStatus(order, OrderStatus.CANCELLED);
+        orderRepository.save(order);
+        log.info("Order {} expired without payment", orderId);
+        return ExpiryResult.EXPIRED;
+    }
+    
+    // 状态变更统一入口: 同一事务中维护统计汇总和订单摘要, 提交后通知其他派生数据
+    private void changeStatus(Order order, OrderStatus status) {
+        // 已取消的订单库存已回补, 不能再变为已支付或发货
+        if (order.getStatus() == OrderStatus.CANCELLED && status != OrderStatus.CANCELLED) {
+            throw new BusinessException("Cancelled order cannot change status to " + status);
+        }
+        orderStatisticsService.recordStatusChange(order.getId(), order.getStatus(), status);
+        order.setStatus(status);
+        orderSummaryRepository.updateStatus(order.getId(), status);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), status));
+    }
+    
+    private void releaseStock(Order order) {
+        order.getOrderItems().forEach(item -> {
+            if (!inventoryLedgerService.release(item.getProduct().getId(), item.getQuantity())) {
+                productService.releaseStock(item.getProduct().getId(), item.getQuantity());
+            }
+        });
+    }
+    
     // 管理员方法
     public List<Order> getAllOrders() {
         log.debug("Fetching all orders");
-        return orderRepository.findAll();
+        return orderRepository.findAllWithItems();
+    }
+    
+    public int rebuildOrderSummaries() {
+        orderSummaryRepository.deleteAllSummaries();
+        int inserted = orderSummaryRepository.insertAllFromOrders();
+        log.info("Rebuilt {} order summaries", inserted);
+        return inserted;
     }
     
+    // 读取增量维护的汇总行, 开销与订单总数无关
     public Map<String, Object> getOrderStatistics() {
-        log.debug("Generating order statistics");
-        List<Order> orders = getAllOrders();
-        Map<String, Object> stats = new HashMap<>();
-        
-        BigDecimal totalSales = orders.stream()
-            .map(Order::getTotalAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-        Map<OrderStatus, Long> statusStats = orders.stream()
-            .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting()));
-            
-        Map<String, BigDecimal> monthlySales = orders.stream()
-            .collect(Collectors.groupingBy(
-                order -> order.getOrderDate().format(DateTimeFormatter.ofPattern("yyyy-MM")),
-                Collectors.mapping(Order::getTotalAmount,
-                    Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-            ));
-        
-        stats.put("totalSales", totalSales);
-        stats.put("statusStats", statusStats);
-        stats.put("monthlySales", monthlySales);
-        stats.put("totalOrders", orders.size());
-        
-        log.info("Generated order statistics: total sales = {}, total orders = {}", 
-            totalSales, orders.size());
-        
-        return stats;
+        return orderStatisticsService.getStatistics();
+    }
+    
+    public int rebuildOrderStatistics() {
+        return orderStatisticsService.rebuild();
     }
     
     public Map<String, Object> getOrderSummary(Long orderId) {
@@ -172,19 +277,16 @@ public class OrderService {
         summary.put("totalAmount", order.getTotalAmount());
         summary.put("shippingAddress", order.getShippingAddress());
         
-        List<Map<String, Object>> items = order.getOrderItems().stream()
-            .map(item -> {
-                Map<String, Object> itemMap = new HashMap<>();
-                itemMap.put("productName", item.getProduct().getName());
-                itemMap.put("quantity", item.getQuantity());
-                itemMap.put("price", item.getPrice());
-                itemMap.put("subtotal", item.getPrice().multiply(new BigDecimal(item.getQuantity())));
-                return itemMap;
-            })
-            .collect(Collectors.toList());
-            
+        // 订单项只投影摘要需要的字段, 一条 join 查询取回
+        List<OrderItemSummary> items = orderItemRepository.findSummariesByOrderId(orderId);
         summary.put("items", items);
         log.debug("Generated order summary for order: {}", orderId);
         return summary;
     }
+    
+    public enum ExpiryResult {
+        EXPIRED,
+        NOT_PENDING,
+        PAYMENT_PENDING // 支付仍在进行, 等支付超时后再检查
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OrderStatsBucketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Stream;
+
+// 订单统计增量维护: 下单和状态变更时在同一事务中累加汇总行, 看板只读汇总行, 不再加载全部订单
+@Slf4j
+@Service
+@Transactional
+public class OrderStatisticsService {
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String STATUS_PREFIX = "status:";
+    private static final String MONTH_PREFIX = "month:";
+    private static final int STRIPES = 8; // 同一 bucket 拆成的行数, 并发下单分散到不同行锁
+    private static final String SEED_LOCK = "order-stats-seed";
+    private static final Duration SEED_LEASE = Duration.ofMinutes(10);
+    
+    @Autowired
+    private OrderStatsBucketRepository bucketRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ClusterLockService clusterLockService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private TransactionTemplate insertTemplate;
+    
+    @PostConstruct
+    public void init() throws InterruptedException {
+        insertTemplate = new TransactionTemplate(transactionManager);
+        insertTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        seedIfEmpty();
+    }
+    
+    // 首次部署时汇总表为空而订单表已有数据: 在 Web 端口打开前由一个节点从订单表重建一次, 之后只做增量维护
+    // 其他节点等待重建完成再启动, 不会在重建期间写入增量; 滚动升级期间旧版本节点的下单不计入, 升级完成后调用 rebuild 校正
+    void seedIfEmpty() throws InterruptedException {
+        clusterLockService.awaitAcquire(SEED_LOCK, SEED_LEASE);
+        try {
+            if (bucketRepository.count() == 0 && orderRepository.count() > 0) {
+                Integer buckets = new TransactionTemplate(transactionManager).execute(status -> rebuild());
+                log.info("Seeded {} order statistics buckets from existing orders", buckets);
+            }
+        } finally {
+            clusterLockService.release(SEED_LOCK);
+        }
+    }
+    
+    public void recordCreated(Order order) {
+        int stripe = stripeOf(order.getId());
+        // 固定按 bucket 名排序加锁 (month: 在 status: 之前), 避免事务间死锁
+        increment(MONTH_PREFIX + order.getOrderDate().format(MONTH), stripe, 1, order.getTotalAmount());
+        increment(STATUS_PREFIX + order.getStatus(), stripe, 1, BigDecimal.ZERO);
+    }
+    
+    public void recordStatusChange(Long orderId, OrderStatus from, OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        int stripe = stripeOf(orderId);
+        String fromBucket = STATUS_PREFIX + from;
+        String toBucket = STATUS_PREFIX + to;
+        if (fromBucket.compareTo(toBucket) < 0) {
+            increment(fromBucket, stripe, -1, BigDecimal.ZERO);
+            increment(toBucket, stripe, 1, BigDecimal.ZERO);
+        } else {
+            increment(toBucket, stripe, 1, BigDecimal.ZERO);
+            increment(fromBucket, stripe, -1, BigDecimal.ZERO);
+        }
+    }
+    
+    // 汇总行数为 (状态数 + 月份数) * STRIPES, 与订单总数无关
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStatistics() {
+        Map<OrderStatus, Long> statusStats = new EnumMap<>(OrderStatus.class);
+        Map<String, BigDecimal> monthlySales = new TreeMap<>();
+        BigDecimal totalSales = BigDecimal.ZERO;
+        long totalOrders = 0;
+        for (Object[] row : bucketRepository.sumByBucket()) {
+            String bucket = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            if (bucket.startsWith(STATUS_PREFIX)) {
+                if (count != 0) {
+                    statusStats.put(OrderStatus.valueOf(bucket.substring(STATUS_PREFIX.length())), count);
+                }
+            } else {
+                BigDecimal sales = (BigDecimal) row[2];
+                monthlySales.put(bucket.substring(MONTH_PREFIX.length()), sales);
+                totalSales = totalSales.add(sales);
+                totalOrders += count;
+            }
+        }
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalSales", totalSales);
+        stats.put("statusStats", statusStats);
+        stats.put("monthlySales", monthlySales);
+        stats.put("totalOrders", totalOrders);
+        return stats;
+    }
+    
+    // 从订单表重建: 游标逐行读取并随即 detach, 内存只保存各 bucket 的累加值
+    // 重建期间的下单/状态变更可能被覆盖, 应在低峰期执行
+    public int rebuild() {
+        Map<String, long[]> counts = new TreeMap<>();
+        Map<String, BigDecimal> sales = new HashMap<>();
+        try (Stream<Order> orders = orderRepository.streamAll()) {
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                String month = MONTH_PREFIX + order.getOrderDate().format(MONTH);
+                counts.computeIfAbsent(month, key -> new long[1])[0]++;
+                sales.merge(month, order.getTotalAmount(), BigDecimal::add);
+                counts.computeIfAbsent(STATUS_PREFIX + order.getStatus(), key -> new long[1])[0]++;
+                entityManager.detach(order);
+            }
+        }
+        
+        bucketRepository.deleteAllBuckets();
+        counts.forEach((bucket, count) -> {
+            bucketRepository.insertEmpty(bucket, 0);
+            bucketRepository.increment(bucket, 0, count[0], sales.getOrDefault(bucket, BigDecimal.ZERO));
+        });
+        log.info("Rebuilt {} order statistics buckets", counts.size());
+        return counts.size();
+    }
+    
+    private void increment(String bucket, int stripe, long count, BigDecimal sales) {
+        if (bucketRepository.increment(bucket, stripe, count, sales) > 0) {
+            return;
+        }
+        // 新的月份或状态: 在独立事务中插入零值行后重试, 其他事务已插入时忽略主键冲突
+        try {
+            insertTemplate.executeWithoutResult(status -> bucketRepository.insertEmpty(bucket, stripe));
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Order statistics bucket {}#{} created concurrently", bucket, stripe);
+        }
+        bucketRepository.increment(bucket, stripe, count, sales);
+    }
+    
+    private static int stripeOf(Long orderId) {
+        return (int) Math.floorMod(orderId, (long) STRIPES);
+    }
+}
@@ -1,33 +1,127 @@
 package com.ecommerce.service;
 
 import com.ecommerce.model.PaymentStatus;
+import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.repository.PaymentRepository;
+import com.ecommerce.config.ExpiryConfig;
 import com.ecommerce.config.PaymentConfig;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+@Slf4j
 @Service
 public class PaymentCleanupService {
+    static final String LOCK_NAME = "payment-timeout-sweeper";
+    
     @Autowired
     private PaymentRepository paymentRepository;
     
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderService orderService;
+    
     @Autowired
     private PaymentConfig paymentConfig;
     
+    @Autowired
+    private ExpiryConfig expiryConfig;
+    
+    @Autowired
+    private ClusterLockService clusterLockService;
+    
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong skippedRuns = new AtomicLong();
+    private final AtomicLong totalSwept = new AtomicLong();
+    private final AtomicLong lastSwept = new AtomicLong();
+    private final AtomicLong totalExpiredOrders = new AtomicLong();
+    private final AtomicLong lastDurationMs = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRunAt = new AtomicReference<>();
+    
+    // 只有持有租约的节点执行; 按块批量更新, 每块一个短事务, 不把超时记录加载进内存
+    // 时间轮登记只在创建订单的节点内存中, 该节点宕机后它的未支付订单由这里兜底取消
     @Scheduled(fixedRate = 60000) // 每分钟执行一次
-    @Transactional
     public void cleanupPendingPayments() {
+        if (!clusterLockService.tryAcquire(LOCK_NAME, Duration.ofSeconds(paymentConfig.getCleanupLeaseSeconds()))) {
+            skippedRuns.incrementAndGet();
+            return;
+        }
+        long start = System.currentTimeMillis();
         LocalDateTime timeoutThreshold = LocalDateTime.now()
             .minusSeconds(paymentConfig.getTimeoutSeconds());
-            
-        paymentRepository.findByStatusAndPaymentDateBefore(PaymentStatus.PENDING, timeoutThreshold)
-            .forEach(payment -> {
-                payment.setStatus(PaymentStatus.FAILED);
-                payment.setFailureReason("Payment timeout");
-                paymentRepository.save(payment);
-            });
+        int batchSize = paymentConfig.getCleanupBatchSize();
+        
+        int swept = 0;
+        while (true) {
+            List<Long> ids = paymentRepository.findIdsByStatusAndPaymentDateBefore(
+                PaymentStatus.PENDING, timeoutThreshold, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            swept += paymentRepository.failPending(ids, "Payment timeout");
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        
+        int expiredOrders = expireUnpaidOrders(batchSize);
+        
+        runs.incrementAndGet();
+        lastSwept.set(swept);
+        totalExpiredOrders.addAndGet(expiredOrders);
+        totalSwept.addAndGet(swept);
+        lastDurationMs.set(System.currentTimeMillis() - start);
+        lastRunAt.set(LocalDateTime.now());
+        if (swept > 0 || expiredOrders > 0) {
+            log.info("Marked {} timed-out payments as failed and expired {} unpaid orders in {} ms",
+                swept, expiredOrders, lastDurationMs.get());
+        }
+    }
+    
+    // 每个订单在自己的事务中加锁取消, 与时间轮触发重复时只生效一次
+    private int expireUnpaidOrders(int batchSize) {
+        LocalDateTime threshold = LocalDateTime.now().minusSeconds(expiryConfig.getUnpaidOrderTimeoutSeconds());
+        int expired = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = orderRepository.findUnpaidIdsBefore(threshold, afterId, PageRequest.of(0, batchSize));
+            for (Long id : ids) {
+                try {
+                    if (orderService.expireOrder(id) == OrderService.ExpiryResult.EXPIRED) {
+                        expired++;
+                    }
+                } catch (RuntimeException ex) {
+                    log.warn("Failed to expire order {}, retrying on next run", id, ex);
+                }
+            }
+            if (ids.size() < batchSize) {
+                return expired;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("nodeId", clusterLockService.getNodeId());
+        statistics.put("runs", runs.get());
+        statistics.put("skippedRuns", skippedRuns.get());
+        statistics.put("lastSwept", lastSwept.get());
+        statistics.put("totalSwept", totalSwept.get());
+        statistics.put("totalExpiredOrders", totalExpiredOrders.get());
+        statistics.put("lastDurationMs", lastDurationMs.get());
+        statistics.put("lastRunAt", lastRunAt.get());
+        return statistics;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
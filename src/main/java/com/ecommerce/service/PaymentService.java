@@ -5,10 +5,17 @@ import com.ecommerce.model.*;
 import com.ecommerce.repository.PaymentRepository;
 import com.ecommerce.config.PaymentConfig;
 import com.ecommerce.exception.*;
+import com.ecommerce.payment.GatewayCharge;
+import com.ecommerce.payment.GatewayResult;
+import com.ecommerce.payment.PaymentGatewayExecutor;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -26,21 +33,53 @@ public class PaymentService {
     @Autowired
     private PaymentConfig paymentConfig;
     
-    private static int paymentCounter = 0;
+    @Autowired
+    private PaymentGatewayExecutor gatewayExecutor;
+    
+    @Autowired
+    private ExpiryService expiryService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
     
+    // 网关调用不在事务内: 先短事务落库 PENDING 支付, 调用网关期间不占用数据库连接, 再短事务写回结果
+    // 每个订单只有一条支付记录, 其交易号就是网关幂等键: 重试沿用同一交易号, 上次网关实际已扣款时取回原结果而不会重复扣款
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PaymentResponse processPayment(Long orderId, String paymentMethod) {
         log.info("Processing payment for order: {}", orderId);
-        Order order = orderService.getOrder(orderId);
-        validatePayment(order);
+        Payment pending = transactionTemplate.execute(status -> {
+            // 锁住订单行: 与超时取消、并发的支付请求串行
+            Order order = orderService.getOrderForUpdate(orderId);
+            Payment existing = paymentRepository.findByOrderId(orderId).orElse(null);
+            validatePayment(order, existing, paymentMethod);
+            return existing == null ? createPayment(order, paymentMethod) : restartPayment(existing);
+        });
+        expiryService.schedulePayment(pending.getId(), pending.getPaymentDate());
         
-        Payment payment = createPayment(order, paymentMethod);
-        processPaymentLogic(payment, order);
+        GatewayResult result;
+        try {
+            result = gatewayExecutor.charge(new GatewayCharge(
+                pending.getTransactionId(), orderId, pending.getAmount(), pending.getPaymentMethod()));
+        } catch (ServiceUnavailableException ex) {
+            // 超时或网关错误时网关侧可能已经扣款, 结果未知: 支付保持 PENDING (超时后由过期处理标记失败), 客户端通过重试接口取回真实结果
+            transactionTemplate.executeWithoutResult(status -> recordGatewayError(pending.getId(), ex.getMessage()));
+            throw ex;
+        }
         
+        Payment payment = transactionTemplate.execute(status -> processPaymentLogic(pending.getId(), orderId, result));
+        expiryService.cancelPayment(pending.getId());
         log.info("Payment processed for order: {}, status: {}", orderId, payment.getStatus());
         return createPaymentResponse(payment);
     }
     
-    private void validatePayment(Order order) {
+    private void validatePayment(Order order, Payment existing, String paymentMethod) {
         if (order.getStatus() != OrderStatus.PENDING) {
             throw new PaymentException("Order is not in PENDING status");
         }
@@ -49,16 +88,28 @@ public class PaymentService {
             throw new PaymentException("Order amount exceeds maximum allowed payment");
         }
         
-        paymentRepository.findByOrderId(order.getId())
-            .ifPresent(existingPayment -> {
-                if (existingPayment.getStatus() == PaymentStatus.PENDING) {
-                    LocalDateTime timeout = existingPayment.getPaymentDate()
-                        .plusSeconds(paymentConfig.getTimeoutSeconds());
-                    if (LocalDateTime.now().isBefore(timeout)) {
-                        throw new PaymentException("Previous payment is still processing");
-                    }
-                }
-            });
+        if (existing == null) {
+            return;
+        }
+        if (isInFlight(existing)) {
+            throw new PaymentException("Previous payment is still processing");
+        }
+        if (existing.getAttempts() >= paymentConfig.getMaxRetries()) {
+            throw new PaymentException("Maximum retry attempts exceeded");
+        }
+        // 幂等键绑定了原支付方式, 换方式提交会被网关当作冲突请求
+        if (!existing.getPaymentMethod().equals(paymentMethod)) {
+            throw new PaymentException("Retry must use the original payment method");
+        }
+    }
+    
+    // 已提交网关且尚未超时、也没有记录网关错误的支付
+    private boolean isInFlight(Payment payment) {
+        if (payment.getStatus() != PaymentStatus.PENDING || payment.getFailureReason() != null) {
+            return false;
+        }
+        LocalDateTime timeout = payment.getPaymentDate().plusSeconds(paymentConfig.getTimeoutSeconds());
+        return LocalDateTime.now().isBefore(timeout);
     }
     
     private Payment createPayment(Order order, String paymentMethod) {
@@ -72,35 +123,57 @@ public class PaymentService {
         return paymentRepository.save(payment);
     }
     
-    private void processPaymentLogic(Payment payment, Order order) {
-        paymentCounter++;
-        if (paymentCounter % 3 == 0) {
+    // 重试复用原记录和原交易号, 只重置状态和超时起点
+    private Payment restartPayment(Payment payment) {
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setFailureReason(null);
+        payment.setPaymentDate(LocalDateTime.now());
+        payment.setAttempts(payment.getAttempts() + 1);
+        return paymentRepository.save(payment);
+    }
+    
+    private Payment processPaymentLogic(Long paymentId, Long orderId, GatewayResult result) {
+        Payment payment = getPayment(paymentId);
+        Order order = orderService.getOrderForUpdate(orderId);
+        if (order.getStatus() != OrderStatus.PENDING) {
+            // 调用网关期间用户取消了订单: 不再改订单状态, 已扣款的支付记为 CANCELLED 等待退款
+            payment.setStatus(result.isApproved() ? PaymentStatus.CANCELLED : PaymentStatus.FAILED);
+            payment.setFailureReason(result.isApproved()
+                ? "Order " + order.getStatus() + " before charge " + result.getReference() + " completed, refund required"
+                : result.getFailureReason());
+            log.warn("Payment result for order {} arrived after it became {}", orderId, order.getStatus());
+        } else if (!result.isApproved()) {
             payment.setStatus(PaymentStatus.FAILED);
-            payment.setFailureReason("Payment declined by bank");
-            order.setStatus(OrderStatus.CANCELLED);
-            log.warn("Payment failed for order: {}", order.getId());
+            payment.setFailureReason(result.getFailureReason());
+            orderService.updateOrderStatus(orderId, OrderStatus.CANCELLED);
+            log.warn("Payment failed for order: {}", orderId);
         } else {
             payment.setStatus(PaymentStatus.SUCCESS);
-            order.setStatus(OrderStatus.PAID);
-            log.info("Payment successful for order: {}", order.getId());
+            orderService.updateOrderStatus(orderId, OrderStatus.PAID);
+            log.info("Payment successful for order: {}", orderId);
         }
-        
-        orderService.updateOrderStatus(order.getId(), order.getStatus());
+        return paymentRepository.save(payment);
+    }
+    
+    private void recordGatewayError(Long paymentId, String reason) {
+        Payment payment = getPayment(paymentId);
+        if (payment.getStatus() != PaymentStatus.PENDING) {
+            return;
+        }
+        payment.setFailureReason(reason);
         paymentRepository.save(payment);
+        log.warn("Payment {} outcome unknown: {}", paymentId, reason);
     }
     
+    // 可重试: 明确失败 (含超时被标记失败), 或上次调用网关出错、结果未知
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PaymentResponse retryPayment(Long orderId, String paymentMethod) {
         log.info("Retrying payment for order: {}", orderId);
-        Order order = orderService.getOrder(orderId);
         Payment lastPayment = paymentRepository.findByOrderId(orderId)
             .orElseThrow(() -> new ResourceNotFoundException("No previous payment found"));
         
-        long retryCount = paymentRepository.countByOrderId(orderId);
-        if (retryCount >= paymentConfig.getMaxRetries()) {
-            throw new PaymentException("Maximum retry attempts exceeded");
-        }
-        
-        if (lastPayment.getStatus() != PaymentStatus.FAILED) {
+        boolean unresolved = lastPayment.getStatus() == PaymentStatus.PENDING && lastPayment.getFailureReason() != null;
+        if (lastPayment.getStatus() != PaymentStatus.FAILED && !unresolved) {
             throw new PaymentException("Previous payment was not failed");
         }
         
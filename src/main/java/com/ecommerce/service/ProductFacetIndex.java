@@ -0,0 +1,301 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 分类/品牌/价格区间的位图索引: 维度内取并集, 维度间取交集, 一次遍历得出各维度计数
+@Slf4j
+@Component
+public class ProductFacetIndex {
+    private static final BigDecimal[] PRICE_BOUNDARIES = {
+        new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("200"),
+        new BigDecimal("500"), new BigDecimal("1000")
+    };
+    private static final String[] PRICE_BUCKETS = {"0-50", "50-100", "100-200", "200-500", "500-1000", "1000+"};
+    private static final int NONE = -1;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // 商品 id 映射到紧凑的位图下标, 删除后的下标回收复用
+    private final Map<Long, Integer> slotByProduct = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long[] productBySlot = new long[1024];
+    private int[] categoryBySlot = new int[1024];
+    private int[] brandBySlot = new int[1024];
+    private int[] priceBucketBySlot = new int[1024];
+    private int nextSlot;
+    private final BitSet live = new BitSet();
+    
+    private final Dimension categories = new Dimension();
+    private final Dimension brands = new Dimension();
+    private final BitSet[] priceBuckets = new BitSet[PRICE_BUCKETS.length];
+    private volatile boolean ready;
+    
+    public ProductFacetIndex() {
+        for (int i = 0; i < priceBuckets.length; i++) {
+            priceBuckets[i] = new BitSet();
+        }
+    }
+    
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            for (Long productId : new ArrayList<>(slotByProduct.keySet())) {
+                removeSlot(productId);
+            }
+            productRepository.forEachProduct(this::addSlot);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built product facet index with {} products in {} ms",
+            slotByProduct.size(), System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isCounterChange()) {
+            return;
+        }
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            remove(event.getProductId());
+        } else {
+            index(event.getProduct());
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(product.getId());
+            addSlot(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public Result query(Collection<String> categoryFilter, Collection<String> brandFilter,
+                        Collection<String> priceFilter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet categoryMatch = categories.union(categoryFilter);
+            BitSet brandMatch = brands.union(brandFilter);
+            BitSet priceMatch = priceUnion(priceFilter);
+            
+            // 每个维度的计数只应用其他维度的过滤条件, 选中某个分类时其余分类仍显示数量
+            BitSet categoryBase = intersect(brandMatch, priceMatch);
+            BitSet brandBase = intersect(categoryMatch, priceMatch);
+            BitSet priceBase = intersect(categoryMatch, brandMatch);
+            BitSet matches = intersect(categoryBase, categoryMatch);
+            
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put("category", categories.count(categoryBase, categoryBySlot));
+            facets.put("brand", brands.count(brandBase, brandBySlot));
+            facets.put("price", countPriceBuckets(priceBase));
+            
+            // 下标会回收复用, 位图顺序不等于商品顺序; 按商品 id 排序后再分页, 翻页结果稳定
+            long[] matchedIds = new long[matches.cardinality()];
+            int count = 0;
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                matchedIds[count++] = productBySlot[slot];
+            }
+            Arrays.sort(matchedIds);
+            List<Long> productIds = new ArrayList<>(Math.max(0, Math.min(limit, count - offset)));
+            for (int i = Math.max(0, offset); i < count && productIds.size() < limit; i++) {
+                productIds.add(matchedIds[i]);
+            }
+            return new Result(productIds, count, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    static int priceBucket(BigDecimal price) {
+        if (price == null) {
+            return NONE;
+        }
+        for (int i = 0; i < PRICE_BOUNDARIES.length; i++) {
+            if (price.compareTo(PRICE_BOUNDARIES[i]) < 0) {
+                return i;
+            }
+        }
+        return PRICE_BOUNDARIES.length;
+    }
+    
+    private void addSlot(Product product) {
+        int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+        ensureCapacity(slot);
+        
+        productBySlot[slot] = product.getId();
+        categoryBySlot[slot] = categories.add(product.getCategory(), slot);
+        brandBySlot[slot] = brands.add(product.getBrand(), slot);
+        priceBucketBySlot[slot] = priceBucket(product.getPrice());
+        if (priceBucketBySlot[slot] != NONE) {
+            priceBuckets[priceBucketBySlot[slot]].set(slot);
+        }
+        live.set(slot);
+        slotByProduct.put(product.getId(), slot);
+    }
+    
+    private void removeSlot(Long productId) {
+        Integer slot = slotByProduct.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        categories.remove(categoryBySlot[slot], slot);
+        brands.remove(brandBySlot[slot], slot);
+        if (priceBucketBySlot[slot] != NONE) {
+            priceBuckets[priceBucketBySlot[slot]].clear(slot);
+        }
+        live.clear(slot);
+        freeSlots.push(slot);
+    }
+    
+    private void ensureCapacity(int slot) {
+        if (slot < productBySlot.length) {
+            return;
+        }
+        int capacity = Math.max(slot + 1, productBySlot.length * 2);
+        productBySlot = Arrays.copyOf(productBySlot, capacity);
+        categoryBySlot = Arrays.copyOf(categoryBySlot, capacity);
+        brandBySlot = Arrays.copyOf(brandBySlot, capacity);
+        priceBucketBySlot = Arrays.copyOf(priceBucketBySlot, capacity);
+    }
+    
+    // 未指定过滤条件时返回 null, 表示不限制
+    private BitSet priceUnion(Collection<String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return null;
+        }
+        BitSet union = new BitSet();
+        for (String label : labels) {
+            int bucket = Arrays.asList(PRICE_BUCKETS).indexOf(label);
+            if (bucket >= 0) {
+                union.or(priceBuckets[bucket]);
+            }
+        }
+        return union;
+    }
+    
+    private BitSet intersect(BitSet first, BitSet second) {
+        BitSet result = (BitSet) live.clone();
+        if (first != null) {
+            result.and(first);
+        }
+        if (second != null) {
+            result.and(second);
+        }
+        return result;
+    }
+    
+    private Map<String, Integer> countPriceBuckets(BitSet base) {
+        int[] counts = new int[PRICE_BUCKETS.length];
+        for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+            if (priceBucketBySlot[slot] != NONE) {
+                counts[priceBucketBySlot[slot]]++;
+            }
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                result.put(PRICE_BUCKETS[i], counts[i]);
+            }
+        }
+        return result;
+    }
+    
+    // 单个维度: 取值字典编码, 每个取值一个位图
+    private static class Dimension {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<BitSet> bitmaps = new ArrayList<>();
+        
+        int add(String value, int slot) {
+            if (value == null) {
+                return NONE;
+            }
+            int code = codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                bitmaps.add(new BitSet());
+                return values.size() - 1;
+            });
+            bitmaps.get(code).set(slot);
+            return code;
+        }
+        
+        void remove(int code, int slot) {
+            if (code != NONE) {
+                bitmaps.get(code).clear(slot);
+            }
+        }
+        
+        BitSet union(Collection<String> filter) {
+            if (filter == null || filter.isEmpty()) {
+                return null;
+            }
+            BitSet union = new BitSet();
+            for (String value : filter) {
+                Integer code = codes.get(value);
+                if (code != null) {
+                    union.or(bitmaps.get(code));
+                }
+            }
+            return union;
+        }
+        
+        Map<String, Integer> count(BitSet base, int[] codeBySlot) {
+            int[] counts = new int[values.size()];
+            for (int slot = base.nextSetBit(0); slot >= 0; slot = base.nextSetBit(slot + 1)) {
+                if (codeBySlot[slot] != NONE) {
+                    counts[codeBySlot[slot]]++;
+                }
+            }
+            Map<String, Integer> result = new TreeMap<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) {
+                    result.put(values.get(code), counts[code]);
+                }
+            }
+            return result;
+        }
+    }
+    
+    @Value
+    public static class Result {
+        List<Long> productIds;
+        int total;
+        Map<String, Map<String, Integer>> facets;
+    }
+}
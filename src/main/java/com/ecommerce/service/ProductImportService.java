@@ -0,0 +1,363 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ProductImportConfig;
+import com.ecommerce.dto.DataFormat;
+import com.ecommerce.dto.ProductImportRequest;
+import com.ecommerce.dto.ProductImportResult;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.exception.BusinessException;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.ecommerce.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 商品批量导入 (CSV / NDJSON)。
+ *
+ * 请求体按行流式读取, 每 batchSize 行交给 ForkJoinPool 解析和校验, 按读取顺序取回结果后
+ * 在独立事务中用 JDBC batch 写入: 带 id 的行更新 (省略的可选字段保留原值, 秒杀商品的库存经内存账本设定),
+ * 其余插入。同时在途的批次数有上限, 内存占用
+ * 与文件大小无关。单行错误只记录行号和原因, 不影响其他行; 批次写入失败时整批回滚并记为失败。
+ * 导入期间不发布逐行的 ProductChangedEvent, 完成后发布一次 ProductsImportedEvent 整体刷新索引和缓存。
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+    @Autowired
+    private ProductImportConfig importConfig;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+    
+    private ForkJoinPool pool;
+    private TransactionTemplate batchTemplate;
+    private final AtomicReference<Progress> running = new AtomicReference<>();
+    private volatile Progress last;
+    
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Math.max(1, importConfig.getParallelism()));
+        batchTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+    
+    public ProductImportResult importProducts(InputStream in, DataFormat format) throws IOException {
+        Progress progress = new Progress();
+        if (!running.compareAndSet(null, progress)) {
+            throw new BusinessException("Another product import is already running");
+        }
+        ProductImportResult result = new ProductImportResult();
+        try {
+            runPipeline(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), format, progress, result);
+        } finally {
+            progress.finishedAt = LocalDateTime.now();
+            last = progress;
+            running.set(null);
+            // 中途失败时已提交的批次同样需要刷新
+            if (progress.inserted.get() + progress.updated.get() > 0) {
+                eventPublisher.publishEvent(new ProductsImportedEvent(progress.inserted.get(), progress.updated.get()));
+            }
+        }
+        
+        result.setProcessed(progress.processed.get());
+        result.setInserted(progress.inserted.get());
+        result.setUpdated(progress.updated.get());
+        result.setFailed(progress.failed.get());
+        result.setDurationMs(Duration.between(progress.startedAt, progress.finishedAt).toMillis());
+        log.info("Imported products: {} inserted, {} updated, {} failed in {} ms",
+            result.getInserted(), result.getUpdated(), result.getFailed(), result.getDurationMs());
+        return result;
+    }
+    
+    // 当前导入的进度, 没有进行中的导入时返回上一次的结果
+    public Map<String, Object> getProgress() {
+        Progress current = running.get();
+        Progress progress = current != null ? current : last;
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("running", current != null);
+        if (progress != null) {
+            statistics.put("startedAt", progress.startedAt);
+            statistics.put("finishedAt", progress.finishedAt);
+            statistics.put("processed", progress.processed.get());
+            statistics.put("inserted", progress.inserted.get());
+            statistics.put("updated", progress.updated.get());
+            statistics.put("failed", progress.failed.get());
+        }
+        return statistics;
+    }
+    
+    private void runPipeline(BufferedReader reader, DataFormat format, Progress progress, ProductImportResult result) throws IOException {
+        int batchSize = Math.max(1, importConfig.getBatchSize());
+        int maxInFlight = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<List<Row>>> inFlight = new ArrayDeque<>();
+        Map<String, Integer> columns = null;
+        List<Row> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == DataFormat.CSV && columns == null) {
+                    columns = parseHeader(line);
+                    continue;
+                }
+                batch.add(new Row(lineNumber, line));
+                if (batch.size() == batchSize) {
+                    inFlight.add(submit(batch, format, columns));
+                    batch = new ArrayList<>(batchSize);
+                    if (inFlight.size() > maxInFlight) {
+                        write(inFlight.poll().join(), progress, result);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight.add(submit(batch, format, columns));
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll().join(), progress, result);
+            }
+        } finally {
+            inFlight.forEach(task -> task.cancel(true));
+        }
+    }
+    
+    private ForkJoinTask<List<Row>> submit(List<Row> rows, DataFormat format, Map<String, Integer> columns) {
+        return pool.submit(() -> {
+            for (Row row : rows) {
+                parse(row, format, columns);
+            }
+            return rows;
+        });
+    }
+    
+    private void parse(Row row, DataFormat format, Map<String, Integer> columns) {
+        try {
+            ProductImportRequest request = format == DataFormat.CSV
+                ? fromCsv(parseCsvLine(row.text), columns)
+                : objectMapper.readValue(row.text, ProductImportRequest.class);
+            Set<ConstraintViolation<ProductImportRequest>> violations =
+                request == null ? Set.of() : validator.validate(request);
+            if (request == null) {
+                row.error = "Row is not a JSON object";
+            } else if (violations.isEmpty()) {
+                row.request = request;
+            } else {
+                row.error = violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining("; "));
+            }
+        } catch (JsonProcessingException ex) {
+            row.error = "Malformed JSON: " + ex.getOriginalMessage();
+        } catch (IllegalArgumentException ex) {
+            row.error = ex.getMessage();
+        }
+        row.text = null;
+    }
+    
+    private void write(List<Row> rows, Progress progress, ProductImportResult result) {
+        List<Row> inserts = new ArrayList<>();
+        List<Row> updates = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.error != null) {
+                fail(row, row.error, progress, result);
+            } else if (row.request.getId() == null) {
+                inserts.add(row);
+            } else {
+                updates.add(row);
+            }
+        }
+        
+        try {
+            int[] updated = batchTemplate.execute(status -> {
+                if (!inserts.isEmpty()) {
+                    productRepository.insertAll(inserts.stream().map(row -> row.request).toList());
+                }
+                routeLedgerStock(updates, progress, result);
+                return updates.isEmpty() ? new int[0] : productRepository.updateAll(updates.stream().map(row -> row.request).toList());
+            });
+            progress.inserted.addAndGet(inserts.size());
+            for (int i = 0; i < updates.size(); i++) {
+                if (updated[i] == 0) {
+                    fail(updates.get(i), "Product not found with id: " + updates.get(i).request.getId(), progress, result);
+                } else {
+                    progress.updated.incrementAndGet();
+                }
+            }
+        } catch (DataAccessException ex) {
+            String message = "Batch rejected: " + NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            log.warn("Product import batch starting at line {} failed", rows.get(0).line, ex);
+            inserts.forEach(row -> fail(row, message, progress, result));
+            updates.forEach(row -> fail(row, message, progress, result));
+        }
+        progress.processed.addAndGet(rows.size());
+    }
+    
+    // 秒杀商品的库存由内存账本持有: 经账本设定 (随事务提交生效), 不写库存列; 账本在其他节点时该行失败
+    private void routeLedgerStock(List<Row> updates, Progress progress, ProductImportResult result) {
+        for (Iterator<Row> rows = updates.iterator(); rows.hasNext(); ) {
+            Row row = rows.next();
+            try {
+                if (inventoryLedgerService.setStock(row.request.getId(), row.request.getStock())) {
+                    row.request.setStock(null);
+                }
+            } catch (ServiceUnavailableException ex) {
+                fail(row, ex.getMessage(), progress, result);
+                rows.remove();
+            }
+        }
+    }
+    
+    private void fail(Row row, String message, Progress progress, ProductImportResult result) {
+        progress.failed.incrementAndGet();
+        if (result.getErrors().size() < importConfig.getMaxReportedErrors()) {
+            result.getErrors().add(new ProductImportResult.RowError(row.line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+    
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> names = parseCsvLine(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name")) {
+            throw new BusinessException("CSV header must include a 'name' column");
+        }
+        return columns;
+    }
+    
+    private static ProductImportRequest fromCsv(List<String> values, Map<String, Integer> columns) {
+        ProductImportRequest request = new ProductImportRequest();
+        String id = column(values, columns, "id");
+        request.setId(id == null ? null : parseNumber(id, "id", Long::valueOf));
+        request.setName(column(values, columns, "name"));
+        request.setDescription(column(values, columns, "description"));
+        String price = column(values, columns, "price");
+        request.setPrice(price == null ? null : parseNumber(price, "price", BigDecimal::new));
+        String stock = column(values, columns, "stock");
+        request.setStock(stock == null ? null : parseNumber(stock, "stock", Integer::valueOf));
+        request.setCategory(column(values, columns, "category"));
+        request.setBrand(column(values, columns, "brand"));
+        return request;
+    }
+    
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+    
+    private static <T> T parseNumber(String value, String column, Function<String, T> parser) {
+        try {
+            return parser.apply(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid number in column '" + column + "': " + value);
+        }
+    }
+    
+    // RFC 4180 的单行子集: 逗号分隔, 双引号包裹的字段可包含逗号, "" 表示引号; 不支持跨行字段
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+    
+    private static class Row {
+        final long line;
+        String text;
+        ProductImportRequest request;
+        String error;
+        
+        Row(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+    
+    private static class Progress {
+        final LocalDateTime startedAt = LocalDateTime.now();
+        volatile LocalDateTime finishedAt;
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+
+// 搜索和筛选索引在每个节点的内存中各有一份: 本节点提交的商品变更经 Redis pub/sub 通知其他节点,
+// 收到通知的节点按 id 从数据库重新加载该商品; 通知丢失时以下次重启或批量导入后的全量重建兜底
+@Slf4j
+@Component
+public class ProductIndexSynchronizer implements MessageListener {
+    private static final String SEPARATOR = "|";
+    private static final String REBUILD = "*";
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductFacetIndex facetIndex;
+    
+    @Value("${product-index.channel:product-index:changes}")
+    private String channel;
+    
+    public String getChannel() {
+        return channel;
+    }
+    
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isCounterChange()) {
+            publish(String.valueOf(event.getProductId()));
+        }
+    }
+    
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        publish(REBUILD);
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 2);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (REBUILD.equals(parts[1])) {
+            searchIndex.rebuild();
+            facetIndex.rebuild();
+            return;
+        }
+        Long productId;
+        try {
+            productId = Long.valueOf(parts[1]);
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring malformed product index message: {}", parts[1]);
+            return;
+        }
+        Optional<Product> product = productRepository.findById(productId);
+        if (product.isPresent()) {
+            searchIndex.index(product.get());
+            facetIndex.index(product.get());
+        } else {
+            searchIndex.remove(productId);
+            facetIndex.remove(productId);
+        }
+    }
+    
+    private void publish(String target) {
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + SEPARATOR + target);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to publish product index change for {}", target, ex);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 进程内商品倒排索引: 名称/品牌/分类/描述分词, 末尾词前缀匹配, BM25 打分
+@Slf4j
+@Component
+public class ProductSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    // 字段权重: 命中名称比命中描述更相关
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    
+    // 文档按紧凑下标存放, 倒排表中只存 int 下标; 删除后的下标回收复用
+    private final Map<Long, Integer> slotByProduct = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long[] productBySlot = new long[1024];
+    private int[] lengthBySlot = new int[1024];
+    private String[][] termsBySlot = new String[1024][];
+    private int nextSlot;
+    private long totalLength;
+    private volatile boolean ready;
+    
+    // 启动时及批量导入完成后全量重建
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            clear();
+            productRepository.forEachProduct(this::add);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built product search index with {} documents in {} ms",
+            slotByProduct.size(), System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isCounterChange()) {
+            return;
+        }
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            remove(event.getProductId());
+        } else {
+            index(event.getProduct());
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public Hits search(String query, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new Hits(Collections.emptyList(), 0);
+        }
+        boolean prefixLastToken = !Character.isWhitespace(query.charAt(query.length() - 1));
+        
+        lock.readLock().lock();
+        try {
+            if (slotByProduct.isEmpty()) {
+                return new Hits(Collections.emptyList(), 0);
+            }
+            double averageLength = (double) totalLength / slotByProduct.size();
+            Scores scores = new Scores(nextSlot);
+            
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                if (i == tokens.size() - 1 && prefixLastToken && token.length() >= MIN_PREFIX_LENGTH) {
+                    int expansions = 0;
+                    for (Postings termPostings : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                        if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        score(termPostings, averageLength, scores);
+                    }
+                } else {
+                    Postings termPostings = postings.get(token);
+                    if (termPostings != null) {
+                        score(termPostings, averageLength, scores);
+                    }
+                }
+            }
+            return new Hits(topHits(scores, offset, limit), scores.count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                // 中文按单字切分
+                flush(current, tokens);
+                tokens.add(String.valueOf(c));
+            } else if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else {
+                flush(current, tokens);
+            }
+        }
+        flush(current, tokens);
+        return tokens;
+    }
+    
+    private static void flush(StringBuilder current, List<String> tokens) {
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+            current.setLength(0);
+        }
+    }
+    
+    private void clear() {
+        postings.clear();
+        slotByProduct.clear();
+        freeSlots.clear();
+        nextSlot = 0;
+        totalLength = 0;
+    }
+    
+    private void add(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addField(product.getName(), NAME_WEIGHT, frequencies);
+        addField(product.getBrand(), BRAND_WEIGHT, frequencies);
+        addField(product.getCategory(), CATEGORY_WEIGHT, frequencies);
+        addField(product.getDescription(), DESCRIPTION_WEIGHT, frequencies);
+        
+        int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+        ensureCapacity(slot);
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(slot, entry.getValue());
+            length += entry.getValue();
+        }
+        productBySlot[slot] = product.getId();
+        lengthBySlot[slot] = length;
+        termsBySlot[slot] = frequencies.keySet().toArray(new String[0]);
+        slotByProduct.put(product.getId(), slot);
+        totalLength += length;
+    }
+    
+    private void addField(String value, int weight, Map<String, Integer> frequencies) {
+        for (String token : tokenize(value)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+    
+    private void removeDocument(Long productId) {
+        Integer slot = slotByProduct.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        for (String term : termsBySlot[slot]) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(slot);
+                if (termPostings.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= lengthBySlot[slot];
+        termsBySlot[slot] = null;
+        freeSlots.push(slot);
+    }
+    
+    private void ensureCapacity(int slot) {
+        if (slot < productBySlot.length) {
+            return;
+        }
+        int capacity = Math.max(slot + 1, productBySlot.length * 2);
+        productBySlot = Arrays.copyOf(productBySlot, capacity);
+        lengthBySlot = Arrays.copyOf(lengthBySlot, capacity);
+        termsBySlot = Arrays.copyOf(termsBySlot, capacity);
+    }
+    
+    private void score(Postings termPostings, double averageLength, Scores scores) {
+        int documentCount = slotByProduct.size();
+        int documentFrequency = termPostings.size;
+        double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        
+        for (int i = 0; i < termPostings.size; i++) {
+            int slot = termPostings.slots[i];
+            int termFrequency = termPostings.frequencies[i];
+            double norm = termFrequency + K1 * (1 - B + B * lengthBySlot[slot] / averageLength);
+            scores.add(slot, idf * termFrequency * (K1 + 1) / norm);
+        }
+    }
+    
+    private List<Hit> topHits(Scores scores, int offset, int limit) {
+        int keep = offset + limit;
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::getScore)
+            .thenComparing(Hit::getProductId, Comparator.reverseOrder());
+        PriorityQueue<Hit> heap = new PriorityQueue<>(keep + 1, ranking);
+        
+        for (int i = 0; i < scores.count; i++) {
+            int slot = scores.touched[i];
+            heap.offer(new Hit(productBySlot[slot], scores.values[slot]));
+            if (heap.size() > keep) {
+                heap.poll();
+            }
+        }
+        
+        List<Hit> ranked = new ArrayList<>(heap);
+        ranked.sort(ranking.reversed());
+        return offset >= ranked.size() ? Collections.emptyList() : ranked.subList(offset, ranked.size());
+    }
+    
+    // 单个词项的倒排表: 文档下标与词频并列存放, 删除时用末尾元素填补空位
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        
+        void add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size++] = frequency;
+        }
+        
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+    
+    // 单次查询的打分累加器: 按文档下标的稠密数组, 另记命中过的下标供取 top-k; BM25 分值恒为正, 0 表示未命中
+    private static final class Scores {
+        private final double[] values;
+        private int[] touched = new int[16];
+        private int count;
+        
+        Scores(int capacity) {
+            values = new double[capacity];
+        }
+        
+        void add(int slot, double score) {
+            if (values[slot] == 0) {
+                if (count == touched.length) {
+                    touched = Arrays.copyOf(touched, count * 2);
+                }
+                touched[count++] = slot;
+            }
+            values[slot] += score;
+        }
+    }
+    
+    @Value
+    public static class Hit {
+        long productId;
+        double score;
+    }
+    
+    @Value
+    public static class Hits {
+        List<Hit> hits;
+        int total;
+    }
+}
@@ -1,23 +1,43 @@
 package com.ecommerce.service;
 
+import com.ecommerce.cache.ProductCacheInvalidator;
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.PageCursor;
+import com.ecommerce.dto.ProductFacetResult;
+import com.ecommerce.dto.ProductSearchResult;
+import com.ecommerce.event.ProductChangedEvent;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.exception.InsufficientStockException;
 import com.ecommerce.exception.BusinessException;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -26,9 +46,29 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductFacetIndex facetIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     @Value("${file.upload-dir}")
     private String uploadDir;
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
@@ -38,25 +78,88 @@ public class ProductService {
             .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
     
+    // 只读展示用, 返回的实例可能被多个请求共享, 需要修改商品时使用 getProduct
+    @Cacheable(value = ProductCacheInvalidator.PRODUCTS, key = "#id")
+    @Transactional(readOnly = true)
+    public Product findProduct(Long id) {
+        return getProduct(id);
+    }
+    
+    @Cacheable(value = ProductCacheInvalidator.PRODUCTS_BY_CATEGORY, key = "#category")
+    @Transactional(readOnly = true)
     public List<Product> getProductsByCategory(String category) {
         return productRepository.findByCategory(category);
     }
     
     public Product updateStock(Long productId, Integer quantity) {
         Product product = getProduct(productId);
+        if (inventoryLedgerService.adjustStock(productId, quantity)) {
+            // 秒杀商品的库存由内存账本持有, 库存列在下次回写时更新
+            log.info("Adjusted ledger stock for product {} by {}", productId, quantity);
+            return product;
+        }
         int newStock = product.getStock() + quantity;
         
         if (newStock < 0) {
             throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
         }
         
-        product.setStock(newStock);
         log.info("Updated stock for product {}: {} -> {}", productId, product.getStock(), newStock);
-        return productRepository.save(product);
+        product.setStock(newStock);
+        Product savedProduct = productRepository.save(product);
+        publishStockChanged(productId);
+        return savedProduct;
+    }
+    
+    public void reserveStock(Map<Long, Integer> quantities) {
+        // 按商品 id 排序, 保证并发下单时行锁获取顺序一致, 避免死锁
+        Map<Long, Integer> orderedQuantities = new TreeMap<>(quantities);
+        int[] updated = productRepository.decrementStock(orderedQuantities);
+        
+        int index = 0;
+        for (Long productId : orderedQuantities.keySet()) {
+            if (updated[index++] != 1) {
+                // 抛出异常回滚整个事务, 已扣减的行一并撤销; 商品已被删除时用 id 代替名称, 仍报库存不足
+                String product = productRepository.findById(productId).map(Product::getName).orElse("#" + productId);
+                throw new InsufficientStockException("Insufficient stock for product: " + product);
+            }
+        }
+        orderedQuantities.keySet().forEach(this::publishStockChanged);
+        log.info("Reserved stock for {} products", orderedQuantities.size());
+    }
+    
+    public void releaseStock(Long productId, Integer quantity) {
+        if (productRepository.incrementStock(productId, quantity) == 0) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        publishStockChanged(productId);
+        log.info("Released {} units of stock for product {}", quantity, productId);
+    }
+    
+    private void publishStockChanged(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.Type.STOCK_CHANGED, null));
+    }
+    
+    // 评分聚合在数据库中原子增减, 开销与商品的评价数量无关; addedRating/removedRating 为 0 表示无
+    // 批量更新不刷新已加载的实体, 同一事务内不要再修改并保存该商品, 以免覆盖新的聚合值
+    public void applyRatingChange(Long productId, int addedRating, int removedRating) {
+        int countDelta = (addedRating > 0 ? 1 : 0) - (removedRating > 0 ? 1 : 0);
+        if (productRepository.applyRatingChange(productId, addedRating - removedRating, countDelta, addedRating, removedRating) == 0) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.Type.RATING_CHANGED, null));
+    }
+    
+    public int rebuildRatingAggregates() {
+        int updated = productRepository.rebuildRatingAggregates();
+        log.info("Rebuilt rating aggregates for {} products", updated);
+        return updated;
     }
     
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), ProductChangedEvent.Type.CREATED, savedProduct));
+        return savedProduct;
     }
     
     public Product updateProduct(Long id, Product productDetails) {
@@ -64,15 +167,20 @@ public class ProductService {
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
-        product.setStock(productDetails.getStock());
+        if (!inventoryLedgerService.setStock(id, productDetails.getStock())) {
+            product.setStock(productDetails.getStock());
+        }
         product.setCategory(productDetails.getCategory());
         product.setBrand(productDetails.getBrand());
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.UPDATED, savedProduct));
+        return savedProduct;
     }
     
     public void deleteProduct(Long id) {
         Product product = getProduct(id);
         productRepository.delete(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.DELETED, null));
     }
     
     public Product updateProductImage(Long id, MultipartFile file) {
@@ -95,7 +203,9 @@ public class ProductService {
             
             product.setImageUrl("/uploads/" + filename);
             log.info("Updated image for product {}: {}", id, filename);
-            return productRepository.save(product);
+            Product savedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Type.UPDATED, savedProduct));
+            return savedProduct;
             
         } catch (IOException ex) {
             log.error("Failed to store file", ex);
@@ -103,12 +213,16 @@ public class ProductService {
         }
     }
     
+    @Cacheable(value = ProductCacheInvalidator.PRODUCTS_SORTED, key = "'price:' + #ascending")
+    @Transactional(readOnly = true)
     public List<Product> getProductsSortedByPrice(boolean ascending) {
         return ascending ? 
             productRepository.findAllByOrderByPriceAsc() :
             productRepository.findAllByOrderByPriceDesc();
     }
     
+    @Cacheable(value = ProductCacheInvalidator.PRODUCTS_SORTED, key = "'name:' + #ascending")
+    @Transactional(readOnly = true)
     public List<Product> getProductsSortedByName(boolean ascending) {
         return ascending ? 
             productRepository.findAllByOrderByNameAsc() :
@@ -119,6 +233,52 @@ public class ProductService {
         return productRepository.findByNameContainingIgnoreCase(keyword);
     }
     
+    @Transactional(readOnly = true)
+    public ProductSearchResult searchProductsRanked(String keyword, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int offset = Math.max(0, page) * pageSize;
+        
+        // 索引尚未构建完成时退回到原有的名称模糊查询
+        if (!searchIndex.isReady()) {
+            List<Product> matches = productRepository.findByNameContainingIgnoreCase(keyword);
+            List<ProductSearchResult.Hit> hits = matches.stream()
+                .skip(offset)
+                .limit(pageSize)
+                .map(product -> new ProductSearchResult.Hit(product, 0.0))
+                .collect(Collectors.toList());
+            return new ProductSearchResult(hits, matches.size(), page, pageSize);
+        }
+        
+        ProductSearchIndex.Hits indexHits = searchIndex.search(keyword, offset, pageSize);
+        List<Long> ids = indexHits.getHits().stream()
+            .map(ProductSearchIndex.Hit::getProductId)
+            .collect(Collectors.toList());
+        List<Product> products = productRepository.findAllByIdInOrder(ids);
+        
+        // products 与命中同序, 索引中已删除的商品被跳过
+        List<ProductSearchResult.Hit> hits = new ArrayList<>(products.size());
+        int next = 0;
+        for (ProductSearchIndex.Hit hit : indexHits.getHits()) {
+            if (next < products.size() && products.get(next).getId() == hit.getProductId()) {
+                hits.add(new ProductSearchResult.Hit(products.get(next++), hit.getScore()));
+            }
+        }
+        return new ProductSearchResult(hits, indexHits.getTotal(), page, pageSize);
+    }
+    
+    @Transactional(readOnly = true)
+    public ProductFacetResult getFacetedProducts(Collection<String> categories, Collection<String> brands,
+                                                 Collection<String> priceRanges, int page, int size) {
+        if (!facetIndex.isReady()) {
+            throw new ServiceUnavailableException("Facet index is still loading", 5);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductFacetIndex.Result result = facetIndex.query(categories, brands, priceRanges,
+            Math.max(0, page) * pageSize, pageSize);
+        return new ProductFacetResult(productRepository.findAllByIdInOrder(result.getProductIds()),
+            result.getTotal(), result.getFacets());
+    }
+    
     public List<Product> getProductsByCategoryAndSort(String category, String sortBy, boolean ascending) {
         if ("price".equals(sortBy)) {
             return ascending ?
@@ -127,4 +287,75 @@ public class ProductService {
         }
         return productRepository.findByCategory(category);
     }
-} 
\ No newline at end of file
+    
+    @Transactional(readOnly = true)
+    public CursorPage<Product> getProductPage(String sortBy, boolean ascending, String category, String cursor, int size) {
+        String sortField = "price".equals(sortBy) || "name".equals(sortBy) ? sortBy : "id";
+        String direction = ascending ? "asc" : "desc";
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        
+        Comparable<?> lastValue = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = PageCursor.decode(cursor, 4);
+            if (!sortField.equals(parts[0]) || !direction.equals(parts[1])) {
+                throw new BusinessException("Page cursor does not match requested sort order");
+            }
+            try {
+                lastValue = parseSortValue(sortField, parts[2]);
+                lastId = Long.valueOf(parts[3]);
+            } catch (NumberFormatException ex) {
+                throw new BusinessException("Invalid page cursor");
+            }
+        }
+        
+        // 多取一条判断是否还有下一页
+        List<Product> products = productRepository.findPageAfter(sortField, ascending, category, lastValue, lastId, pageSize + 1);
+        boolean hasNext = products.size() > pageSize;
+        if (hasNext) {
+            products = products.subList(0, pageSize);
+        }
+        
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = products.get(products.size() - 1);
+            nextCursor = PageCursor.encode(sortField, direction, sortValueOf(sortField, last), last.getId());
+        }
+        return new CursorPage<>(products, nextCursor, hasNext);
+    }
+    
+    // 逐行写出 NDJSON, 每行写完即从持久化上下文 detach, 内存占用与商品总数无关
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream out) throws IOException {
+        try (Stream<Product> products = productRepository.streamAll()) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                out.write(objectMapper.writeValueAsBytes(product));
+                out.write('\n');
+                entityManager.detach(product);
+            }
+        }
+        out.flush();
+    }
+    
+    private Comparable<?> parseSortValue(String sortField, String value) {
+        switch (sortField) {
+            case "price":
+                return new BigDecimal(value);
+            case "name":
+                return value;
+            default:
+                return Long.valueOf(value);
+        }
+    }
+    
+    private Object sortValueOf(String sortField, Product product) {
+        switch (sortField) {
+            case "price":
+                return product.getPrice().toPlainString();
+            case "name":
+                return product.getName();
+            default:
+                return product.getId();
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.PageCursor;
+import com.ecommerce.dto.ReviewResponse;
+import com.ecommerce.dto.ReviewSummary;
+import com.ecommerce.exception.BusinessException;
+import com.ecommerce.model.RatingHistogram;
 import com.ecommerce.model.Review;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.ReviewRepository;
 import com.ecommerce.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -23,6 +33,10 @@ public class ReviewService {
     @Autowired
     private UserService userService;
     
+    private static final int MAX_PAGE_SIZE = 100;
+    // 按时间倒序的首页哨兵, 取各数据库 DATETIME 都能表示的最大值
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
     public Review addReview(String username, Long productId, Integer rating, String comment) {
         User user = userService.findByUsername(username);
         Product product = productService.getProduct(productId);
@@ -43,7 +57,7 @@ public class ReviewService {
         review.setCreatedAt(LocalDateTime.now());
         
         Review savedReview = reviewRepository.save(review);
-        updateProductRating(product);
+        productService.applyRatingChange(productId, rating, 0);
         
         return savedReview;
     }
@@ -60,11 +74,14 @@ public class ReviewService {
             throw new RuntimeException("Rating must be between 1 and 5");
         }
         
+        int previousRating = review.getRating();
         review.setRating(rating);
         review.setComment(comment);
         
         Review updatedReview = reviewRepository.save(review);
-        updateProductRating(review.getProduct());
+        if (previousRating != rating) {
+            productService.applyRatingChange(review.getProduct().getId(), rating, previousRating);
+        }
         
         return updatedReview;
     }
@@ -77,25 +94,8 @@ public class ReviewService {
             throw new RuntimeException("Unauthorized access to review");
         }
         
-        Product product = review.getProduct();
         reviewRepository.delete(review);
-        updateProductRating(product);
-    }
-    
-    private void updateProductRating(Product product) {
-        List<Review> reviews = reviewRepository.findByProduct(product);
-        if (reviews.isEmpty()) {
-            product.setAverageRating(0.0);
-            product.setReviewCount(0);
-        } else {
-            double avgRating = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
-            product.setAverageRating(avgRating);
-            product.setReviewCount(reviews.size());
-        }
-        productService.updateProduct(product.getId(), product);
+        productService.applyRatingChange(review.getProduct().getId(), 0, review.getRating());
     }
     
     public List<Review> getProductReviews(Long productId) {
@@ -103,6 +103,82 @@ public class ReviewService {
         return reviewRepository.findByProduct(product);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewResponse> getProductReviewPage(Long productId, String sort, String cursor, int size) {
+        productService.getProduct(productId);
+        String order = "highest".equals(sort) || "lowest".equals(sort) ? sort : "newest";
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        
+        String lastValue = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = PageCursor.decode(cursor, 3);
+            if (!order.equals(parts[0])) {
+                throw new BusinessException("Page cursor does not match requested sort order");
+            }
+            lastValue = parts[1];
+            try {
+                lastId = Long.valueOf(parts[2]);
+            } catch (NumberFormatException ex) {
+                throw new BusinessException("Invalid page cursor");
+            }
+        }
+        
+        List<ReviewResponse> reviews;
+        try {
+            switch (order) {
+                case "highest":
+                    reviews = reviewRepository.findHighestAfter(productId,
+                        lastValue == null ? 6 : Integer.valueOf(lastValue), lastId == null ? Long.MAX_VALUE : lastId, limit);
+                    break;
+                case "lowest":
+                    reviews = reviewRepository.findLowestAfter(productId,
+                        lastValue == null ? 0 : Integer.valueOf(lastValue), lastId == null ? 0L : lastId, limit);
+                    break;
+                default:
+                    reviews = reviewRepository.findNewestAfter(productId,
+                        lastValue == null ? LATEST : LocalDateTime.parse(lastValue),
+                        lastId == null ? Long.MAX_VALUE : lastId, limit);
+            }
+        } catch (NumberFormatException | DateTimeParseException ex) {
+            throw new BusinessException("Invalid page cursor");
+        }
+        
+        boolean hasNext = reviews.size() > pageSize;
+        if (hasNext) {
+            reviews = reviews.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            ReviewResponse last = reviews.get(reviews.size() - 1);
+            Object value = "newest".equals(order) ? last.getCreatedAt() : last.getRating();
+            nextCursor = PageCursor.encode(order, value, last.getId());
+        }
+        return new CursorPage<>(reviews, nextCursor, hasNext);
+    }
+    
+    // 直接读取商品上维护的评分聚合, 不扫描评价表
+    @Transactional(readOnly = true)
+    public ReviewSummary getReviewSummary(Long productId) {
+        Product product = productService.findProduct(productId);
+        RatingHistogram histogram = product.getRatingHistogram() == null ? new RatingHistogram() : product.getRatingHistogram();
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        counts.put(5, nullToZero(histogram.getFiveStars()));
+        counts.put(4, nullToZero(histogram.getFourStars()));
+        counts.put(3, nullToZero(histogram.getThreeStars()));
+        counts.put(2, nullToZero(histogram.getTwoStars()));
+        counts.put(1, nullToZero(histogram.getOneStar()));
+        return new ReviewSummary(productId,
+            product.getAverageRating() == null ? 0.0 : product.getAverageRating(),
+            nullToZero(product.getReviewCount()),
+            counts);
+    }
+    
+    private int nullToZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+    
     public List<Review> getUserReviews(String username) {
         User user = userService.findByUsername(username);
         return reviewRepository.findByUser(user);
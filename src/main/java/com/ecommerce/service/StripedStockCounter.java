@@ -0,0 +1,82 @@
+package com.ecommerce.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 分片库存计数器: 热点商品的库存拆到多个 CAS 槽位, 并发扣减分散到不同缓存行
+public class StripedStockCounter {
+    private static final int PADDING = 8; // 每个槽位占一个 64 字节缓存行
+    
+    private final int stripeCount;
+    private final AtomicLongArray stripes;
+    
+    public StripedStockCounter(long initialStock, int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        this.stripeCount = stripeCount;
+        this.stripes = new AtomicLongArray(stripeCount * PADDING);
+        for (int i = 0; i < stripeCount; i++) {
+            long share = initialStock / stripeCount + (i < initialStock % stripeCount ? 1 : 0);
+            stripes.set(i * PADDING, share);
+        }
+    }
+    
+    public boolean tryReserve(int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            int index = ((start + i) % stripeCount) * PADDING;
+            long current;
+            while ((current = stripes.get(index)) >= quantity) {
+                if (stripes.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        // 单个槽位不够时, 合并所有槽位再判断
+        return reserveFromAllStripes(quantity);
+    }
+    
+    public void release(int quantity) {
+        stripes.addAndGet(ThreadLocalRandom.current().nextInt(stripeCount) * PADDING, quantity);
+    }
+    
+    public long available() {
+        long total = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            total += stripes.get(i * PADDING);
+        }
+        return total;
+    }
+    
+    // 管理端直接设定库存: 收走当前余量并以新库存替换, 返回被替换的余量
+    public synchronized long reset(long stock) {
+        long drained = drain();
+        stripes.addAndGet(0, stock);
+        return drained;
+    }
+    
+    private synchronized boolean reserveFromAllStripes(int quantity) {
+        long total = drain();
+        if (total >= quantity) {
+            stripes.addAndGet(0, total - quantity);
+            return true;
+        }
+        stripes.addAndGet(0, total);
+        return false;
+    }
+    
+    // 逐个清空槽位; 清空过程中回补到已清空槽位的库存由下一轮收走, 直到一轮收不到为止
+    private long drain() {
+        long total = 0;
+        long collected;
+        do {
+            collected = 0;
+            for (int i = 0; i < stripeCount; i++) {
+                collected += stripes.getAndSet(i * PADDING, 0);
+            }
+            total += collected;
+        } while (collected > 0);
+        return total;
+    }
+}
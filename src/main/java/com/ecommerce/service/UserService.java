@@ -1,8 +1,10 @@
 package com.ecommerce.service;
 
+import com.ecommerce.event.UserTokensRevokedEvent;
 import com.ecommerce.model.User;
 import com.ecommerce.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +24,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     public User registerUser(User user) {
         if (userRepository.existsByUsername(user.getUsername())) {
             throw new BusinessException("Username already exists: " + user.getUsername());
@@ -61,10 +66,16 @@ public class UserService {
         }
         
         user.setEmail(userDetails.getEmail());
+        boolean revokeTokens = user.getRole() != userDetails.getRole();
         if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+            revokeTokens = true;
         }
         user.setRole(userDetails.getRole());
+        if (revokeTokens) {
+            user.setTokenVersion((user.getTokenVersion() == null ? 0 : user.getTokenVersion()) + 1);
+            eventPublisher.publishEvent(new UserTokensRevokedEvent(id));
+        }
         
         log.info("Updated user: {}", user.getUsername());
         return userRepository.save(user);
@@ -74,5 +85,6 @@ public class UserService {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("User not found"));
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserTokensRevokedEvent(id));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.config.AnalyticsConfig;
+import com.ecommerce.dto.ProductSalesRow;
+import com.ecommerce.dto.RevenueRow;
+import com.ecommerce.event.OrderCreatedEvent;
+import com.ecommerce.event.OrderStatusChangedEvent;
+import com.ecommerce.exception.BusinessException;
+import com.ecommerce.model.*;
+import com.ecommerce.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+
+@DataJpaTest
+@Import({AnalyticsService.class, AnalyticsConfig.class})
+class AnalyticsServiceTest {
+    private static final LocalDate TODAY = LocalDate.now();
+    
+    @Autowired
+    private AnalyticsService analyticsService;
+    
+    @Autowired
+    private AnalyticsConfig analyticsConfig;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @SpyBean
+    private OrderItemRepository orderItemRepository;
+    
+    private User user;
+    private Product phone;
+    private Product book;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        
+        phone = persistProduct("Phone", "Electronics", "Acme");
+        book = persistProduct("Novel", "Books", "Paper Co");
+        persistOrder(OrderStatus.PAID, phone, 2, "100.00");
+        persistOrder(OrderStatus.PENDING, book, 1, "10.00");
+        persistOrder(OrderStatus.CANCELLED, phone, 5, "100.00");
+        entityManager.flush();
+        
+        analyticsConfig.setEnabled(true);
+        analyticsService.reload();
+    }
+    
+    @Test
+    void reload_ShouldAggregateOrdersExcludingCancelled() {
+        // Act
+        List<RevenueRow> byCategory = analyticsService.getRevenueByCategory(null, null, null);
+        List<RevenueRow> daily = analyticsService.getDailyRevenue(TODAY, TODAY, null, null);
+        
+        // Assert
+        assertEquals(List.of("Electronics", "Books"), byCategory.stream().map(RevenueRow::getKey).toList());
+        assertEquals(0, new BigDecimal("200.00").compareTo(byCategory.get(0).getRevenue()));
+        assertEquals(1, daily.size());
+        assertEquals(0, new BigDecimal("210.00").compareTo(daily.get(0).getRevenue()));
+        assertEquals(3, daily.get(0).getUnits());
+        assertEquals(3, analyticsService.getStatistics().get("orders"));
+    }
+    
+    @Test
+    void onOrderCreated_ShouldAppendSnapshotTakenAtPublishTime() {
+        // Arrange: 事件发布后实体再被修改, 不影响已复制的快照
+        Order order = persistOrder(OrderStatus.PENDING, book, 30, "10.00");
+        OrderCreatedEvent event = OrderCreatedEvent.of(order);
+        order.getOrderItems().get(0).setQuantity(1);
+        
+        // Act
+        analyticsService.onOrderCreated(event);
+        List<ProductSalesRow> top = analyticsService.getTopProducts(null, null, null, null, 1);
+        
+        // Assert
+        assertEquals(book.getId(), top.get(0).getProductId());
+        assertEquals("Novel", top.get(0).getName());
+        assertEquals(31, top.get(0).getUnits());
+    }
+    
+    @Test
+    void onOrderStatusChanged_ToCancelled_ShouldRemoveRevenue() {
+        // Arrange
+        Long paidOrderId = entityManager.getEntityManager()
+            .createQuery("SELECT o.id FROM Order o WHERE o.status = :status", Long.class)
+            .setParameter("status", OrderStatus.PAID)
+            .getSingleResult();
+        
+        // Act
+        analyticsService.onOrderStatusChanged(new OrderStatusChangedEvent(paidOrderId, OrderStatus.CANCELLED));
+        
+        // Assert
+        List<RevenueRow> byCategory = analyticsService.getRevenueByCategory(null, null, null);
+        assertEquals(List.of("Books"), byCategory.stream().map(RevenueRow::getKey).toList());
+    }
+    
+    @Test
+    void reload_ShouldReplayStatusChangeArrivingDuringLoad() {
+        // Arrange: 快照已读出 PAID 之后才收到取消事件
+        Long paidOrderId = entityManager.getEntityManager()
+            .createQuery("SELECT o.id FROM Order o WHERE o.status = :status", Long.class)
+            .setParameter("status", OrderStatus.PAID)
+            .getSingleResult();
+        List<OrderLine> snapshot;
+        try (Stream<OrderLine> lines = orderItemRepository.streamOrderLines()) {
+            snapshot = lines.toList();
+        }
+        doAnswer(invocation -> {
+            analyticsService.onOrderStatusChanged(new OrderStatusChangedEvent(paidOrderId, OrderStatus.CANCELLED));
+            return snapshot.stream();
+        }).when(orderItemRepository).streamOrderLines();
+        
+        // Act
+        analyticsService.reload();
+        
+        // Assert: 加载期间旧列存照常服务, 事件在替换前重放到新列存
+        List<RevenueRow> byCategory = analyticsService.getRevenueByCategory(null, null, null);
+        assertEquals(List.of("Books"), byCategory.stream().map(RevenueRow::getKey).toList());
+    }
+    
+    @Test
+    void onOrderCreated_WhenDisabled_ShouldIgnoreEvent() {
+        // Arrange
+        analyticsConfig.setEnabled(false);
+        analyticsService.reload();
+        Order order = persistOrder(OrderStatus.PENDING, phone, 1, "100.00");
+        
+        // Act
+        analyticsService.onOrderCreated(OrderCreatedEvent.of(order));
+        
+        // Assert: 关闭后只有手动 reload 的数据, 事件不再写入
+        assertEquals(3, analyticsService.getStatistics().get("orders"));
+    }
+    
+    @Test
+    void getDailyRevenue_WithInvertedRange_ShouldReject() {
+        assertThrows(BusinessException.class,
+            () -> analyticsService.getDailyRevenue(TODAY, TODAY.minusDays(1), null, null));
+    }
+    
+    private Product persistProduct(String name, String category, String brand) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("1.00"));
+        product.setStock(100);
+        product.setCategory(category);
+        product.setBrand(brand);
+        return entityManager.persist(product);
+    }
+    
+    private Order persistOrder(OrderStatus status, Product product, int quantity, String price) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus(status);
+        order.setTotalAmount(new BigDecimal(price).multiply(BigDecimal.valueOf(quantity)));
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal(price));
+        order.getOrderItems().add(item);
+        return entityManager.persist(order);
+    }
+}
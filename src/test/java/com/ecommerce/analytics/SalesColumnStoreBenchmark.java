@@ -0,0 +1,83 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.analytics.SalesColumnStore.Dimension;
+import com.ecommerce.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// 1000 万合成订单项上的查询耗时, 默认不运行: mvn test -Dtest=SalesColumnStoreBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SalesColumnStoreBenchmark {
+    private static final int LINES = 10_000_000;
+    private static final int ROUNDS = 5;
+    
+    @Test
+    void benchmarkQueries() {
+        for (int parallelism : IntStream.of(1, Runtime.getRuntime().availableProcessors()).distinct().toArray()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                run(load(new SalesColumnStore(pool)), parallelism);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+    
+    private SalesColumnStore load(SalesColumnStore store) {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2022, 1, 1);
+        BigDecimal[] prices = new BigDecimal[1000];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+        }
+        long begin = System.nanoTime();
+        long orderId = 0;
+        int lines = 0;
+        while (lines < LINES) {
+            orderId++;
+            long userId = 1 + random.nextInt(200_000);
+            LocalDate day = start.plusDays(random.nextInt(1000));
+            int count = 1 + random.nextInt(5);
+            List<OrderLine> order = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int product = random.nextInt(50_000);
+                order.add(new OrderLine(orderId, userId, day.atStartOfDay(), OrderStatus.PAID, (long) product + 1,
+                    "category-" + product % 40, "brand-" + product % 300, 1 + random.nextInt(3), prices[product % prices.length]));
+            }
+            store.append(order);
+            lines += count;
+        }
+        System.out.printf("load: %,d lines in %d ms%n", store.size(), (System.nanoTime() - begin) / 1_000_000);
+        return store;
+    }
+    
+    private void run(SalesColumnStore store, int parallelism) {
+        int from = (int) LocalDate.of(2022, 6, 1).toEpochDay();
+        int to = (int) LocalDate.of(2023, 5, 31).toEpochDay();
+        time("daily, 1 year", parallelism, () -> store.aggregate(Dimension.DAY, from, to, null, null));
+        time("daily, 1 year, category filter", parallelism, () -> store.aggregate(Dimension.DAY, from, to, "category-7", null));
+        time("by category, all", parallelism, () -> store.aggregate(Dimension.CATEGORY, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null));
+        time("by brand, all", parallelism, () -> store.aggregate(Dimension.BRAND, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null));
+        time("by product, all", parallelism, () -> store.aggregate(Dimension.PRODUCT, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null));
+        time("cohorts, all", parallelism, () -> store.aggregate(Dimension.COHORT, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null));
+    }
+    
+    private void time(String name, int parallelism, Runnable query) {
+        query.run(); // 预热
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long begin = System.nanoTime();
+            query.run();
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        System.out.printf("%-32s parallelism=%d best=%.1f ms%n", name, parallelism, best / 1e6);
+    }
+}
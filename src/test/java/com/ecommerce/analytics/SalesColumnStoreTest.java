@@ -0,0 +1,108 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.analytics.SalesColumnStore.Aggregate;
+import com.ecommerce.analytics.SalesColumnStore.Dimension;
+import com.ecommerce.model.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesColumnStoreTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+    
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final SalesColumnStore store = new SalesColumnStore(pool);
+    
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+    
+    @Test
+    void aggregate_ShouldGroupRevenueAndExcludeCancelledOrders() {
+        // Arrange
+        store.append(List.of(line(1L, 1L, DAY, 10L, "Phones", "Acme", 2, "9.99"),
+            line(1L, 1L, DAY, 11L, "Books", "Acme", 1, "5.00")));
+        store.append(List.of(line(2L, 2L, DAY.plusDays(1), 10L, "Phones", "Acme", 1, "9.99")));
+        store.append(List.of(line(3L, 2L, DAY.plusDays(1), 12L, "Phones", "Other", 3, "1.00")));
+        
+        // Act
+        store.updateStatus(3L, OrderStatus.CANCELLED);
+        Aggregate byCategory = store.aggregate(Dimension.CATEGORY, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null);
+        Aggregate daily = store.aggregate(Dimension.DAY, (int) DAY.toEpochDay(), (int) DAY.plusDays(2).toEpochDay(), "Phones", null);
+        
+        // Assert
+        assertEquals("Phones", store.category(0));
+        assertEquals(2997, byCategory.revenueCents[0]);
+        assertEquals(3, byCategory.units[0]);
+        assertEquals(500, byCategory.revenueCents[1]);
+        assertArrayEquals(new long[]{1998, 999, 0}, daily.revenueCents);
+        assertEquals(3, store.orderCount());
+    }
+    
+    @Test
+    void append_ShouldIgnoreOrdersAlreadyLoaded() {
+        // Arrange
+        List<OrderLine> order = List.of(line(1L, 1L, DAY, 10L, "Phones", "Acme", 1, "9.99"));
+        
+        // Act & Assert
+        assertTrue(store.append(order));
+        assertFalse(store.append(order));
+        assertEquals(1, store.size());
+    }
+    
+    @Test
+    void aggregate_ShouldBreakDownRevenueByFirstOrderCohort() {
+        // Arrange: 用户 1 在 3 月首单, 5 月复购; 用户 2 在 4 月首单
+        store.append(List.of(line(1L, 1L, DAY, 10L, "Phones", "Acme", 1, "10.00")));
+        store.append(List.of(line(2L, 2L, DAY.plusMonths(1), 10L, "Phones", "Acme", 1, "20.00")));
+        store.append(List.of(line(3L, 1L, DAY.plusMonths(2), 10L, "Phones", "Acme", 1, "30.00")));
+        
+        // Act
+        Aggregate cohorts = store.aggregate(Dimension.COHORT, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null);
+        
+        // Assert: 下标为 (首单月 - base) * span + 距首单月数
+        assertEquals(SalesColumnStore.monthIndex(DAY), cohorts.base);
+        assertEquals(3, cohorts.span);
+        assertEquals(1000, cohorts.revenueCents[0]);
+        assertEquals(3000, cohorts.revenueCents[2]);
+        assertEquals(2000, cohorts.revenueCents[3]);
+    }
+    
+    @Test
+    void aggregate_ShouldMatchSequentialSumAcrossChunks() {
+        // Arrange: 超过 3 个块, 走并行扫描
+        int orders = SalesColumnStore.CHUNK_SIZE * 3 + 123;
+        long expectedCents = 0;
+        for (long id = 1; id <= orders; id++) {
+            int quantity = (int) (id % 5) + 1;
+            store.append(List.of(line(id, id % 100 + 1, DAY.plusDays(id % 7), id % 50 + 1, "C" + id % 3, "B" + id % 4, quantity, "1.25")));
+            if (id % 7 < 3 && id % 4 == 1) {
+                expectedCents += 125L * quantity;
+            }
+        }
+        
+        // Act
+        Aggregate daily = store.aggregate(Dimension.DAY, (int) DAY.toEpochDay(), (int) DAY.plusDays(2).toEpochDay(), null, "B1");
+        
+        // Assert
+        long total = 0;
+        for (long cents : daily.revenueCents) {
+            total += cents;
+        }
+        assertEquals(expectedCents, total);
+    }
+    
+    private static OrderLine line(Long orderId, Long userId, LocalDate day, Long productId,
+                                  String category, String brand, int quantity, String price) {
+        return new OrderLine(orderId, userId, day.atTime(12, 0), OrderStatus.PENDING, productId,
+            category, brand, quantity, new BigDecimal(price));
+    }
+}
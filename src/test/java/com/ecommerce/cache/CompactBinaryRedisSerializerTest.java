@@ -0,0 +1,129 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderItem;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBinaryRedisSerializerTest {
+    private final CompactBinaryRedisSerializer serializer = new CompactBinaryRedisSerializer();
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    
+    @Test
+    void roundTrip_ShouldPreserveFieldsAndDecimalScale() {
+        Product product = product(1L, "Phone", new BigDecimal("1999.90"));
+        
+        Product result = (Product) serializer.deserialize(serializer.serialize(product));
+        
+        assertEquals(product.getId(), result.getId());
+        assertEquals("Phone", result.getName());
+        assertEquals(new BigDecimal("1999.90"), result.getPrice());
+        assertEquals(2, result.getPrice().scale());
+        assertEquals(product.getStock(), result.getStock());
+        assertEquals(product.getAverageRating(), result.getAverageRating());
+    }
+    
+    @Test
+    void roundTrip_ListShouldBeSmallerThanJsonAndCompressed() {
+        List<Product> products = new ArrayList<>();
+        for (long i = 1; i <= 200; i++) {
+            products.add(product(i, "Product " + i, new BigDecimal(i + ".99")));
+        }
+        
+        byte[] compact = serializer.serialize(products);
+        byte[] json = jsonSerializer.serialize(products);
+        
+        assertTrue(compact.length * 4 < json.length, compact.length + " vs " + json.length);
+        assertEquals(CompactBinaryRedisSerializer.MAGIC, compact[0]);
+        assertNotEquals(0, compact[1] & 0x80);
+        
+        @SuppressWarnings("unchecked")
+        List<Product> result = (List<Product>) serializer.deserialize(compact);
+        assertEquals(200, result.size());
+        assertEquals(new BigDecimal("200.99"), result.get(199).getPrice());
+    }
+    
+    @Test
+    void roundTrip_OrderWithItems_ShouldRestoreBackReferences() {
+        Order order = new Order();
+        order.setId(5L);
+        order.setOrderDate(LocalDateTime.of(2024, 5, 1, 10, 0));
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("29.98"));
+        for (long i = 1; i <= 2; i++) {
+            OrderItem item = new OrderItem();
+            item.setId(i);
+            item.setOrder(order);
+            item.setProduct(product(i, "Product " + i, new BigDecimal("14.99")));
+            item.setQuantity(1);
+            item.setPrice(new BigDecimal("14.99"));
+            order.getOrderItems().add(item);
+        }
+        
+        Order result = (Order) serializer.deserialize(serializer.serialize(order));
+        
+        assertEquals(5L, result.getId());
+        assertEquals(OrderStatus.PENDING, result.getStatus());
+        assertEquals(2, result.getOrderItems().size());
+        assertEquals("Product 2", result.getOrderItems().get(1).getProduct().getName());
+        assertEquals(new BigDecimal("14.99"), result.getOrderItems().get(0).getPrice());
+        assertSame(result, result.getOrderItems().get(0).getOrder());
+    }
+    
+    @Test
+    void deserialize_JsonScalarWithoutMarker_ShouldBeReadAsLegacyJson() {
+        assertEquals(42, serializer.deserialize(jsonSerializer.serialize(42)));
+        assertEquals(Boolean.TRUE, serializer.deserialize(jsonSerializer.serialize(true)));
+        assertEquals("text", serializer.deserialize(jsonSerializer.serialize("text")));
+    }
+    
+    @Test
+    void deserialize_ShouldReadEntriesWrittenAsJson() {
+        Product product = product(7L, "Legacy", new BigDecimal("10.00"));
+        
+        Product result = (Product) serializer.deserialize(jsonSerializer.serialize(product));
+        
+        assertEquals("Legacy", result.getName());
+    }
+    
+    @Test
+    void deserialize_EntryFromNewerFormatVersion_ShouldBeTreatedAsMiss() {
+        byte[] bytes = serializer.serialize(product(1L, "Phone", BigDecimal.TEN));
+        bytes[1] = (byte) (CompactBinaryRedisSerializer.FORMAT_VERSION + 1);
+        
+        assertNull(serializer.deserialize(bytes));
+    }
+    
+    @Test
+    void roundTrip_UnregisteredTypeShouldFallBackToJson() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("category", "Electronics");
+        
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+    }
+    
+    private Product product(Long id, String name, BigDecimal price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription("Description of " + name);
+        product.setPrice(price);
+        product.setStock(100);
+        product.setCategory("Electronics");
+        product.setBrand("Acme");
+        product.setAverageRating(4.5);
+        product.setReviewCount(12);
+        return product;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ecommerce.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 以 ConcurrentMapCache 代替 Redis 作为远端缓存
+class TwoLevelCacheTest {
+    private ConcurrentMapCache remote;
+    private List<String> published;
+    private TwoLevelCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCache("products");
+        published = new ArrayList<>();
+        cache = new TwoLevelCache("products", new BoundedLocalCache<>(100), remote,
+            (cacheName, key) -> published.add(cacheName + ":" + key));
+    }
+    
+    @Test
+    void get_WhenOnlyRemoteHasValue_ShouldPopulateLocalTier() {
+        remote.put(1L, "phone");
+        
+        assertEquals("phone", cache.get(1L, String.class));
+        remote.evict(1L);
+        assertEquals("phone", cache.get(1L, String.class));
+        
+        Map<String, Long> statistics = cache.getStatistics();
+        assertEquals(1L, statistics.get("localHits"));
+        assertEquals(1L, statistics.get("localMisses"));
+        assertEquals(1L, statistics.get("remoteHits"));
+        assertEquals(0L, statistics.get("remoteMisses"));
+    }
+    
+    @Test
+    void get_WithLoader_ShouldWriteThroughToBothTiers() {
+        assertEquals("laptop", cache.get(2L, () -> "laptop"));
+        
+        Cache.ValueWrapper remoteValue = remote.get(2L);
+        assertNotNull(remoteValue);
+        assertEquals("laptop", remoteValue.get());
+        assertEquals("laptop", cache.get(2L, () -> "other"));
+    }
+    
+    @Test
+    void evict_ShouldClearBothTiersAndPublishInvalidation() {
+        cache.put(3L, "tablet");
+        
+        cache.evict(3L);
+        
+        assertNull(cache.get(3L));
+        assertNull(remote.get(3L));
+        assertEquals(List.of("products:3"), published);
+    }
+    
+    @Test
+    void evictLocal_ShouldKeepRemoteValueAndNotPublish() {
+        cache.put(4L, "watch");
+        
+        cache.evictLocal("4");
+        
+        assertEquals("watch", cache.get(4L, String.class));
+        assertEquals(1L, cache.getStatistics().get("remoteHits"));
+        assertTrue(published.isEmpty());
+    }
+    
+    @Test
+    void localCache_ShouldStayWithinMaximumSizeAndKeepFrequentKeys() {
+        BoundedLocalCache<Integer, Integer> local = new BoundedLocalCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            local.put(i, i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                local.get(i);
+            }
+        }
+        // 一次性扫描不应把高频 key 挤出缓存
+        for (int i = 1000; i < 2000; i++) {
+            local.put(i, i);
+        }
+        
+        assertTrue(local.size() <= 100);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, local.get(i));
+        }
+    }
+}
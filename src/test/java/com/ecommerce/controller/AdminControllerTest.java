@@ -0,0 +1,91 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.DataFormat;
+import com.ecommerce.exception.GlobalExceptionHandler;
+import com.ecommerce.service.ExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdminControllerTest {
+    @Mock
+    private ExportService exportService;
+    
+    @InjectMocks
+    private AdminController adminController;
+    
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(adminController)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+        doAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("row\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportOrders(any(), any(), anyBoolean());
+        doAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write("row\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportUsers(any(), any(), anyBoolean());
+    }
+    
+    @Test
+    void exportOrders_DefaultFormat_ShouldStreamNdjsonAttachment() throws Exception {
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/admin/orders/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.ndjson\""))
+            .andExpect(content().string("row\n"));
+        verify(exportService).exportOrders(any(), eq(DataFormat.NDJSON), eq(false));
+    }
+    
+    @Test
+    void exportUsers_GzippedCsv_ShouldUseGzipContentTypeAndFilename() throws Exception {
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/admin/users/export").param("format", "CSV").param("gzip", "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/gzip"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv.gz\""));
+        verify(exportService).exportUsers(any(), eq(DataFormat.CSV), eq(true));
+    }
+    
+    @Test
+    void export_WithUnsupportedFormat_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/admin/orders/export").param("format", "xml"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Unsupported format: xml"));
+        mockMvc.perform(get("/api/admin/users/export").param("format", "xml"))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(exportService);
+    }
+}
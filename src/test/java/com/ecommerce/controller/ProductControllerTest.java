@@ -0,0 +1,197 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.exception.GlobalExceptionHandler;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.InventoryLedgerService;
+import com.ecommerce.service.ProductFacetIndex;
+import com.ecommerce.service.ProductSearchIndex;
+import com.ecommerce.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// 导出在异步线程的只读事务中执行, 测试数据需要提交, 测试本身不包在事务里
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ProductService.class)
+class ProductControllerTest {
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @MockBean
+    private ProductSearchIndex searchIndex;
+    
+    @MockBean
+    private ProductFacetIndex facetIndex;
+    
+    @MockBean
+    private InventoryLedgerService inventoryLedgerService;
+    
+    private MockMvc mockMvc;
+    private List<Product> products;
+    
+    @BeforeEach
+    void setUp() {
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "productService", productService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+            .build();
+        
+        // 三件同价商品, 用于验证排序键相同时按 id 续页
+        products = new ArrayList<>();
+        for (String price : new String[]{"5.00", "9.99", "9.99", "9.99", "1.50", "20.00", "9.99"}) {
+            Product product = new Product();
+            product.setName("Product " + products.size());
+            product.setPrice(new BigDecimal(price));
+            product.setStock(10);
+            product.setCategory("Test");
+            products.add(productRepository.save(product));
+        }
+    }
+    
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+    
+    @Test
+    void getProductPage_FollowingCursors_ShouldVisitEveryProductOnceInSortOrder() throws Exception {
+        // Arrange
+        Comparator<Product> byPriceThenId = Comparator.comparing(Product::getPrice).thenComparing(Product::getId);
+        List<Long> expected = products.stream().sorted(byPriceThenId).map(Product::getId).toList();
+        
+        // Act
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = getPage("price", true, cursor, 2);
+            page.get("content").forEach(product -> visited.add(product.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            assertEquals(cursor != null, page.get("hasNext").asBoolean());
+            pages++;
+        } while (cursor != null);
+        
+        // Assert
+        assertEquals(expected, visited);
+        assertEquals(4, pages);
+    }
+    
+    @Test
+    void getProductPage_DescendingWithTies_ShouldNotSkipOrRepeat() throws Exception {
+        // Arrange
+        Comparator<Product> byPriceThenIdDesc = Comparator.comparing(Product::getPrice)
+            .thenComparing(Product::getId).reversed();
+        List<Long> expected = products.stream().sorted(byPriceThenIdDesc).map(Product::getId).toList();
+        
+        // Act: 页边界落在同价商品中间
+        JsonNode first = getPage("price", false, null, 3);
+        JsonNode second = getPage("price", false, first.get("nextCursor").asText(), 3);
+        
+        // Assert
+        List<Long> visited = new ArrayList<>();
+        first.get("content").forEach(product -> visited.add(product.get("id").asLong()));
+        second.get("content").forEach(product -> visited.add(product.get("id").asLong()));
+        assertEquals(expected.subList(0, 6), visited);
+    }
+    
+    @Test
+    void getProductPage_LastPage_ShouldHaveNoNextCursor() throws Exception {
+        // Act
+        JsonNode page = getPage("id", true, null, products.size());
+        
+        // Assert
+        assertEquals(products.size(), page.get("content").size());
+        assertFalse(page.get("hasNext").asBoolean());
+        assertTrue(page.get("nextCursor").isNull());
+    }
+    
+    @Test
+    void getProductPage_WithTamperedCursor_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        String cursor = getPage("price", true, null, 2).get("nextCursor").asText();
+        
+        // Act & Assert: 换排序方式, 篡改段数, 非 base64, 非数字的 id
+        mockMvc.perform(get("/api/products/page").param("sortBy", "name").param("cursor", cursor))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/page").param("sortBy", "price").param("cursor", cursor + ".eA"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/page").param("sortBy", "price").param("cursor", "!!!.!!!.!!!.!!!"))
+            .andExpect(status().isBadRequest());
+        String badId = cursor.substring(0, cursor.lastIndexOf('.') + 1) + "bm90LWFuLWlk";
+        mockMvc.perform(get("/api/products/page").param("sortBy", "price").param("cursor", badId))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid page cursor"));
+    }
+    
+    @Test
+    void exportProducts_ShouldStreamOneJsonLinePerProduct() throws Exception {
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/products/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn();
+        
+        // Assert
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(products.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode row = objectMapper.readTree(lines[i]);
+            assertEquals(products.get(i).getId(), row.get("id").asLong());
+            assertFalse(row.has("ratingSum"));
+        }
+    }
+    
+    private JsonNode getPage(String sortBy, boolean ascending, String cursor, int size) throws Exception {
+        var request = get("/api/products/page")
+            .param("sortBy", sortBy)
+            .param("ascending", String.valueOf(ascending))
+            .param("size", String.valueOf(size));
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request)
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,230 @@
+package com.ecommerce.idempotency;
+
+import com.ecommerce.config.IdempotencyConfig;
+import com.ecommerce.repository.IdempotencyRecordRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 幂等记录需要在独立事务中提交, 测试本身不包在事务里
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({IdempotencyFilter.class, IdempotencyStore.class, IdempotencyConfig.class})
+class IdempotencyFilterTest {
+    @Autowired
+    private IdempotencyFilter filter;
+    
+    @Autowired
+    private IdempotencyRecordRepository repository;
+    
+    private final AtomicInteger executions = new AtomicInteger();
+    
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void duplicateRequest_ShouldReplayStoredResponseWithoutExecuting() throws Exception {
+        // Arrange
+        FilterChain chain = created("{\"id\":1}");
+        
+        // Act
+        MockHttpServletResponse first = send("key-1", "{\"shippingAddress\":\"a\"}", chain);
+        MockHttpServletResponse second = send("key-1", "{\"shippingAddress\":\"a\"}", chain);
+        
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(201, second.getStatus());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+    
+    @Test
+    void sameKeyWithDifferentBody_ShouldBeRejected() throws Exception {
+        // Arrange
+        FilterChain chain = created("{\"id\":1}");
+        send("key-2", "{\"shippingAddress\":\"a\"}", chain);
+        
+        // Act
+        MockHttpServletResponse response = send("key-2", "{\"shippingAddress\":\"b\"}", chain);
+        
+        // Assert
+        assertEquals(422, response.getStatus());
+        assertEquals(1, executions.get());
+    }
+    
+    @Test
+    void serverError_ShouldNotBeStored() throws Exception {
+        // Arrange
+        FilterChain failing = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(500);
+        };
+        send("key-3", "{}", failing);
+        
+        // Act
+        MockHttpServletResponse retried = send("key-3", "{}", created("{\"id\":2}"));
+        
+        // Assert
+        assertEquals(2, executions.get());
+        assertEquals(201, retried.getStatus());
+        assertNull(retried.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+    
+    @Test
+    void concurrentDuplicates_ShouldCoalesceOntoOneExecution() throws Exception {
+        // Arrange
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            created("{\"id\":3}").doFilter(request, response);
+        };
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        
+        try {
+            // Act
+            Future<MockHttpServletResponse> leader = clients.submit(() -> send("key-4", "{}", slow));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            Future<MockHttpServletResponse> duplicate = clients.submit(() -> send("key-4", "{}", slow));
+            Thread.sleep(100);
+            release.countDown();
+            
+            // Assert
+            assertEquals(201, leader.get(5, TimeUnit.SECONDS).getStatus());
+            MockHttpServletResponse replayed = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals(201, replayed.getStatus());
+            assertEquals("{\"id\":3}", replayed.getContentAsString());
+            assertEquals(1, executions.get());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+    
+    @Test
+    void chunkedBodyOverLimit_ShouldPassThroughWithFullBody() throws Exception {
+        // Arrange: 分块传输没有 Content-Length
+        byte[] large = new byte[70000];
+        Arrays.fill(large, (byte) 'x');
+        AtomicInteger received = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            received.set(request.getInputStream().readAllBytes().length);
+            created("{\"id\":5}").doFilter(request, response);
+        };
+        
+        // Act
+        send("key-5", new String(large, StandardCharsets.UTF_8), true, chain);
+        MockHttpServletResponse second = send("key-5", new String(large, StandardCharsets.UTF_8), true, chain);
+        
+        // Assert: 超限请求不做幂等处理, 两次都执行且后续过滤器读到完整请求体
+        assertEquals(large.length, received.get());
+        assertEquals(2, executions.get());
+        assertNull(second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(0, repository.count());
+    }
+    
+    @Test
+    void cachedBody_ShouldSupportReadListener() throws Exception {
+        // Arrange
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger allDataRead = new AtomicInteger();
+        FilterChain chain = (request, response) -> {
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[4];
+                    int count;
+                    while (input.isReady() && !input.isFinished() && (count = input.read(buffer)) > 0) {
+                        received.addAndGet(count);
+                    }
+                }
+                
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.incrementAndGet();
+                }
+                
+                @Override
+                public void onError(Throwable error) {
+                    fail(error);
+                }
+            });
+            created("{\"id\":6}").doFilter(request, response);
+        };
+        
+        // Act
+        MockHttpServletResponse response = send("key-6", "{\"shippingAddress\":\"a\"}", chain);
+        
+        // Assert
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"shippingAddress\":\"a\"}".length(), received.get());
+        assertEquals(1, allDataRead.get());
+    }
+    
+    private FilterChain created(String body) {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setContentType("application/json");
+            http.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+    
+    private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+        return send(key, body, false, chain);
+    }
+    
+    private MockHttpServletResponse send(String key, String body, boolean chunked, FilterChain chain) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("buyer", null, "ROLE_USER"));
+        MockHttpServletRequest request = chunked ? new MockHttpServletRequest("POST", "/api/orders") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+            
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        } : new MockHttpServletRequest("POST", "/api/orders");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
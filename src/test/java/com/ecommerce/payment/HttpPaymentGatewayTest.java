@@ -0,0 +1,67 @@
+package com.ecommerce.payment;
+
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpPaymentGatewayTest {
+    private LocalPaymentGatewayServer server;
+    private HttpPaymentGateway gateway;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new LocalPaymentGatewayServer(new BigDecimal("1000"));
+        PaymentConfig config = new PaymentConfig();
+        config.getGateway().setType("http");
+        config.getGateway().setUrl(server.url());
+        
+        gateway = new HttpPaymentGateway();
+        ReflectionTestUtils.setField(gateway, "paymentConfig", config);
+        ReflectionTestUtils.setField(gateway, "objectMapper", new ObjectMapper());
+        gateway.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+    
+    @Test
+    void charge_WhenGatewayApproves_ShouldReturnApprovedWithReference() {
+        // Act
+        GatewayResult result = gateway.charge(new GatewayCharge("tx-1", 1L, new BigDecimal("99.90"), "CARD"));
+        
+        // Assert
+        assertTrue(result.isApproved());
+        assertEquals("LOCAL-tx-1", result.getReference());
+        assertEquals("tx-1", server.idempotencyKeys().get(0));
+    }
+    
+    @Test
+    void charge_WhenGatewayDeclines_ShouldReturnReason() {
+        // Act
+        GatewayResult result = gateway.charge(new GatewayCharge("tx-2", 2L, new BigDecimal("5000"), "CARD"));
+        
+        // Assert
+        assertFalse(result.isApproved());
+        assertEquals("Insufficient funds", result.getFailureReason());
+    }
+    
+    @Test
+    void charge_WhenGatewayFails_ShouldThrowServiceUnavailable() {
+        // Arrange
+        server.failWith(502);
+        
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class,
+            () -> gateway.charge(new GatewayCharge("tx-3", 3L, BigDecimal.TEN, "CARD")));
+    }
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.payment;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// 集成测试用的本地网关替身: 金额超过上限时拒付, 可指定固定的故障状态码
+class LocalPaymentGatewayServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BigDecimal declineAbove;
+    private final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+    private volatile int failureStatus;
+    
+    LocalPaymentGatewayServer(BigDecimal declineAbove) throws IOException {
+        this.declineAbove = declineAbove;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/charges", this::handleCharge);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+    
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    void failWith(int status) {
+        this.failureStatus = status;
+    }
+    
+    List<String> idempotencyKeys() {
+        return idempotencyKeys;
+    }
+    
+    private void handleCharge(HttpExchange exchange) throws IOException {
+        idempotencyKeys.add(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+        JsonNode charge = objectMapper.readTree(exchange.getRequestBody());
+        String reference = "LOCAL-" + charge.path("transactionId").asText();
+        
+        if (failureStatus != 0) {
+            respond(exchange, failureStatus, "{}");
+        } else if (charge.path("amount").decimalValue().compareTo(declineAbove) > 0) {
+            respond(exchange, 402, "{\"approved\":false,\"reference\":\"" + reference + "\",\"reason\":\"Insufficient funds\"}");
+        } else {
+            respond(exchange, 200, "{\"approved\":true,\"reference\":\"" + reference + "\"}");
+        }
+    }
+    
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+}
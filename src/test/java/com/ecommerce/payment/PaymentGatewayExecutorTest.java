@@ -0,0 +1,112 @@
+package com.ecommerce.payment;
+
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentGatewayExecutorTest {
+    private final PaymentConfig config = new PaymentConfig();
+    private PaymentGatewayExecutor executor;
+    
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+    
+    @Test
+    void charge_WhenFirstAttemptIsSlow_ShouldReturnHedgedResult() {
+        // Arrange
+        config.getGateway().setHedgeAfterMs(50);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch primaryReleased = new CountDownLatch(1);
+        executor = executor(charge -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt == 1) {
+                await(primaryReleased);
+            }
+            return GatewayResult.approved("ref-" + attempt);
+        });
+        
+        // Act
+        GatewayResult result;
+        try {
+            result = executor.charge(charge());
+        } finally {
+            primaryReleased.countDown();
+        }
+        
+        // Assert: 首次尝试仍被挡住时对冲结果已返回
+        assertTrue(result.isApproved());
+        assertEquals("ref-2", result.getReference());
+        assertEquals(1L, executor.getStatistics().get("hedgeWins"));
+    }
+    
+    @Test
+    void charge_WhenDeadlinePasses_ShouldThrowServiceUnavailable() {
+        // Arrange
+        config.getGateway().setDeadlineMs(100);
+        CountDownLatch released = new CountDownLatch(1);
+        executor = executor(charge -> {
+            await(released);
+            return GatewayResult.approved("late");
+        });
+        
+        // Act & Assert
+        try {
+            assertThrows(ServiceUnavailableException.class, () -> executor.charge(charge()));
+        } finally {
+            released.countDown();
+        }
+        assertEquals(1L, executor.getStatistics().get("timedOut"));
+    }
+    
+    @Test
+    void charge_WhenPrimaryFails_ShouldFallBackToHedge() {
+        // Arrange
+        config.getGateway().setHedgeAfterMs(20);
+        AtomicInteger attempts = new AtomicInteger();
+        executor = executor(charge -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ServiceUnavailableException("Payment gateway unavailable", 1);
+            }
+            return GatewayResult.approved("ref");
+        });
+        
+        // Act
+        GatewayResult result = executor.charge(charge());
+        
+        // Assert
+        assertTrue(result.isApproved());
+        assertEquals(2, attempts.get());
+    }
+    
+    private PaymentGatewayExecutor executor(PaymentGateway gateway) {
+        PaymentGatewayExecutor gatewayExecutor = new PaymentGatewayExecutor();
+        ReflectionTestUtils.setField(gatewayExecutor, "gateway", gateway);
+        ReflectionTestUtils.setField(gatewayExecutor, "paymentConfig", config);
+        gatewayExecutor.init();
+        return gatewayExecutor;
+    }
+    
+    private GatewayCharge charge() {
+        return new GatewayCharge("tx-1", 1L, BigDecimal.TEN, "CARD");
+    }
+    
+    // 调用结束时未完成的尝试会被中断, 中断后直接返回
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.payment;
+
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedPaymentGatewayTest {
+    private PaymentConfig config;
+    private SimulatedPaymentGateway gateway;
+    
+    @BeforeEach
+    void setUp() {
+        config = new PaymentConfig();
+        gateway = new SimulatedPaymentGateway();
+        ReflectionTestUtils.setField(gateway, "paymentConfig", config);
+    }
+    
+    @Test
+    void charge_ShouldBeDeterministicPerTransaction() {
+        // Arrange
+        GatewayCharge charge = charge(UUID.randomUUID().toString());
+        
+        // Act
+        GatewayResult first = gateway.charge(charge);
+        GatewayResult second = gateway.charge(charge);
+        
+        // Assert
+        assertEquals(first, second);
+    }
+    
+    @Test
+    void charge_FromConcurrentThreads_ShouldMatchConfiguredDeclineRate() {
+        // Act
+        long declined = IntStream.range(0, 30000).parallel()
+            .mapToObj(i -> gateway.charge(charge(UUID.randomUUID().toString())))
+            .filter(result -> !result.isApproved())
+            .count();
+        
+        // Assert
+        assertEquals(config.getGateway().getDeclineRate(), declined / 30000.0, 0.02);
+    }
+    
+    @Test
+    void charge_WhenErrorRateIsOne_ShouldThrowServiceUnavailable() {
+        // Arrange
+        config.getGateway().setErrorRate(1.0);
+        
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> gateway.charge(charge("tx-1")));
+    }
+    
+    @Test
+    void charge_WhenRetried_ShouldRedrawErrorButKeepOutcome() {
+        // Arrange
+        config.getGateway().setErrorRate(0.5);
+        GatewayCharge charge = charge(UUID.randomUUID().toString());
+        Set<GatewayResult> results = new HashSet<>();
+        int errors = 0;
+        
+        // Act: 同一交易反复重试
+        for (int i = 0; i < 200; i++) {
+            try {
+                results.add(gateway.charge(charge));
+            } catch (ServiceUnavailableException ex) {
+                errors++;
+            }
+        }
+        
+        // Assert: 不可用按比例出现, 成功的响应结果始终一致
+        assertEquals(100, errors, 40);
+        assertEquals(1, results.size());
+    }
+    
+    private GatewayCharge charge(String transactionId) {
+        return new GatewayCharge(transactionId, 1L, BigDecimal.TEN, "CARD");
+    }
+}
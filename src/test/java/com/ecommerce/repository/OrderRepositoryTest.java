@@ -0,0 +1,124 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.OrderItemSummary;
+import com.ecommerce.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderRepositoryTest {
+    private static final int ITEMS_PER_ORDER = 10;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    private User user;
+    private Order order;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        
+        order = persistOrder(user);
+        persistOrder(user);
+        
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+    
+    @Test
+    void findWithItemsById_ShouldLoadItemsAndProductsInOneQuery() {
+        // Act
+        Order loaded = orderRepository.findWithItemsById(order.getId()).orElseThrow();
+        loaded.getOrderItems().forEach(item -> item.getProduct().getName());
+        
+        // Assert
+        assertEquals(ITEMS_PER_ORDER, loaded.getOrderItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void findWithItemsByUser_ShouldNotIssueQueryPerItem() {
+        // Act
+        List<Order> orders = orderRepository.findWithItemsByUserOrderByOrderDateDesc(user);
+        orders.forEach(o -> o.getOrderItems().forEach(item -> item.getProduct().getName()));
+        
+        // Assert
+        assertEquals(2, orders.size());
+        assertTrue(statistics.getPrepareStatementCount() <= 2);
+    }
+    
+    @Test
+    void findAllWithItems_ShouldNotIssueQueryPerItem() {
+        // Act
+        List<Order> orders = orderRepository.findAllWithItems();
+        orders.forEach(o -> o.getOrderItems().forEach(item -> item.getProduct().getName()));
+        
+        // Assert
+        assertEquals(2, orders.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void findSummariesByOrderId_ShouldProjectItemsInOneQuery() {
+        // Act
+        List<OrderItemSummary> items = orderItemRepository.findSummariesByOrderId(order.getId());
+        
+        // Assert
+        assertEquals(ITEMS_PER_ORDER, items.size());
+        assertEquals(new BigDecimal("2.00"), items.get(0).getSubtotal());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    private Order persistOrder(User owner) {
+        Order newOrder = new Order();
+        newOrder.setUser(owner);
+        newOrder.setOrderDate(LocalDateTime.now());
+        newOrder.setStatus(OrderStatus.PENDING);
+        newOrder.setTotalAmount(BigDecimal.ZERO);
+        
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("1.00"));
+            product.setStock(100);
+            entityManager.persist(product);
+            
+            OrderItem item = new OrderItem();
+            item.setOrder(newOrder);
+            item.setProduct(product);
+            item.setQuantity(2);
+            item.setPrice(new BigDecimal("1.00"));
+            newOrder.getOrderItems().add(item);
+        }
+        return entityManager.persist(newOrder);
+    }
+}
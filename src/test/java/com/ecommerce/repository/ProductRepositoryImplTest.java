@@ -0,0 +1,65 @@
+package com.ecommerce.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductRepositoryImplTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @InjectMocks
+    private ProductRepositoryImpl productRepository;
+    
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+    
+    @Test
+    void decrementStock_WhenDriverReportsSuccessNoInfo_ShouldFallBackToSingleUpdates() {
+        // Arrange: 驱动对 batch 只返回 SUCCESS_NO_INFO
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenReturn(new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+        when(jdbcTemplate.update(startsWith("UPDATE products SET stock = stock - ?"), any(Object[].class)))
+            .thenReturn(1, 0, 1, 1);
+        Map<Long, Integer> quantities = new TreeMap<>(Map.of(1L, 2, 2L, 5));
+        
+        // Act
+        int[] first = productRepository.decrementStock(quantities);
+        int[] second = productRepository.decrementStock(quantities);
+        
+        // Assert: 只探测一次, 之后逐条执行并得到准确的命中结果
+        assertArrayEquals(new int[]{1, 0}, first);
+        assertArrayEquals(new int[]{1, 1}, second);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate, times(4)).update(anyString(), any(Object[].class));
+    }
+    
+    @Test
+    void decrementStock_WhenDriverReportsRowCounts_ShouldUseSingleBatch() {
+        // Arrange
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE products SET stock = stock WHERE"), anyList()))
+            .thenReturn(new int[]{0, 0});
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE products SET stock = stock - ?"), anyList()))
+            .thenReturn(new int[]{1, 0});
+        
+        // Act
+        int[] updated = productRepository.decrementStock(new TreeMap<>(Map.of(1L, 2, 2L, 5)));
+        
+        // Assert
+        assertArrayEquals(new int[]{1, 0}, updated);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductRepositoryTest {
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+    
+    @Test
+    void decrementStock_ShouldOnlyUpdateRowsWithEnoughStock() {
+        // Arrange
+        Product first = productRepository.save(newProduct("First", 5));
+        Product second = productRepository.save(newProduct("Second", 1));
+        
+        // Act
+        int[] updated = new TransactionTemplate(transactionManager).execute(status ->
+            productRepository.decrementStock(Map.of(first.getId(), 2, second.getId(), 2)));
+        
+        // Assert
+        assertEquals(2, updated.length);
+        assertEquals(3, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(1, productRepository.findById(second.getId()).orElseThrow().getStock());
+    }
+    
+    @Test
+    void decrementStock_UnderContention_ShouldNeverOversell() throws Exception {
+        for (int threads : new int[]{1, 8, 64}) {
+            // Arrange
+            int initialStock = threads * 10;
+            int checkoutsPerThread = 20;
+            Product hot = productRepository.save(newProduct("Hot SKU " + threads, initialStock));
+            
+            // Act
+            AtomicInteger successes = new AtomicInteger();
+            runCheckouts(hot.getId(), threads, checkoutsPerThread, successes);
+            
+            // Assert
+            assertEquals(initialStock, successes.get());
+            assertEquals(0, productRepository.findById(hot.getId()).orElseThrow().getStock());
+        }
+    }
+    
+    @Test
+    void applyRatingChange_ShouldMaintainAggregatesIncrementally() {
+        // Arrange
+        Product product = productRepository.save(newProduct("Rated", 1));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        
+        // Act: 新增 5 星和 4 星, 4 星改为 2 星, 删除 5 星
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.applyRatingChange(product.getId(), 5, 1, 5, 0);
+            productRepository.applyRatingChange(product.getId(), 4, 1, 4, 0);
+            productRepository.applyRatingChange(product.getId(), -2, 0, 2, 4);
+            productRepository.applyRatingChange(product.getId(), -5, -1, 0, 5);
+        });
+        
+        // Assert
+        Product result = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(1, result.getReviewCount());
+        assertEquals(2L, result.getRatingSum());
+        assertEquals(2.0, result.getAverageRating(), 0.0001);
+        assertEquals(1, result.getRatingHistogram().getTwoStars());
+        assertEquals(0, result.getRatingHistogram().getFourStars());
+        assertEquals(0, result.getRatingHistogram().getFiveStars());
+    }
+    
+    @Test
+    void forEachProduct_ShouldVisitAllProductsInIdOrderWithoutCallerTransaction() {
+        // Arrange
+        Product first = productRepository.save(newProduct("First", 1));
+        Product second = productRepository.save(newProduct("Second", 2));
+        
+        // Act
+        List<Long> visited = new ArrayList<>();
+        productRepository.forEachProduct(product -> visited.add(product.getId()));
+        
+        // Assert
+        assertEquals(List.of(first.getId(), second.getId()), visited);
+    }
+    
+    @Test
+    void findAllByIdInOrder_ShouldFollowRequestedOrderAndSkipMissingIds() {
+        // Arrange
+        Product first = productRepository.save(newProduct("First", 1));
+        Product second = productRepository.save(newProduct("Second", 2));
+        
+        // Act
+        List<Product> products = productRepository.findAllByIdInOrder(List.of(second.getId(), -1L, first.getId()));
+        
+        // Assert
+        assertEquals(List.of(second.getId(), first.getId()), products.stream().map(Product::getId).toList());
+    }
+    
+    private void runCheckouts(Long productId, int threads, int checkoutsPerThread, AtomicInteger successes)
+            throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < checkoutsPerThread; j++) {
+                    int[] updated = transactionTemplate.execute(status ->
+                        productRepository.decrementStock(Map.of(productId, 1)));
+                    if (updated[0] == 1) {
+                        successes.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+    
+    private Product newProduct(String name, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setStock(stock);
+        product.setCategory("Test");
+        return product;
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ReviewResponse;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.Review;
+import com.ecommerce.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ReviewRepositoryTest {
+    private static final int[] RATINGS = {5, 3, 5, 1, 4, 3, 5};
+    
+    @Autowired
+    private ReviewRepository reviewRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("reviewer");
+        user.setPassword("secret");
+        user.setEmail("reviewer@example.com");
+        entityManager.persist(user);
+        
+        product = new Product();
+        product.setName("Reviewed");
+        product.setPrice(new BigDecimal("9.99"));
+        product.setStock(1);
+        entityManager.persist(product);
+        
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < RATINGS.length; i++) {
+            Review review = new Review();
+            review.setUser(user);
+            review.setProduct(product);
+            review.setRating(RATINGS[i]);
+            review.setCreatedAt(base.plusDays(i / 2)); // 每两条评价时间相同, 验证 id 作为次级排序键
+            entityManager.persist(review);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    void findHighestAfter_PagingShouldVisitEveryReviewOnceInOrder() {
+        // Act
+        List<ReviewResponse> visited = new ArrayList<>();
+        int rating = 6;
+        long id = Long.MAX_VALUE;
+        List<ReviewResponse> page;
+        do {
+            page = reviewRepository.findHighestAfter(product.getId(), rating, id, PageRequest.of(0, 3));
+            visited.addAll(page);
+            if (!page.isEmpty()) {
+                rating = page.get(page.size() - 1).getRating();
+                id = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 3);
+        
+        // Assert
+        assertEquals(List.of(5, 5, 5, 4, 3, 3, 1),
+            visited.stream().map(ReviewResponse::getRating).collect(Collectors.toList()));
+        assertEquals(RATINGS.length, visited.stream().map(ReviewResponse::getId).distinct().count());
+        assertTrue(visited.stream().allMatch(review -> "reviewer".equals(review.getUsername())));
+    }
+    
+    @Test
+    void findNewestAfter_ShouldBreakTiesById() {
+        // Act
+        List<ReviewResponse> first = reviewRepository.findNewestAfter(product.getId(),
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE, PageRequest.of(0, 2));
+        ReviewResponse last = first.get(1);
+        List<ReviewResponse> rest = reviewRepository.findNewestAfter(product.getId(),
+            last.getCreatedAt(), last.getId(), PageRequest.of(0, 10));
+        
+        // Assert
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).getCreatedAt().isAfter(first.get(1).getCreatedAt())
+            || first.get(0).getId() > first.get(1).getId());
+        assertEquals(RATINGS.length - 2, rest.size());
+        assertTrue(rest.stream().noneMatch(review -> first.stream().anyMatch(seen -> seen.getId().equals(review.getId()))));
+    }
+}
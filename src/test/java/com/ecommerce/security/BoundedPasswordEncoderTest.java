@@ -0,0 +1,87 @@
+package com.ecommerce.security;
+
+import com.ecommerce.config.PasswordHashingConfig;
+import com.ecommerce.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+    
+    @Test
+    void encodeAndMatches_ShouldDelegateToBCrypt() {
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setStrength(4);
+        
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(config)) {
+            String hash = encoder.encode("secret");
+            
+            assertTrue(hash.startsWith("$2a$04$"));
+            assertTrue(encoder.matches("secret", hash));
+            assertFalse(encoder.matches("wrong", hash));
+            assertEquals(3L, encoder.getStatistics().get("completed"));
+        }
+    }
+    
+    @Test
+    void matches_WhenQueueIsFull_ShouldRejectWithServiceUnavailable() throws Exception {
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setThreads(1);
+        config.setQueueCapacity(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+            
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 10, config)) {
+            // 一个在执行, 一个在排队
+            Future<Boolean> running = callers.submit(() -> encoder.matches("a", "a"));
+            started.await(5, TimeUnit.SECONDS);
+            Future<Boolean> queued = callers.submit(() -> encoder.matches("b", "b"));
+            while (encoder.getStatistics().get("queued").equals(0)) {
+                Thread.sleep(5);
+            }
+            
+            ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> encoder.matches("c", "c"));
+            assertEquals(config.getRetryAfterSeconds(), ex.getRetryAfterSeconds());
+            assertEquals(1L, encoder.getStatistics().get("rejected"));
+            
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+    
+    @Test
+    void chooseStrength_WithUnreachableTarget_ShouldFallBackToMinimum() {
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setAutoTune(true);
+        config.setTargetMillis(-1);
+        config.setMinStrength(4);
+        config.setMaxStrength(6);
+        
+        assertEquals(4, BoundedPasswordEncoder.chooseStrength(config));
+    }
+}
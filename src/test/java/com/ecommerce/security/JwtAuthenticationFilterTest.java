@@ -0,0 +1,135 @@
+package com.ecommerce.security;
+
+import com.ecommerce.event.UserTokensRevokedEvent;
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+    private UserRepository userRepository;
+    private JwtTokenProvider tokenProvider;
+    private TokenVersionCache tokenVersionCache;
+    private JwtAuthenticationFilter filter;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600000);
+        ReflectionTestUtils.setField(tokenProvider, "claimsCacheSize", 100);
+        tokenProvider.init();
+        
+        tokenVersionCache = new TokenVersionCache();
+        ReflectionTestUtils.setField(tokenVersionCache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(tokenVersionCache, "maximumSize", 100);
+        ReflectionTestUtils.setField(tokenVersionCache, "ttlSeconds", 60L);
+        tokenVersionCache.init();
+        
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "tokenVersionCache", tokenVersionCache);
+        
+        user = new User();
+        user.setId(42L);
+        user.setUsername("alice");
+        user.setRole(Role.ADMIN);
+        user.setTokenVersion(3);
+        when(userRepository.findTokenVersionById(42L)).thenReturn(Optional.of(3));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void doFilter_ShouldAuthenticateFromClaimsWithoutLoadingUser() throws Exception {
+        // Act
+        Authentication authentication = authenticate(tokenProvider.generateToken(user));
+        
+        // Assert
+        assertNotNull(authentication);
+        assertEquals("alice", authentication.getName());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        verify(userRepository, never()).findByUsername(any());
+    }
+    
+    @Test
+    void doFilter_AfterTokenVersionBump_ShouldRejectOldToken() throws Exception {
+        // Arrange
+        String token = tokenProvider.generateToken(user);
+        assertNotNull(authenticate(token));
+        
+        // Act
+        when(userRepository.findTokenVersionById(42L)).thenReturn(Optional.of(4));
+        tokenVersionCache.onTokensRevoked(new UserTokensRevokedEvent(42L));
+        
+        // Assert
+        assertNull(authenticate(token));
+    }
+    
+    @Test
+    void doFilter_UnderLoad_ShouldHitRepositoryOnlyOnce() throws Exception {
+        // Arrange
+        String token = tokenProvider.generateToken(user);
+        assertNotNull(authenticate(token));
+        int threads = 8;
+        int requestsPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger authenticated = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        
+        // Act
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < requestsPerThread; j++) {
+                    if (authenticate(token) != null) {
+                        authenticated.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Assert
+        assertEquals(threads * requestsPerThread, authenticated.get());
+        verify(userRepository, times(1)).findTokenVersionById(42L);
+        verify(userRepository, never()).findByUsername(any());
+    }
+    
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce.security;
+
+import com.ecommerce.model.Role;
+import com.ecommerce.model.User;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtTokenProviderTest {
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(7L);
+        user.setUsername("bob");
+        user.setRole(Role.CUSTOMER);
+    }
+    
+    @Test
+    void parseAndVerify_RepeatedToken_ShouldReturnCachedClaims() {
+        JwtTokenProvider provider = newProvider(3600000, 100);
+        String token = provider.generateToken(user);
+        
+        Claims first = provider.parseAndVerify(token);
+        Claims second = provider.parseAndVerify(token);
+        
+        assertEquals("bob", first.getSubject());
+        assertEquals(7L, first.get(JwtTokenProvider.USER_ID_CLAIM, Long.class));
+        assertSame(first, second);
+    }
+    
+    @Test
+    void parseAndVerify_TamperedPayloadWithCachedSignature_ShouldBeRejected() {
+        JwtTokenProvider provider = newProvider(3600000, 100);
+        String token = provider.generateToken(user);
+        assertNotNull(provider.parseAndVerify(token));
+        
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+            .replace("CUSTOMER", "ADMIN");
+        String forged = parts[0] + "."
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+            + "." + parts[2];
+        
+        assertNull(provider.parseAndVerify(forged));
+    }
+    
+    @Test
+    void parseAndVerify_ExpiredToken_ShouldBeRejected() {
+        JwtTokenProvider provider = newProvider(-1000, 100);
+        
+        assertNull(provider.parseAndVerify(provider.generateToken(user)));
+        assertFalse(provider.validateToken("not-a-token"));
+    }
+    
+    @Test
+    void parseAndVerify_CachedClaims_ShouldBeReadOnly() {
+        JwtTokenProvider provider = newProvider(3600000, 100);
+        Claims claims = provider.parseAndVerify(provider.generateToken(user));
+        
+        assertThrows(UnsupportedOperationException.class, () -> claims.put(JwtTokenProvider.ROLE_CLAIM, "ADMIN"));
+        assertThrows(UnsupportedOperationException.class, () -> claims.setSubject("mallory"));
+        assertThrows(UnsupportedOperationException.class, () -> claims.remove(JwtTokenProvider.VERSION_CLAIM));
+        claims.getExpiration().setTime(0);
+        assertEquals("CUSTOMER", claims.get(JwtTokenProvider.ROLE_CLAIM, String.class));
+        assertTrue(claims.getExpiration().after(new Date()));
+    }
+    
+    @Test
+    void parseAndVerify_RepeatedTokens_ShouldParseEachTokenOnce() {
+        JwtTokenProvider cached = spy(newProvider(3600000, 100));
+        JwtTokenProvider uncached = spy(newProvider(3600000, 1));
+        String[] tokens = new String[4];
+        for (int i = 0; i < tokens.length; i++) {
+            user.setId((long) i);
+            tokens[i] = cached.generateToken(user);
+        }
+        
+        int iterations = 1000;
+        for (int i = 0; i < iterations; i++) {
+            assertNotNull(cached.parseAndVerify(tokens[i % tokens.length]));
+            // 轮换多个令牌使容量为 1 的缓存始终未命中
+            assertNotNull(uncached.parseAndVerify(tokens[i % tokens.length]));
+        }
+        
+        for (String token : tokens) {
+            verify(cached, times(1)).parse(token);
+        }
+        verify(uncached, times(iterations)).parse(anyString());
+    }
+    
+    private JwtTokenProvider newProvider(int expirationMs, int cacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", expirationMs);
+        ReflectionTestUtils.setField(provider, "claimsCacheSize", cacheSize);
+        provider.init();
+        return provider;
+    }
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ExpiryConfig;
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.model.*;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.PaymentRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// 时间轮由后台线程推进, 到期处理在独立事务中提交, 测试本身不包在事务里
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ExpiryService.class, ExpiryConfig.class, PaymentConfig.class})
+class ExpiryServiceTest {
+    @Autowired
+    private ExpiryService expiryService;
+    
+    @Autowired
+    private PaymentConfig paymentConfig;
+    
+    @Autowired
+    private ExpiryConfig expiryConfig;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @MockBean
+    private OrderService orderService;
+    
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void schedulePayment_ShouldFailPaymentShortlyAfterTimeout() throws InterruptedException {
+        // Arrange: 300ms 后到期
+        Order order = persistOrder(persistUser());
+        LocalDateTime paymentDate = LocalDateTime.now().minusSeconds(paymentConfig.getTimeoutSeconds()).plusNanos(300_000_000);
+        Payment payment = persistPayment(order, paymentDate);
+        
+        // Act
+        expiryService.schedulePayment(payment.getId(), paymentDate);
+        
+        // Assert
+        assertEquals(PaymentStatus.PENDING, paymentRepository.findById(payment.getId()).orElseThrow().getStatus());
+        Payment expired = awaitStatus(payment.getId(), PaymentStatus.FAILED);
+        assertEquals("Payment timeout", expired.getFailureReason());
+        assertTrue((long) expiryService.getStatistics().get("maxLagMs") < 1000);
+    }
+    
+    @Test
+    void schedulePayment_WhenRescheduled_ShouldCancelEarlierDeadline() throws InterruptedException {
+        // Arrange: 先按 300ms 后到期登记, 再按完整超时重新登记
+        Order order = persistOrder(persistUser());
+        LocalDateTime paymentDate = LocalDateTime.now().minusSeconds(paymentConfig.getTimeoutSeconds()).plusNanos(300_000_000);
+        Payment payment = persistPayment(order, paymentDate);
+        expiryService.schedulePayment(payment.getId(), paymentDate);
+        
+        // Act
+        expiryService.schedulePayment(payment.getId(), LocalDateTime.now());
+        Thread.sleep(800);
+        
+        // Assert: 越过第一个截止时间后支付仍在进行中
+        assertEquals(PaymentStatus.PENDING, paymentRepository.findById(payment.getId()).orElseThrow().getStatus());
+        expiryService.cancelPayment(payment.getId());
+    }
+    
+    @Test
+    void scheduleOrder_WhenOverdue_ShouldExpireOrder() {
+        // Arrange
+        LocalDateTime orderDate = LocalDateTime.now().minusSeconds(expiryConfig.getUnpaidOrderTimeoutSeconds() + 1);
+        
+        // Act
+        expiryService.scheduleOrder(42L, orderDate);
+        
+        // Assert
+        verify(orderService, timeout(2000)).expireOrder(42L);
+    }
+    
+    @Test
+    void scheduleOrder_WhenPaymentInProgress_ShouldDeferExpiry() throws InterruptedException {
+        // Arrange
+        Order order = persistOrder(persistUser());
+        persistPayment(order, LocalDateTime.now());
+        long deferredBefore = (long) expiryService.getStatistics().get("deferredOrders");
+        
+        // Act
+        expiryService.scheduleOrder(order.getId(), LocalDateTime.now().minusSeconds(expiryConfig.getUnpaidOrderTimeoutSeconds() + 1));
+        Thread.sleep(500);
+        
+        // Assert
+        verify(orderService, never()).expireOrder(order.getId());
+        assertEquals(deferredBefore + 1, expiryService.getStatistics().get("deferredOrders"));
+    }
+    
+    private Payment awaitStatus(Long paymentId, PaymentStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        Payment payment = paymentRepository.findById(paymentId).orElseThrow();
+        while (payment.getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            payment = paymentRepository.findById(paymentId).orElseThrow();
+        }
+        assertEquals(status, payment.getStatus());
+        return payment;
+    }
+    
+    private User persistUser() {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        return userRepository.save(user);
+    }
+    
+    private Order persistOrder(User user) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("10.00"));
+        return orderRepository.save(order);
+    }
+    
+    private Payment persistPayment(Order order, LocalDateTime paymentDate) {
+        Payment payment = new Payment();
+        payment.setOrder(order);
+        payment.setAmount(order.getTotalAmount());
+        payment.setPaymentMethod("CARD");
+        payment.setPaymentDate(paymentDate);
+        payment.setStatus(PaymentStatus.PENDING);
+        return paymentRepository.save(payment);
+    }
+}
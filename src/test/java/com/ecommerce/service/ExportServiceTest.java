@@ -0,0 +1,186 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.DataFormat;
+import com.ecommerce.model.*;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 导出在只读事务中流式读取, 测试本身不包在事务里
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ExportService.class)
+class ExportServiceTest {
+    private static final int MANY_USERS = 1_000_000;
+    private static final long MAX_HEAP_GROWTH = 16L * 1024 * 1024;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @AfterEach
+    void tearDown() {
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM users");
+    }
+    
+    @Test
+    void exportOrders_AsCsv_ShouldWriteOneQuotedLinePerOrder() throws IOException {
+        // Arrange
+        User user = persistUser("buyer");
+        persistOrder(user, "1 Main St, Springfield", 2);
+        
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportOrders(out, DataFormat.CSV, false);
+        
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,userId,username,orderDate,status,totalAmount,itemCount,shippingAddress,paymentMethod", lines[0]);
+        assertTrue(lines[1].endsWith(",buyer,2024-05-01T10:00,PENDING,20.00,2,\"1 Main St, Springfield\",CARD"), lines[1]);
+    }
+    
+    @Test
+    void exportUsers_AsGzippedNdjson_ShouldOmitCredentials() throws IOException {
+        // Arrange
+        persistUser("alice");
+        
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportUsers(out, DataFormat.NDJSON, true);
+        
+        // Assert
+        String content = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+            StandardCharsets.UTF_8);
+        JsonNode row = objectMapper.readTree(content.trim());
+        assertEquals("alice", row.get("username").asText());
+        assertEquals("CUSTOMER", row.get("role").asText());
+        assertFalse(row.has("password"));
+        assertFalse(content.contains("secret-hash"));
+    }
+    
+    // 生成和导出百万行约需一分钟, 与其他基准测试一样需 -Dbenchmark=true 才运行
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void exportUsers_WithOneMillionRows_ShouldKeepHeapFlat() throws IOException {
+        // Arrange: 直接在 H2 中生成 100 万用户
+        jdbcTemplate.update("INSERT INTO users (username, password, email, role, token_version) " +
+            "SELECT 'user' || X, 'secret-hash', 'user' || X || '@example.com', 'CUSTOMER', 0 FROM SYSTEM_RANGE(1, " + MANY_USERS + ")");
+        HeapSamplingStream out = new HeapSamplingStream();
+        
+        // Act
+        exportService.exportUsers(out, DataFormat.NDJSON, false);
+        
+        // Assert: 每 10 万行 GC 后采样一次, 之后的存活对象不随已导出行数增长
+        assertEquals(MANY_USERS, out.lines);
+        assertTrue(out.maxUsed - out.baseline < MAX_HEAP_GROWTH,
+            "heap grew by " + (out.maxUsed - out.baseline) / 1024 / 1024 + " MB");
+    }
+    
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret-hash");
+        user.setEmail(username + "@example.com");
+        return userRepository.save(user);
+    }
+    
+    private void persistOrder(User user, String shippingAddress, int items) {
+        Product product = new Product();
+        product.setName("Widget");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(10);
+        product = productRepository.save(product);
+        
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.of(2024, 5, 1, 10, 0));
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("20.00"));
+        order.setShippingAddress(shippingAddress);
+        order.setPaymentMethod("CARD");
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setPrice(product.getPrice());
+            order.getOrderItems().add(item);
+        }
+        orderRepository.save(order);
+    }
+    
+    // 丢弃输出, 只统计行数并在 GC 后记录堆占用
+    private static class HeapSamplingStream extends OutputStream {
+        private static final int SAMPLE_EVERY = 100_000;
+        
+        private long baseline = -1; // 第一次采样, 此时游标、缓冲区等固定开销已经分配
+        private long maxUsed;
+        private int lines;
+        
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % SAMPLE_EVERY == 0) {
+                long used = usedAfterGc();
+                if (baseline < 0) {
+                    baseline = used;
+                }
+                maxUsed = Math.max(maxUsed, used);
+            }
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+        
+        private static long usedAfterGc() {
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
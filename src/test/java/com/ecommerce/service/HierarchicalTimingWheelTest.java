@@ -0,0 +1,83 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+    
+    @Test
+    void advance_ShouldFireTasksOnlyAfterTheirDeadline() {
+        // Arrange
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 55);
+        
+        // Act & Assert
+        assertEquals(List.of(), wheel.advance(20));
+        assertEquals(List.of("a"), wheel.advance(30));
+        assertEquals(List.of(), wheel.advance(50));
+        assertEquals(List.of("b"), wheel.advance(60));
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void advance_ShouldCascadeTasksBeyondTheFirstLevel() {
+        // Arrange: 第一层只覆盖 80ms, 更远的任务进入上层
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        long[] deadlines = {5, 79, 80, 95, 640, 1234, 5000, 51200};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        
+        // Act
+        List<Long> fired = new ArrayList<>();
+        for (long now = 0; now <= 60000; now += 10) {
+            for (Long deadline : wheel.advance(now)) {
+                // Assert: 不早于截止时间, 且延迟不超过一个 tick
+                assertTrue(deadline < now && now - deadline <= 10, "Fired " + deadline + " at " + now);
+                fired.add(deadline);
+            }
+        }
+        
+        // Assert
+        assertEquals(deadlines.length, fired.size());
+        assertTrue(wheel.levels() > 2);
+    }
+    
+    @Test
+    void cancel_ShouldDropTaskAndPastDeadlineShouldFireOnNextTick() {
+        // Arrange
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 1000);
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 1030);
+        wheel.schedule("overdue", 500);
+        
+        // Act
+        boolean first = wheel.cancel(cancelled);
+        boolean second = wheel.cancel(cancelled);
+        
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(List.of("overdue"), wheel.advance(1010));
+        assertEquals(List.of(), wheel.advance(2000));
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void advance_WhenIdle_ShouldSkipAheadWithoutLosingNewTasks() {
+        // Arrange
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 0);
+        wheel.advance(1_000_000);
+        
+        // Act
+        wheel.schedule("later", 1_000_035);
+        
+        // Assert
+        assertEquals(List.of(), wheel.advance(1_000_030));
+        assertEquals(List.of("later"), wheel.advance(1_000_040));
+    }
+}
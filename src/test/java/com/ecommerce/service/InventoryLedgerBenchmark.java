@@ -0,0 +1,185 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.InventoryLedgerConfig;
+import com.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.InventoryReservationRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.SchedulerLockRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 64 线程抢同一个 SKU, 两条路径都与下单相同: 每次扣减一个事务, 先写订单再扣库存
+// 账本: InventoryLedgerService.reserve (含提交前写流水); 数据库: ProductService.reserveStock 条件更新行
+// 默认不运行: mvn test -Dtest=InventoryLedgerBenchmark -Dbenchmark=true
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({InventoryLedgerService.class, InventoryLedgerConfig.class, ClusterLockService.class, ProductService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InventoryLedgerBenchmark {
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 100;
+    private static final int STOCK = THREADS * ATTEMPTS_PER_THREAD / 2;
+    
+    @Autowired
+    private InventoryLedgerService ledgerService;
+    
+    @Autowired
+    private InventoryLedgerConfig ledgerConfig;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+    
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @MockBean
+    private ProductSearchIndex searchIndex;
+    
+    @MockBean
+    private ProductFacetIndex facetIndex;
+    
+    @AfterEach
+    void tearDown() {
+        ledgerService.flushOnShutdown();
+        reservationRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        lockRepository.deleteAll();
+        ledgerConfig.setEnabled(false);
+    }
+    
+    @Test
+    void compareLedgerWithDatabaseOnOneSku() throws Exception {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        User buyer = userRepository.save(user);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        
+        // 内存账本
+        Long ledgerProductId = saveProduct("Ledger Phone");
+        ledgerConfig.setEnabled(true);
+        ledgerConfig.setProductIds(List.of(ledgerProductId));
+        ledgerService.renewLease();
+        long ledgerNanos = run("ledger", () -> place(transactionTemplate, () -> {
+            Order order = orderRepository.save(newOrder(buyer));
+            ledgerService.reserve(order, Map.of(ledgerProductId, 1));
+        }));
+        ledgerService.flush();
+        assertEquals(0, productRepository.findById(ledgerProductId).orElseThrow().getStock());
+        
+        // 数据库
+        Long databaseProductId = saveProduct("Database Phone");
+        long databaseNanos = run("database", () -> place(transactionTemplate, () -> {
+            orderRepository.save(newOrder(buyer));
+            productService.reserveStock(Map.of(databaseProductId, 1));
+        }));
+        assertEquals(0, productRepository.findById(databaseProductId).orElseThrow().getStock());
+        
+        System.out.printf("ledger/database speedup: %.2fx%n", (double) databaseNanos / ledgerNanos);
+    }
+    
+    // 库存不足时整个下单事务回滚, 返回 false
+    private boolean place(TransactionTemplate transactionTemplate, Runnable placeOrder) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> placeOrder.run());
+            return true;
+        } catch (InsufficientStockException ex) {
+            return false;
+        }
+    }
+    
+    // 返回总耗时; 成功次数必须恰好等于库存
+    private long run(String name, BooleanSupplier reserve) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                    if (reserve.getAsBoolean()) {
+                        successes.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        
+        assertEquals(STOCK, successes.get());
+        System.out.printf("%s: threads=%d attempts=%,d sold=%,d in %d ms%n", name, THREADS,
+            THREADS * ATTEMPTS_PER_THREAD, successes.get(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return elapsed;
+    }
+    
+    private Long saveProduct(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("1.00"));
+        product.setStock(STOCK);
+        return productRepository.save(product).getId();
+    }
+    
+    private Order newOrder(User user) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(BigDecimal.ONE);
+        return order;
+    }
+}
@@ -0,0 +1,222 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.InventoryLedgerConfig;
+import com.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.ecommerce.model.*;
+import com.ecommerce.repository.InventoryReservationRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.SchedulerLockRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 每次下单在独立事务中提交, 测试本身不包在事务里; "重启" 即新建一个账本实例重新加载
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({InventoryLedgerService.class, InventoryLedgerConfig.class, ClusterLockService.class})
+class InventoryLedgerServiceTest {
+    @Autowired
+    private InventoryLedgerService ledgerService;
+    
+    @Autowired
+    private InventoryLedgerConfig ledgerConfig;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+    
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+    
+    private User user;
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        user = userRepository.save(user);
+        
+        product = new Product();
+        product.setName("Flash Sale Phone");
+        product.setPrice(new BigDecimal("1.00"));
+        product.setStock(10);
+        product = productRepository.save(product);
+        
+        ledgerConfig.setEnabled(true);
+        ledgerConfig.setProductIds(List.of(product.getId()));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        ledgerService.flushOnShutdown();
+        reservationRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        lockRepository.deleteAll();
+        ledgerConfig.setEnabled(false);
+    }
+    
+    @Test
+    void flush_ShouldWriteCommittedDeltasAndClearJournal() {
+        // Arrange
+        ledgerService.renewLease();
+        placeOrder(ledgerService, newOrder(), 3);
+        assertEquals(1, reservationRepository.count());
+        
+        // Act
+        ledgerService.flush();
+        
+        // Assert
+        assertEquals(7, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(0, reservationRepository.count());
+    }
+    
+    @Test
+    void renewLease_AfterCrash_ShouldDeductLowerIdOrderCommittedAfterLastFlush() {
+        // Arrange: 较小 id 的订单晚于较大 id 的订单提交, 且提交时后者已经回写
+        Order earlier = newOrder();
+        Order later = newOrder();
+        assertTrue(earlier.getId() < later.getId());
+        ledgerService.renewLease();
+        placeOrder(ledgerService, later, 3);
+        ledgerService.flush();
+        placeOrder(ledgerService, earlier, 2);
+        
+        // Act: 未回写就 "崩溃", 新实例接管
+        InventoryLedgerService restarted = beanFactory.createBean(InventoryLedgerService.class);
+        restarted.renewLease();
+        
+        // Assert
+        assertEquals(5, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(0, reservationRepository.count());
+        assertThrows(InsufficientStockException.class, () -> placeOrder(restarted, newOrder(), 6));
+        placeOrder(restarted, newOrder(), 5);
+    }
+    
+    @Test
+    void renewLease_ShouldSkipCancelledOrdersInJournal() {
+        // Arrange
+        Order order = newOrder();
+        ledgerService.renewLease();
+        placeOrder(ledgerService, order, 4);
+        order.setStatus(OrderStatus.CANCELLED);
+        orderRepository.save(order);
+        
+        // Act
+        InventoryLedgerService restarted = beanFactory.createBean(InventoryLedgerService.class);
+        restarted.renewLease();
+        
+        // Assert
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+    
+    @Test
+    void reserve_WhenAnotherNodeHoldsLease_ShouldRejectInsteadOfUsingDatabase() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        lockRepository.insert(InventoryLedgerService.LOCK_NAME, "other-node", now, now.plusMinutes(1));
+        ledgerService.renewLease();
+        
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> placeOrder(ledgerService, newOrder(), 1));
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertEquals(0, reservationRepository.count());
+    }
+    
+    @Test
+    void release_OnNonOwnerNode_ShouldRejectSoRecoveryKeepsTheReservation() {
+        // Arrange: 本节点持有账本, 另一个节点 (独立的节点 id) 拿不到租约
+        Order order = newOrder();
+        ledgerService.renewLease();
+        placeOrder(ledgerService, order, 4);
+        InventoryLedgerService otherNode = beanFactory.createBean(InventoryLedgerService.class);
+        ReflectionTestUtils.setField(otherNode, "clusterLockService", beanFactory.createBean(ClusterLockService.class));
+        otherNode.renewLease();
+        
+        // Act: 在另一个节点上取消, 取消事务整体回滚
+        assertThrows(ServiceUnavailableException.class, () ->
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Order cancelled = orderRepository.findById(order.getId()).orElseThrow();
+                cancelled.setStatus(OrderStatus.CANCELLED);
+                orderRepository.save(cancelled);
+                otherNode.release(product.getId(), 4);
+            }));
+        // 持有者未回写就崩溃, 新实例接管
+        InventoryLedgerService restarted = beanFactory.createBean(InventoryLedgerService.class);
+        restarted.renewLease();
+        
+        // Assert: 订单仍有效, 扣减从流水恢复, 库存没有多出来
+        assertEquals(OrderStatus.PENDING, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+        assertEquals(6, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertThrows(InsufficientStockException.class, () -> placeOrder(restarted, newOrder(), 7));
+    }
+    
+    @Test
+    void setStock_ShouldReplaceAvailableStockAndFlushIt() {
+        // Arrange
+        ledgerService.renewLease();
+        placeOrder(ledgerService, newOrder(), 3);
+        
+        // Act
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            assertTrue(ledgerService.setStock(product.getId(), 20)));
+        ledgerService.flush();
+        
+        // Assert: 已售出的 3 件已经回写, 可售库存为管理端设定的值
+        assertEquals(20, productRepository.findById(product.getId()).orElseThrow().getStock());
+        assertThrows(InsufficientStockException.class, () -> placeOrder(ledgerService, newOrder(), 21));
+    }
+    
+    private Order newOrder() {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(BigDecimal.ONE);
+        return orderRepository.save(order);
+    }
+    
+    private void placeOrder(InventoryLedgerService ledger, Order order, int quantity) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Map<Long, Integer> remaining = ledger.reserve(order, Map.of(product.getId(), quantity));
+            assertTrue(remaining.isEmpty());
+        });
+    }
+}
@@ -0,0 +1,198 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.*;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.OrderStatsBucketRepository;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.when;
+
+// 下单语句数: 在 DataSource 上统计 JDBC 往返 (含 JdbcTemplate 的库存批量扣减和统计汇总的原生 SQL, Hibernate 统计看不到这部分), 不随购物车行数增长
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderService.class, CartService.class, ProductService.class, OrderStatisticsService.class, ClusterLockService.class,
+    OrderCheckoutTest.StatementCounter.class})
+class OrderCheckoutTest {
+    private static final int CART_LINES = 50;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private OrderStatsBucketRepository bucketRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private StatementCounter statementCounter;
+    
+    @MockBean
+    private UserService userService;
+    
+    @MockBean
+    private ProductSearchIndex searchIndex;
+    
+    @MockBean
+    private ProductFacetIndex facetIndex;
+    
+    @MockBean
+    private InventoryLedgerService inventoryLedgerService;
+    
+    private Statistics statistics;
+    private User user;
+    private List<Product> products;
+    
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        
+        products = new ArrayList<>();
+        for (int i = 0; i < CART_LINES; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("2.00"));
+            product.setStock(100);
+            entityManager.persist(product);
+            products.add(product);
+            
+            CartItem cartItem = new CartItem();
+            cartItem.setUser(user);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(1);
+            cartItem.setPrice(product.getPrice());
+            entityManager.persist(cartItem);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        
+        // 首次扣减会探测一次驱动的 batch 行数语义, 预先触发, 不计入下单
+        productRepository.decrementStock(Map.of());
+        // 本月和 PENDING 的汇总行已存在 (稳定状态), 下单只做两条累加
+        for (int stripe = 0; stripe < 8; stripe++) {
+            bucketRepository.insertEmpty("month:" + YearMonth.now(), stripe);
+            bucketRepository.insertEmpty("status:" + OrderStatus.PENDING, stripe);
+        }
+        
+        when(userService.findByUsername("buyer")).thenReturn(user);
+        when(inventoryLedgerService.reserve(any(), anyMap())).thenAnswer(invocation -> invocation.getArgument(1));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statementCounter.reset();
+    }
+    
+    @Test
+    void createOrder_ShouldUseConstantNumberOfStatements() {
+        // Act
+        Order order = orderService.createOrder("buyer", "Somewhere 1", "CARD");
+        entityManager.flush();
+        
+        // Assert
+        int roundTrips = statementCounter.count();
+        assertEquals(CART_LINES, order.getOrderItems().size());
+        assertEquals(new BigDecimal("100.00"), order.getTotalAmount());
+        assertEquals(CART_LINES + 2, statistics.getEntityInsertCount());
+        // 购物车查询 + 库存批量扣减 + 两个序列 (首次取号各可能两次) + 两条汇总累加 + 订单插入 + 订单项批量插入 + 订单摘要插入 + 购物车批量删除
+        assertTrue(roundTrips <= 11, "JDBC round trips: " + roundTrips);
+        assertTrue(cartItemRepository.findByUser(user).isEmpty());
+        assertEquals(1L, orderService.getOrderStatistics().get("totalOrders"));
+        entityManager.clear();
+        for (Product product : products) {
+            assertEquals(99, entityManager.find(Product.class, product.getId()).getStock());
+        }
+    }
+    
+    // 包装测试数据源, 每次 execute/executeQuery/executeUpdate/executeBatch 计一次往返
+    @TestConfiguration
+    static class StatementCounter {
+        private static final Set<String> EXECUTE_METHODS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+        private static final AtomicInteger COUNT = new AtomicInteger();
+        
+        int count() {
+            return COUNT.get();
+        }
+        
+        void reset() {
+            COUNT.set(0);
+        }
+        
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? proxy(bean, null) : bean;
+                }
+            };
+        }
+        
+        // Connection 返回的 Statement 也包装; 其余调用原样转发
+        private static Object proxy(Object target, Set<String> countedMethods) {
+            return Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), ClassUtils.getAllInterfaces(target),
+                (instance, method, args) -> {
+                    if (countedMethods != null && countedMethods.contains(method.getName())) {
+                        COUNT.incrementAndGet();
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    if (result instanceof Connection) {
+                        return proxy(result, Set.of());
+                    }
+                    if (result instanceof Statement) {
+                        return proxy(result, EXECUTE_METHODS);
+                    }
+                    return result;
+                });
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BusinessException;
+import com.ecommerce.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@Import({OrderService.class, CartService.class, OrderStatisticsService.class, ClusterLockService.class})
+class OrderExpiryTest {
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @MockBean
+    private UserService userService;
+    
+    @MockBean
+    private ProductService productService;
+    
+    @MockBean
+    private InventoryLedgerService inventoryLedgerService;
+    
+    private Order order;
+    private Product product;
+    
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        entityManager.persist(user);
+        
+        product = new Product();
+        product.setName("Lamp");
+        product.setPrice(new BigDecimal("5.00"));
+        product.setStock(10);
+        entityManager.persist(product);
+        
+        order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now().minusHours(1));
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("10.00"));
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setPrice(product.getPrice());
+        order.getOrderItems().add(item);
+        entityManager.persist(order);
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    void expireOrder_WithoutPayment_ShouldCancelAndReleaseStock() {
+        // Act
+        OrderService.ExpiryResult result = orderService.expireOrder(order.getId());
+        
+        // Assert
+        assertEquals(OrderService.ExpiryResult.EXPIRED, result);
+        assertEquals(OrderStatus.CANCELLED, orderService.getOrder(order.getId()).getStatus());
+        verify(productService).releaseStock(product.getId(), 2);
+        assertEquals(OrderService.ExpiryResult.NOT_PENDING, orderService.expireOrder(order.getId()));
+    }
+    
+    @Test
+    void expireOrder_PaymentCreatedAfterPreCheck_ShouldKeepOrder() {
+        // Arrange: 支付在 ExpiryService 预检查之后、加锁之前创建
+        Payment payment = new Payment();
+        payment.setOrder(entityManager.find(Order.class, order.getId()));
+        payment.setAmount(order.getTotalAmount());
+        payment.setPaymentMethod("CARD");
+        payment.setPaymentDate(LocalDateTime.now());
+        payment.setStatus(PaymentStatus.PENDING);
+        entityManager.persistAndFlush(payment);
+        entityManager.clear();
+        
+        // Act
+        OrderService.ExpiryResult result = orderService.expireOrder(order.getId());
+        
+        // Assert
+        assertEquals(OrderService.ExpiryResult.PAYMENT_PENDING, result);
+        assertEquals(OrderStatus.PENDING, orderService.getOrder(order.getId()).getStatus());
+        verify(productService, never()).releaseStock(anyLong(), anyInt());
+    }
+    
+    @Test
+    void updateOrderStatus_CancelledToPaid_ShouldBeRejected() {
+        // Arrange
+        orderService.expireOrder(order.getId());
+        
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> orderService.updateOrderStatus(order.getId(), OrderStatus.PAID));
+        assertEquals(OrderStatus.CANCELLED, orderService.getOrder(order.getId()).getStatus());
+    }
+}
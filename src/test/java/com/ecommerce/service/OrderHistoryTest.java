@@ -0,0 +1,145 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({OrderService.class, CartService.class, OrderStatisticsService.class, ClusterLockService.class})
+class OrderHistoryTest {
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @MockBean
+    private UserService userService;
+    
+    @MockBean
+    private ProductService productService;
+    
+    @MockBean
+    private InventoryLedgerService inventoryLedgerService;
+    
+    private final List<Order> orders = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        User user = persistUser("buyer");
+        User other = persistUser("other");
+        Product product = new Product();
+        product.setName("Lamp");
+        product.setPrice(new BigDecimal("5.00"));
+        product.setStock(100);
+        product.setImageUrl("/images/lamp.png");
+        entityManager.persist(product);
+        
+        // 同一时间的两个订单, 键集需要用 id 区分
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 5; i++) {
+            orders.add(persistOrder(user, product, start.plusMinutes(Math.min(i, 3)), i + 1));
+        }
+        persistOrder(other, product, start, 1);
+        entityManager.flush();
+        entityManager.clear();
+        orderService.rebuildOrderSummaries();
+        when(inventoryLedgerService.release(anyLong(), anyInt())).thenReturn(true);
+    }
+    
+    @Test
+    void getOrderHistory_ShouldPageNewestFirstWithOneStatementPerPage() {
+        // Arrange
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        // Act
+        List<OrderSummary> seen = new ArrayList<>();
+        CursorPage<OrderSummary> page = orderService.getOrderHistory("buyer", null, 2);
+        int pages = 1;
+        seen.addAll(page.getContent());
+        while (page.isHasNext()) {
+            page = orderService.getOrderHistory("buyer", page.getNextCursor(), 2);
+            seen.addAll(page.getContent());
+            pages++;
+        }
+        
+        // Assert
+        assertEquals(3, pages);
+        assertEquals(pages, statistics.getPrepareStatementCount());
+        assertEquals(List.of(orders.get(4).getId(), orders.get(3).getId(), orders.get(2).getId(),
+                orders.get(1).getId(), orders.get(0).getId()),
+            seen.stream().map(OrderSummary::getOrderId).toList());
+        OrderSummary newest = seen.get(0);
+        assertEquals(5, newest.getItemCount());
+        assertEquals("/images/lamp.png", newest.getThumbnailUrl());
+        assertEquals(new BigDecimal("25.00"), newest.getTotalAmount());
+    }
+    
+    @Test
+    void cancelOrder_ShouldUpdateSummaryStatus() {
+        // Act
+        orderService.cancelOrder("buyer", orders.get(4).getId());
+        entityManager.flush();
+        entityManager.clear();
+        
+        // Assert
+        OrderSummary summary = orderService.getOrderHistory("buyer", null, 1).getContent().get(0);
+        assertEquals(OrderStatus.CANCELLED, summary.getStatus());
+    }
+    
+    @Test
+    void getUserOrders_WithEmptyCart_ShouldReturnOrders() {
+        // Act
+        List<Order> userOrders = orderService.getUserOrders("buyer");
+        
+        // Assert
+        assertEquals(5, userOrders.size());
+    }
+    
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(username + "@example.com");
+        return entityManager.persist(user);
+    }
+    
+    private Order persistOrder(User user, Product product, LocalDateTime orderDate, int quantity) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(orderDate);
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(product.getPrice().multiply(new BigDecimal(quantity)));
+        
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(product.getPrice());
+        order.getOrderItems().add(item);
+        return entityManager.persist(order);
+    }
+}
@@ -0,0 +1,190 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.OrderPlacementConfig;
+import com.ecommerce.exception.BusinessException;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderPlacement;
+import com.ecommerce.model.OrderPlacementStatus;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.OrderPlacementRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// worker 在独立事务中提交, 测试本身不包在事务里
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderPlacementService.class, OrderPlacementConfig.class})
+class OrderPlacementServiceTest {
+    @Autowired
+    private OrderPlacementService placementService;
+    
+    @Autowired
+    private OrderPlacementRepository placementRepository;
+    
+    @Autowired
+    private OrderPlacementConfig config;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @MockBean
+    private OrderService orderService;
+    
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        userRepository.save(user);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        placementRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void drain_ShouldCreateOrderAndCompletePlacement() {
+        // Arrange
+        Order order = new Order();
+        order.setId(42L);
+        when(orderService.createOrder("buyer", "Somewhere 1", "CARD")).thenReturn(order);
+        OrderPlacement placement = placementService.submit("buyer", "Somewhere 1", "CARD");
+        
+        // Act
+        OrderPlacement duplicate = placementService.submit("buyer", "Somewhere 1", "CARD");
+        int processed = placementService.drain();
+        
+        // Assert
+        assertEquals(placement.getId(), duplicate.getId());
+        assertEquals(1, processed);
+        OrderPlacement completed = placementService.getPlacement("buyer", placement.getId());
+        assertEquals(OrderPlacementStatus.COMPLETED, completed.getStatus());
+        assertEquals(42L, completed.getOrderId());
+        assertNotNull(completed.getCompletedAt());
+    }
+    
+    @Test
+    void drain_WhenBusinessRuleFails_ShouldFailWithoutRetry() {
+        // Arrange
+        when(orderService.createOrder(anyString(), anyString(), anyString()))
+            .thenThrow(new BusinessException("Cart is empty"));
+        OrderPlacement placement = placementService.submit("buyer", "Somewhere 1", "CARD");
+        
+        // Act
+        placementService.drain();
+        
+        // Assert
+        OrderPlacement failed = placementRepository.findById(placement.getId()).orElseThrow();
+        assertEquals(OrderPlacementStatus.FAILED, failed.getStatus());
+        assertEquals("Cart is empty", failed.getFailureReason());
+        verify(orderService, times(1)).createOrder(anyString(), anyString(), anyString());
+    }
+    
+    @Test
+    void drain_WhenUnexpectedErrorPersists_ShouldRetryUpToMaxAttempts() {
+        // Arrange
+        when(orderService.createOrder(anyString(), anyString(), anyString()))
+            .thenThrow(new IllegalStateException("Database unavailable"));
+        OrderPlacement placement = placementService.submit("buyer", "Somewhere 1", "CARD");
+        
+        // Act
+        placementService.drain();
+        
+        // Assert
+        OrderPlacement failed = placementRepository.findById(placement.getId()).orElseThrow();
+        assertEquals(OrderPlacementStatus.FAILED, failed.getStatus());
+        assertEquals(config.getMaxAttempts(), failed.getAttempts());
+        verify(orderService, times(config.getMaxAttempts())).createOrder(anyString(), anyString(), anyString());
+    }
+    
+    @Test
+    void poll_ShouldReturnWhileBatchIsStillProcessing() throws Exception {
+        // Arrange: 建单阻塞, 模拟积压时处理一批需要很久
+        CountDownLatch release = new CountDownLatch(1);
+        Order order = new Order();
+        order.setId(42L);
+        when(orderService.createOrder(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return order;
+        });
+        OrderPlacement placement = placementService.submit("buyer", "Somewhere 1", "CARD");
+        config.setEnabled(true);
+        
+        try {
+            // Act: 调度线程不等处理完成, 再次 poll 也不会重复领取
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+                placementService.poll();
+                placementService.poll();
+            });
+            verify(orderService, timeout(2000)).createOrder(anyString(), anyString(), anyString());
+            release.countDown();
+            
+            // Assert
+            long deadline = System.currentTimeMillis() + 3000;
+            while (placementRepository.findById(placement.getId()).orElseThrow().getStatus() != OrderPlacementStatus.COMPLETED
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(OrderPlacementStatus.COMPLETED, placementRepository.findById(placement.getId()).orElseThrow().getStatus());
+            verify(orderService, times(1)).createOrder(anyString(), anyString(), anyString());
+        } finally {
+            config.setEnabled(false);
+        }
+    }
+    
+    @Test
+    void submit_ConcurrentRequestsFromSameUser_ShouldQueueOnePlacement() throws Exception {
+        // Arrange
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderPlacement>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return placementService.submit("buyer", "Somewhere 1", "CARD");
+            }));
+        }
+        
+        // Act
+        start.countDown();
+        Set<Long> ids = new HashSet<>();
+        for (Future<OrderPlacement> future : futures) {
+            ids.add(future.get(30, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+        
+        // Assert
+        assertEquals(1, ids.size());
+        assertEquals(1, placementRepository.count());
+    }
+    
+    @Test
+    void submit_UnknownUser_ShouldBeRejected() {
+        assertThrows(ResourceNotFoundException.class, () -> placementService.submit("ghost", "Somewhere 1", "CARD"));
+        assertEquals(0, placementRepository.count());
+    }
+}
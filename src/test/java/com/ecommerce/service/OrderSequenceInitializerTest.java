@@ -0,0 +1,118 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.SchedulerLockRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 模拟 IDENTITY 时期留下的大主键, 序列需要越过它们; 测试本身不包在事务里, 与启动时一样逐条提交
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderSequenceInitializer.class, ClusterLockService.class})
+class OrderSequenceInitializerTest {
+    private static final long LEGACY_ORDER_ID = 100_000L;
+    private static final long LEGACY_ITEM_ID = 200_000L;
+    
+    @Autowired
+    private OrderSequenceInitializer initializer;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        productRepository.deleteAll();
+        lockRepository.deleteAll();
+    }
+    
+    @Test
+    void init_ShouldMoveSequencesPastExistingIds() throws InterruptedException {
+        // Arrange
+        User user = persistUser();
+        Product product = persistProduct();
+        insertLegacyOrder(LEGACY_ORDER_ID, LEGACY_ITEM_ID, user, product);
+        
+        // Act
+        initializer.init();
+        
+        // Assert: 下一段主键 (next - ALLOCATION_SIZE, next] 整体落在存量主键之后
+        assertTrue(nextValue("orders_seq") - OrderSequenceInitializer.ALLOCATION_SIZE >= LEGACY_ORDER_ID);
+        assertTrue(nextValue("order_items_seq") - OrderSequenceInitializer.ALLOCATION_SIZE >= LEGACY_ITEM_ID);
+        // 调整完成后释放租约, 其他节点无需等待
+        assertTrue(lockRepository.findAll().stream().noneMatch(lock -> lock.getLockedUntil().isAfter(LocalDateTime.now())));
+    }
+    
+    @Test
+    void init_SequenceAlreadyAhead_ShouldNotMoveItBack() throws InterruptedException {
+        // Arrange
+        User user = persistUser();
+        Product product = persistProduct();
+        insertLegacyOrder(LEGACY_ORDER_ID, LEGACY_ITEM_ID, user, product);
+        initializer.init();
+        long advanced = nextValue("orders_seq") + 10 * OrderSequenceInitializer.ALLOCATION_SIZE;
+        jdbcTemplate.execute("ALTER SEQUENCE orders_seq RESTART WITH " + advanced);
+        
+        // Act
+        initializer.init();
+        
+        // Assert
+        assertTrue(nextValue("orders_seq") >= advanced);
+    }
+    
+    private long nextValue(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+    }
+    
+    private void insertLegacyOrder(long orderId, long itemId, User user, Product product) {
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, total_amount, order_date, status) VALUES (?, ?, ?, ?, ?)",
+            orderId, user.getId(), new BigDecimal("2.00"), LocalDateTime.now(), "PAID");
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, price) VALUES (?, ?, ?, ?, ?)",
+            itemId, orderId, product.getId(), 1, new BigDecimal("2.00"));
+    }
+    
+    private User persistUser() {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        return userRepository.save(user);
+    }
+    
+    private Product persistProduct() {
+        Product product = new Product();
+        product.setName("Lamp");
+        product.setPrice(new BigDecimal("2.00"));
+        product.setStock(10);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderStatus;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.OrderStatsBucketRepository;
+import com.ecommerce.repository.SchedulerLockRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 新 bucket 行在独立事务中插入, 测试本身不包在事务里
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderStatisticsService.class, ClusterLockService.class})
+class OrderStatisticsServiceTest {
+    @Autowired
+    private OrderStatisticsService statisticsService;
+    
+    @Autowired
+    private OrderStatsBucketRepository bucketRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+    
+    @AfterEach
+    void tearDown() {
+        bucketRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        lockRepository.deleteAll();
+    }
+    
+    @Test
+    void recordCreatedAndStatusChange_ShouldMaintainRollups() {
+        // Arrange
+        Order january = order(1L, LocalDateTime.of(2024, 1, 5, 10, 0), "10.00");
+        Order lateJanuary = order(2L, LocalDateTime.of(2024, 1, 31, 23, 0), "5.50");
+        Order february = order(3L, LocalDateTime.of(2024, 2, 1, 0, 0), "20.00");
+        
+        // Act
+        statisticsService.recordCreated(january);
+        statisticsService.recordCreated(lateJanuary);
+        statisticsService.recordCreated(february);
+        statisticsService.recordStatusChange(1L, OrderStatus.PENDING, OrderStatus.PAID);
+        statisticsService.recordStatusChange(2L, OrderStatus.PENDING, OrderStatus.CANCELLED);
+        Map<String, Object> stats = statisticsService.getStatistics();
+        
+        // Assert
+        assertEquals(new BigDecimal("35.50"), stats.get("totalSales"));
+        assertEquals(3L, stats.get("totalOrders"));
+        assertEquals(Map.of(OrderStatus.PENDING, 1L, OrderStatus.PAID, 1L, OrderStatus.CANCELLED, 1L), stats.get("statusStats"));
+        assertEquals(Map.of("2024-01", new BigDecimal("15.50"), "2024-02", new BigDecimal("20.00")), stats.get("monthlySales"));
+    }
+    
+    @Test
+    void rebuild_ShouldMatchIncrementalRollups() {
+        // Arrange
+        User user = persistUser();
+        for (int i = 0; i < 12; i++) {
+            Order order = order(null, LocalDateTime.of(2024, 1 + i % 3, 10, 12, 0), "2.50");
+            order.setUser(user);
+            order.setStatus(i % 4 == 0 ? OrderStatus.PAID : OrderStatus.PENDING);
+            orderRepository.save(order);
+        }
+        statisticsService.recordCreated(order(999L, LocalDateTime.of(2023, 6, 1, 0, 0), "100.00"));
+        
+        // Act
+        int buckets = statisticsService.rebuild();
+        Map<String, Object> stats = statisticsService.getStatistics();
+        
+        // Assert
+        assertEquals(5, buckets);
+        assertEquals(12L, stats.get("totalOrders"));
+        assertEquals(new BigDecimal("30.00"), stats.get("totalSales"));
+        assertEquals(Map.of(OrderStatus.PENDING, 9L, OrderStatus.PAID, 3L), stats.get("statusStats"));
+        assertEquals(new BigDecimal("10.00"), ((Map<?, ?>) stats.get("monthlySales")).get("2024-03"));
+    }
+    
+    @Test
+    void seedIfEmpty_ExistingOrdersWithoutRollups_ShouldRebuildOnce() throws InterruptedException {
+        // Arrange
+        User user = persistUser();
+        for (int i = 0; i < 3; i++) {
+            Order order = order(null, LocalDateTime.of(2024, 5, 1 + i, 12, 0), "4.00");
+            order.setUser(user);
+            orderRepository.save(order);
+        }
+        
+        // Act
+        statisticsService.seedIfEmpty();
+        statisticsService.recordCreated(order(998L, LocalDateTime.of(2024, 5, 20, 0, 0), "1.00"));
+        statisticsService.seedIfEmpty();
+        Map<String, Object> stats = statisticsService.getStatistics();
+        
+        // Assert: 第二次启动时汇总表已有数据, 不再重建, 增量保留
+        assertEquals(4L, stats.get("totalOrders"));
+        assertEquals(new BigDecimal("13.00"), stats.get("totalSales"));
+        assertEquals(Map.of(OrderStatus.PENDING, 4L), stats.get("statusStats"));
+    }
+    
+    @Test
+    void seedIfEmpty_NoOrders_ShouldLeaveRollupsEmpty() throws InterruptedException {
+        // Act
+        statisticsService.seedIfEmpty();
+        
+        // Assert
+        assertEquals(0, bucketRepository.count());
+    }
+    
+    private User persistUser() {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        return userRepository.save(user);
+    }
+    
+    private Order order(Long id, LocalDateTime orderDate, String amount) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderDate(orderDate);
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal(amount));
+        return order;
+    }
+}
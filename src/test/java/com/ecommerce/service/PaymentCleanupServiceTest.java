@@ -0,0 +1,181 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ExpiryConfig;
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.model.*;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.PaymentRepository;
+import com.ecommerce.repository.SchedulerLockRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// 每块在独立事务中提交, 测试本身不包在事务里
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PaymentCleanupService.class, ClusterLockService.class, PaymentConfig.class, ExpiryConfig.class})
+class PaymentCleanupServiceTest {
+    @Autowired
+    private PaymentCleanupService cleanupService;
+    
+    @Autowired
+    private PaymentConfig paymentConfig;
+    
+    @Autowired
+    private ExpiryConfig expiryConfig;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+    
+    @MockBean
+    private OrderService orderService;
+    
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+        lockRepository.deleteAll();
+    }
+    
+    @Test
+    void cleanupPendingPayments_ShouldFailTimedOutPaymentsInChunks() throws InterruptedException {
+        // Arrange
+        long runsBefore = awaitScheduledRun();
+        paymentConfig.setCleanupBatchSize(2);
+        User user = persistUser();
+        LocalDateTime old = LocalDateTime.now().minusSeconds(paymentConfig.getTimeoutSeconds() + 60);
+        for (int i = 0; i < 5; i++) {
+            persistPayment(user, PaymentStatus.PENDING, old);
+        }
+        Payment fresh = persistPayment(user, PaymentStatus.PENDING, LocalDateTime.now());
+        Payment succeeded = persistPayment(user, PaymentStatus.SUCCESS, old);
+        
+        // Act
+        cleanupService.cleanupPendingPayments();
+        
+        // Assert
+        assertEquals(5, paymentRepository.findAll().stream()
+            .filter(payment -> payment.getStatus() == PaymentStatus.FAILED)
+            .filter(payment -> "Payment timeout".equals(payment.getFailureReason()))
+            .count());
+        assertEquals(PaymentStatus.PENDING, paymentRepository.findById(fresh.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.SUCCESS, paymentRepository.findById(succeeded.getId()).orElseThrow().getStatus());
+        Map<String, Object> statistics = cleanupService.getStatistics();
+        assertEquals(5L, statistics.get("lastSwept"));
+        assertEquals(runsBefore + 1, statistics.get("runs"));
+    }
+    
+    @Test
+    void cleanupPendingPayments_ShouldExpireUnpaidOrdersLeftByOtherNodes() throws InterruptedException {
+        // Arrange: 创建订单的节点已宕机, 时间轮登记随之丢失
+        awaitScheduledRun();
+        when(orderService.expireOrder(anyLong())).thenReturn(OrderService.ExpiryResult.EXPIRED);
+        User user = persistUser();
+        LocalDateTime stale = LocalDateTime.now().minusSeconds(expiryConfig.getUnpaidOrderTimeoutSeconds() + 60);
+        Order unpaid = persistOrder(user, stale);
+        Order paying = persistOrder(user, stale);
+        persistPayment(paying, PaymentStatus.PENDING, LocalDateTime.now());
+        Order recent = persistOrder(user, LocalDateTime.now());
+        
+        // Act
+        cleanupService.cleanupPendingPayments();
+        
+        // Assert
+        verify(orderService).expireOrder(unpaid.getId());
+        verify(orderService, never()).expireOrder(paying.getId());
+        verify(orderService, never()).expireOrder(recent.getId());
+        assertEquals(1L, cleanupService.getStatistics().get("totalExpiredOrders"));
+    }
+    
+    @Test
+    void tryAcquire_ShouldAllowOnlyOneHolderUntilLeaseExpires() {
+        // Arrange
+        ClusterLockService first = lockService();
+        ClusterLockService second = lockService();
+        
+        // Act
+        boolean firstAcquired = first.tryAcquire("sweeper", Duration.ofMinutes(1));
+        boolean secondAcquired = second.tryAcquire("sweeper", Duration.ofMinutes(1));
+        boolean firstRenewed = first.tryAcquire("sweeper", Duration.ofMinutes(1));
+        first.release("sweeper");
+        boolean secondAfterRelease = second.tryAcquire("sweeper", Duration.ofMinutes(1));
+        
+        // Assert
+        assertTrue(firstAcquired);
+        assertFalse(secondAcquired);
+        assertTrue(firstRenewed);
+        assertTrue(secondAfterRelease);
+    }
+    
+    // 应用开启了定时任务, 上下文启动后会立即执行一次清理, 等它结束再准备数据
+    private long awaitScheduledRun() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) cleanupService.getStatistics().get("runs") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return (long) cleanupService.getStatistics().get("runs");
+    }
+    
+    private ClusterLockService lockService() {
+        ClusterLockService service = new ClusterLockService();
+        ReflectionTestUtils.setField(service, "lockRepository", lockRepository);
+        return service;
+    }
+    
+    private User persistUser() {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        return userRepository.save(user);
+    }
+    
+    private Payment persistPayment(User user, PaymentStatus status, LocalDateTime paymentDate) {
+        return persistPayment(persistOrder(user, LocalDateTime.now()), status, paymentDate);
+    }
+    
+    private Order persistOrder(User user, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(orderDate);
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("10.00"));
+        return orderRepository.save(order);
+    }
+    
+    private Payment persistPayment(Order order, PaymentStatus status, LocalDateTime paymentDate) {
+        Payment payment = new Payment();
+        payment.setOrder(order);
+        payment.setAmount(order.getTotalAmount());
+        payment.setPaymentMethod("CARD");
+        payment.setPaymentDate(paymentDate);
+        payment.setStatus(status);
+        return paymentRepository.save(payment);
+    }
+}
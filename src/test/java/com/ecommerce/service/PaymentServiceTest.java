@@ -0,0 +1,195 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.PaymentConfig;
+import com.ecommerce.dto.PaymentResponse;
+import com.ecommerce.exception.PaymentException;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.ecommerce.model.*;
+import com.ecommerce.payment.GatewayCharge;
+import com.ecommerce.payment.GatewayResult;
+import com.ecommerce.payment.PaymentGateway;
+import com.ecommerce.payment.PaymentGatewayExecutor;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.PaymentRepository;
+import com.ecommerce.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// 支付记录在调用网关前已提交, 并发支付同时停在网关调用中, 彼此不串行
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PaymentService.class, PaymentGatewayExecutor.class, PaymentConfig.class})
+class PaymentServiceTest {
+    private static final int CONCURRENT_PAYMENTS = 8;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Autowired
+    private PaymentRepository paymentRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @MockBean
+    private OrderService orderService;
+    
+    @MockBean
+    private PaymentGateway paymentGateway;
+    
+    @MockBean
+    private ExpiryService expiryService;
+    
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAll();
+        orderRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+    
+    @Test
+    void processPayment_ShouldCommitPendingPaymentBeforeCallingGateway() throws Exception {
+        // Arrange
+        List<Order> orders = persistOrders(CONCURRENT_PAYMENTS);
+        List<Boolean> visibleDuringCall = new CopyOnWriteArrayList<>();
+        List<Boolean> allInFlight = new CopyOnWriteArrayList<>();
+        CountDownLatch inFlight = new CountDownLatch(CONCURRENT_PAYMENTS);
+        when(paymentGateway.charge(any())).thenAnswer(invocation -> {
+            Long orderId = invocation.<GatewayCharge>getArgument(0).getOrderId();
+            // 另一个事务能读到 PENDING 记录, 说明写入事务已提交, 连接已归还
+            visibleDuringCall.add(paymentRepository.findByOrderId(orderId)
+                .map(payment -> payment.getStatus() == PaymentStatus.PENDING).orElse(false));
+            // 每个调用都等到全部支付进入网关才返回, 串行执行时等不到
+            inFlight.countDown();
+            allInFlight.add(inFlight.await(4, TimeUnit.SECONDS));
+            return GatewayResult.approved("ref-" + orderId);
+        });
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_PAYMENTS);
+        
+        try {
+            // Act
+            List<Future<PaymentResponse>> responses = new ArrayList<>();
+            for (Order order : orders) {
+                responses.add(clients.submit(() -> paymentService.processPayment(order.getId(), "CARD")));
+            }
+            for (Future<PaymentResponse> response : responses) {
+                assertEquals(PaymentStatus.SUCCESS, response.get(10, TimeUnit.SECONDS).getStatus());
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        
+        // Assert
+        assertEquals(CONCURRENT_PAYMENTS, visibleDuringCall.size());
+        assertFalse(visibleDuringCall.contains(false));
+        assertEquals(CONCURRENT_PAYMENTS, allInFlight.size());
+        assertFalse(allInFlight.contains(false));
+        assertTrue(paymentRepository.findAll().stream().allMatch(payment -> payment.getStatus() == PaymentStatus.SUCCESS));
+    }
+    
+    @Test
+    void processPayment_GatewayTimeout_ShouldKeepPaymentPendingAndRetryWithSameTransactionId() {
+        // Arrange
+        Order order = persistOrders(1).get(0);
+        List<String> transactionIds = new CopyOnWriteArrayList<>();
+        when(paymentGateway.charge(any())).thenAnswer(invocation -> {
+            transactionIds.add(invocation.<GatewayCharge>getArgument(0).getTransactionId());
+            if (transactionIds.size() == 1) {
+                throw new ServiceUnavailableException("Payment gateway timed out", 1);
+            }
+            return GatewayResult.approved("ref-1");
+        });
+        
+        // Act
+        assertThrows(ServiceUnavailableException.class, () -> paymentService.processPayment(order.getId(), "CARD"));
+        Payment unresolved = paymentRepository.findByOrderId(order.getId()).orElseThrow();
+        PaymentResponse response = paymentService.retryPayment(order.getId(), "CARD");
+        
+        // Assert: 结果未知时不标记失败, 重试沿用同一幂等键
+        assertEquals(PaymentStatus.PENDING, unresolved.getStatus());
+        assertEquals("Payment gateway timed out", unresolved.getFailureReason());
+        assertEquals(PaymentStatus.SUCCESS, response.getStatus());
+        assertEquals(2, transactionIds.size());
+        assertEquals(transactionIds.get(0), transactionIds.get(1));
+        assertEquals(1, paymentRepository.count());
+        assertEquals(2, paymentRepository.findByOrderId(order.getId()).orElseThrow().getAttempts());
+    }
+    
+    @Test
+    void retryPayment_ShouldRejectOtherMethodAndStopAtMaxRetries() {
+        // Arrange
+        Order order = persistOrders(1).get(0);
+        when(paymentGateway.charge(any())).thenThrow(new ServiceUnavailableException("Payment gateway unavailable", 1));
+        assertThrows(ServiceUnavailableException.class, () -> paymentService.processPayment(order.getId(), "CARD"));
+        
+        // Act & Assert
+        assertThrows(PaymentException.class, () -> paymentService.retryPayment(order.getId(), "PAYPAL"));
+        assertThrows(ServiceUnavailableException.class, () -> paymentService.retryPayment(order.getId(), "CARD"));
+        assertThrows(ServiceUnavailableException.class, () -> paymentService.retryPayment(order.getId(), "CARD"));
+        PaymentException exceeded = assertThrows(PaymentException.class,
+            () -> paymentService.retryPayment(order.getId(), "CARD"));
+        assertEquals("Maximum retry attempts exceeded", exceeded.getMessage());
+    }
+    
+    @Test
+    void processPayment_OrderCancelledDuringGatewayCall_ShouldNotMarkOrderPaid() {
+        // Arrange
+        Order order = persistOrders(1).get(0);
+        Order cancelled = orderRepository.findById(order.getId()).orElseThrow();
+        cancelled.setStatus(OrderStatus.CANCELLED);
+        when(paymentGateway.charge(any())).thenAnswer(invocation -> {
+            when(orderService.getOrderForUpdate(order.getId())).thenReturn(cancelled);
+            return GatewayResult.approved("ref-late");
+        });
+        
+        // Act
+        PaymentResponse response = paymentService.processPayment(order.getId(), "CARD");
+        
+        // Assert: 已扣款的支付记为 CANCELLED 等待退款, 订单状态不动
+        assertEquals(PaymentStatus.CANCELLED, response.getStatus());
+        assertTrue(paymentRepository.findByOrderId(order.getId()).orElseThrow().getFailureReason().contains("ref-late"));
+        verify(orderService, never()).updateOrderStatus(anyLong(), any());
+    }
+    
+    private List<Order> persistOrders(int count) {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setPassword("secret");
+        user.setEmail("buyer@example.com");
+        userRepository.save(user);
+        
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUser(user);
+            order.setOrderDate(LocalDateTime.now());
+            order.setStatus(OrderStatus.PENDING);
+            order.setTotalAmount(new BigDecimal("10.00"));
+            Order saved = orderRepository.save(order);
+            orders.add(saved);
+            when(orderService.getOrderForUpdate(saved.getId())).thenReturn(saved);
+        }
+        when(orderService.updateOrderStatus(anyLong(), any())).thenReturn(null);
+        return orders;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductFacetIndexTest {
+    private ProductRepository productRepository;
+    private ProductFacetIndex facetIndex;
+    private List<Product> catalog;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        catalog = new ArrayList<>(List.of(
+            product(1L, "Phones", "Apple", "999"),
+            product(2L, "Phones", "Samsung", "799"),
+            product(3L, "Laptops", "Apple", "1999"),
+            product(4L, "Laptops", "Lenovo", "1200"),
+            product(5L, "Phones", "Xiaomi", "299"),
+            product(6L, "Accessories", "Apple", "29")));
+        
+        productRepository = mock(ProductRepository.class);
+        doAnswer(invocation -> {
+            catalog.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).when(productRepository).forEachProduct(any());
+        
+        facetIndex = new ProductFacetIndex();
+        ReflectionTestUtils.setField(facetIndex, "productRepository", productRepository);
+        facetIndex.rebuild();
+    }
+    
+    @Test
+    void query_WithoutFilters_ShouldCountEveryFacetValue() {
+        // Act
+        ProductFacetIndex.Result result = facetIndex.query(null, null, null, 0, 10);
+        
+        // Assert
+        assertTrue(facetIndex.isReady());
+        assertEquals(6, result.getTotal());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), result.getProductIds());
+        assertEquals(Map.of("Accessories", 1, "Laptops", 2, "Phones", 3), result.getFacets().get("category"));
+        assertEquals(Map.of("Apple", 3, "Lenovo", 1, "Samsung", 1, "Xiaomi", 1), result.getFacets().get("brand"));
+        assertEquals(Map.of("0-50", 1, "200-500", 1, "500-1000", 2, "1000+", 2), result.getFacets().get("price"));
+    }
+    
+    @Test
+    void query_WithFilters_ShouldUnionWithinAndIntersectAcrossDimensions() {
+        // Act: (Phones 或 Laptops) 且 Apple 且价格 500 以上
+        ProductFacetIndex.Result result = facetIndex.query(List.of("Phones", "Laptops"), List.of("Apple"),
+            List.of("500-1000", "1000+"), 0, 10);
+        
+        // Assert: 每个维度的计数只受其他维度过滤
+        assertEquals(List.of(1L, 3L), result.getProductIds());
+        assertEquals(2, result.getTotal());
+        assertEquals(Map.of("Laptops", 1, "Phones", 1), result.getFacets().get("category"));
+        assertEquals(Map.of("Apple", 2, "Lenovo", 1, "Samsung", 1), result.getFacets().get("brand"));
+        assertEquals(Map.of("500-1000", 1, "1000+", 1), result.getFacets().get("price"));
+    }
+    
+    @Test
+    void query_FacetValues_ShouldBeSortedByName() {
+        // Act
+        Map<String, Integer> brands = facetIndex.query(null, null, null, 0, 10).getFacets().get("brand");
+        Map<String, Integer> prices = facetIndex.query(null, null, null, 0, 10).getFacets().get("price");
+        
+        // Assert: 取值按名称排序, 价格区间按区间顺序
+        assertEquals(List.of("Apple", "Lenovo", "Samsung", "Xiaomi"), new ArrayList<>(brands.keySet()));
+        assertEquals(List.of("0-50", "200-500", "500-1000", "1000+"), new ArrayList<>(prices.keySet()));
+    }
+    
+    @Test
+    void query_AfterSlotReuse_ShouldPageInProductIdOrder() {
+        // Arrange: 删除后新增的商品复用空出的下标
+        facetIndex.remove(2L);
+        facetIndex.index(product(7L, "Phones", "Google", "699"));
+        facetIndex.index(product(2L, "Phones", "Samsung", "799"));
+        
+        // Act
+        ProductFacetIndex.Result first = facetIndex.query(List.of("Phones"), null, null, 0, 2);
+        ProductFacetIndex.Result second = facetIndex.query(List.of("Phones"), null, null, 2, 2);
+        
+        // Assert
+        assertEquals(List.of(1L, 2L), first.getProductIds());
+        assertEquals(List.of(5L, 7L), second.getProductIds());
+        assertEquals(4, second.getTotal());
+    }
+    
+    @Test
+    void index_AfterUpdate_ShouldMoveProductBetweenFacetValues() {
+        // Act
+        facetIndex.index(product(4L, "Laptops", "Apple", "1300"));
+        
+        // Assert
+        assertEquals(List.of(3L, 4L), facetIndex.query(null, List.of("Apple"), List.of("1000+"), 0, 10).getProductIds());
+        assertFalse(facetIndex.query(null, null, null, 0, 10).getFacets().get("brand").containsKey("Lenovo"));
+    }
+    
+    @Test
+    void rebuild_AfterCatalogChanges_ShouldReflectCurrentProducts() {
+        // Arrange
+        catalog.remove(0);
+        catalog.set(0, product(2L, "Tablets", "Samsung", "450"));
+        
+        // Act
+        facetIndex.rebuild();
+        
+        // Assert
+        ProductFacetIndex.Result result = facetIndex.query(null, null, null, 0, 10);
+        assertEquals(5, result.getTotal());
+        assertEquals(List.of(2L), facetIndex.query(List.of("Tablets"), null, null, 0, 10).getProductIds());
+        assertEquals(Map.of("Accessories", 1, "Laptops", 2, "Phones", 1, "Tablets", 1), result.getFacets().get("category"));
+        verify(productRepository, times(2)).forEachProduct(any());
+    }
+    
+    private Product product(Long id, String category, String brand, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(brand + " " + id);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+}
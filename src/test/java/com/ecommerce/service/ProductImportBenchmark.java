@@ -0,0 +1,80 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ProductImportConfig;
+import com.ecommerce.dto.DataFormat;
+import com.ecommerce.dto.ProductImportResult;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 100 万行 CSV 导入 H2, 默认不运行: mvn test -Dtest=ProductImportBenchmark -Dbenchmark=true
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductImportService.class, ProductImportConfig.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductImportBenchmark {
+    private static final int ROWS = 1_000_000;
+    
+    @Autowired
+    private ProductImportService importService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @MockBean
+    private InventoryLedgerService inventoryLedgerService;
+    
+    @Test
+    void importOneMillionRows() throws IOException {
+        ProductImportResult result = importService.importProducts(new SyntheticCsv(ROWS), DataFormat.CSV);
+        
+        System.out.printf("imported %,d rows in %d ms%n", result.getInserted(), result.getDurationMs());
+        assertEquals(ROWS, result.getInserted());
+        assertEquals(ROWS, productRepository.count());
+    }
+    
+    // 按需生成 CSV 字节, 不在内存中拼出整个文件
+    private static class SyntheticCsv extends InputStream {
+        private final int rows;
+        private int next = -1;
+        private byte[] line = new byte[0];
+        private int position;
+        
+        SyntheticCsv(int rows) {
+            this.rows = rows;
+        }
+        
+        @Override
+        public int read() {
+            if (position == line.length) {
+                if (next == rows) {
+                    return -1;
+                }
+                line = (next < 0
+                    ? "name,description,price,stock,category,brand\n"
+                    : "Product " + next + ",\"Synthetic, item " + next + "\"," + (next % 10000 + 1) + ".99,"
+                        + next % 500 + ",category-" + next % 40 + ",brand-" + next % 300 + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                next++;
+            }
+            return line[position++];
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.ecommerce.service;
+
+import com.ecommerce.config.ProductImportConfig;
+import com.ecommerce.dto.DataFormat;
+import com.ecommerce.dto.ProductImportResult;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// 每个批次在独立事务中提交, 测试本身不包在事务里
+@DataJpaTest(properties = "product-import.batch-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductImportService.class, ProductImportConfig.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@RecordApplicationEvents
+class ProductImportServiceTest {
+    @Autowired
+    private ProductImportService importService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @MockBean
+    private InventoryLedgerService inventoryLedgerService;
+    
+    @Autowired
+    private ApplicationEvents events;
+    
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+    
+    @Test
+    void importProducts_WithCsv_ShouldInsertValidRowsAndReportInvalidOnes() throws IOException {
+        // Arrange: 第 3 行价格非法, 第 5 行缺少名称
+        String csv = """
+            name,price,stock,category,brand,description
+            Phone,199.00,10,Electronics,Acme,"Fast, small"
+            Case,abc,5,Accessories,Acme,
+            Cable,9.90,100,Accessories,,"Says ""hi""\"
+            ,1.00,1,Accessories,,
+            """;
+        
+        // Act
+        ProductImportResult result = importService.importProducts(stream(csv), DataFormat.CSV);
+        
+        // Assert
+        assertEquals(4, result.getProcessed());
+        assertEquals(2, result.getInserted());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(3L, 5L), result.getErrors().stream().map(ProductImportResult.RowError::getLine).toList());
+        assertTrue(result.getErrors().get(0).getMessage().contains("price"));
+        assertEquals("Product name is required", result.getErrors().get(1).getMessage());
+        
+        Product cable = productRepository.findAll().stream().filter(p -> p.getName().equals("Cable")).findFirst().orElseThrow();
+        assertEquals("Says \"hi\"", cable.getDescription());
+        assertEquals(0L, cable.getRatingSum());
+        assertEquals(1, events.stream(ProductsImportedEvent.class).count());
+    }
+    
+    @Test
+    void importProducts_WithNdjson_ShouldUpdateRowsThatCarryAnId() throws IOException {
+        // Arrange
+        Product existing = new Product();
+        existing.setName("Old name");
+        existing.setPrice(new BigDecimal("5.00"));
+        existing.setStock(1);
+        existing.setCategory("Books");
+        existing = productRepository.save(existing);
+        String ndjson = "{\"id\":" + existing.getId() + ",\"name\":\"New name\",\"price\":6.5,\"stock\":3,\"category\":\"Books\"}\n"
+            + "{\"id\":999999,\"name\":\"Ghost\",\"price\":1,\"stock\":1,\"category\":\"Books\"}\n"
+            + "{\"name\":\"Fresh\",\"price\":2,\"stock\":2,\"category\":\"Books\"}\n"
+            + "{not json\n";
+        
+        // Act
+        ProductImportResult result = importService.importProducts(stream(ndjson), DataFormat.NDJSON);
+        
+        // Assert
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getFailed());
+        assertEquals("Product not found with id: 999999", result.getErrors().get(0).getMessage());
+        assertTrue(result.getErrors().get(1).getMessage().startsWith("Malformed JSON"));
+        Product updated = productRepository.findById(existing.getId()).orElseThrow();
+        assertEquals("New name", updated.getName());
+        assertEquals(0, new BigDecimal("6.50").compareTo(updated.getPrice()));
+        assertEquals(Boolean.FALSE, importService.getProgress().get("running"));
+    }
+    
+    @Test
+    void importProducts_UpdateOmittingOptionalFields_ShouldKeepExistingValues() throws IOException {
+        // Arrange
+        Product existing = new Product();
+        existing.setName("Lamp");
+        existing.setDescription("Warm light");
+        existing.setPrice(new BigDecimal("5.00"));
+        existing.setStock(1);
+        existing.setCategory("Home");
+        existing.setBrand("Acme");
+        existing = productRepository.save(existing);
+        String ndjson = "{\"id\":" + existing.getId() + ",\"name\":\"Desk lamp\",\"price\":7,\"stock\":4,\"category\":\"Home\"}\n";
+        
+        // Act
+        ProductImportResult result = importService.importProducts(stream(ndjson), DataFormat.NDJSON);
+        
+        // Assert
+        assertEquals(1, result.getUpdated());
+        Product updated = productRepository.findById(existing.getId()).orElseThrow();
+        assertEquals("Desk lamp", updated.getName());
+        assertEquals("Warm light", updated.getDescription());
+        assertEquals("Acme", updated.getBrand());
+        assertEquals(4, updated.getStock());
+    }
+    
+    @Test
+    void importProducts_UpdatingLedgerProduct_ShouldSetStockThroughLedger() throws IOException {
+        // Arrange
+        Product existing = new Product();
+        existing.setName("Flash Sale Phone");
+        existing.setPrice(new BigDecimal("5.00"));
+        existing.setStock(1);
+        existing.setCategory("Electronics");
+        existing = productRepository.save(existing);
+        when(inventoryLedgerService.setStock(existing.getId(), 50L)).thenReturn(true);
+        String ndjson = "{\"id\":" + existing.getId() + ",\"name\":\"Flash Sale Phone\",\"price\":5,\"stock\":50,\"category\":\"Electronics\"}\n";
+        
+        // Act
+        ProductImportResult result = importService.importProducts(stream(ndjson), DataFormat.NDJSON);
+        
+        // Assert: 库存列留给账本回写
+        assertEquals(1, result.getUpdated());
+        verify(inventoryLedgerService).setStock(existing.getId(), 50L);
+        assertEquals(1, productRepository.findById(existing.getId()).orElseThrow().getStock());
+    }
+    
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.service;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProductIndexSynchronizerTest {
+    private static final String CHANNEL = "product-index:changes";
+    
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    
+    @Mock
+    private ProductRepository productRepository;
+    
+    @Mock
+    private ProductSearchIndex searchIndex;
+    
+    @Mock
+    private ProductFacetIndex facetIndex;
+    
+    @InjectMocks
+    private ProductIndexSynchronizer synchronizer;
+    
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(synchronizer, "channel", CHANNEL);
+    }
+    
+    @Test
+    void onProductChanged_ShouldPublishOnlyIndexedChanges() {
+        // Act
+        synchronizer.onProductChanged(new ProductChangedEvent(7L, ProductChangedEvent.Type.UPDATED, new Product()));
+        synchronizer.onProductChanged(new ProductChangedEvent(7L, ProductChangedEvent.Type.STOCK_CHANGED, null));
+        
+        // Assert
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(1)).convertAndSend(eq(CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("|7"));
+    }
+    
+    @Test
+    void onMessage_FromOtherNode_ShouldReloadOrRemoveProduct() {
+        // Arrange
+        Product product = new Product();
+        product.setId(7L);
+        when(productRepository.findById(7L)).thenReturn(Optional.of(product));
+        when(productRepository.findById(8L)).thenReturn(Optional.empty());
+        
+        // Act
+        synchronizer.onMessage(message("other-node|7"), null);
+        synchronizer.onMessage(message("other-node|8"), null);
+        
+        // Assert
+        verify(searchIndex).index(product);
+        verify(facetIndex).index(product);
+        verify(searchIndex).remove(8L);
+        verify(facetIndex).remove(8L);
+    }
+    
+    @Test
+    void onMessage_FromOwnNode_ShouldBeIgnored() {
+        // Arrange: 先发布一次拿到本节点的消息
+        synchronizer.onProductChanged(new ProductChangedEvent(7L, ProductChangedEvent.Type.DELETED, null));
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), published.capture());
+        
+        // Act
+        synchronizer.onMessage(message(published.getValue()), null);
+        
+        // Assert
+        verify(productRepository, never()).findById(anyLong());
+        verifyNoInteractions(searchIndex, facetIndex);
+    }
+    
+    @Test
+    void onMessage_RebuildFromOtherNode_ShouldRebuildBothIndexes() {
+        // Act
+        synchronizer.onMessage(message("other-node|*"), null);
+        
+        // Assert
+        verify(searchIndex).rebuild();
+        verify(facetIndex).rebuild();
+        verify(productRepository, never()).findById(any());
+    }
+    
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
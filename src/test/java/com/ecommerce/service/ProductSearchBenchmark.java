@@ -0,0 +1,92 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ProductImportRequest;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 100 万商品上对比倒排索引检索与名称 LIKE '%keyword%' 全表扫描的 p99
+// 默认不运行: mvn test -Dtest=ProductSearchBenchmark -Dbenchmark=true -DargLine=-Xmx4g
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductSearchIndex.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductSearchBenchmark {
+    private static final int PRODUCTS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MODELS = 50_000;
+    private static final int QUERIES = 100;
+    private static final String[] WORDS = {"Phone", "Laptop", "Tablet", "Camera", "Speaker", "Watch", "Monitor", "Router"};
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllInBatch();
+    }
+    
+    @Test
+    void compareIndexWithLikeOnOneMillionProducts() {
+        // 名称形如 "Phone SKU12345", 每个型号约 20 个商品
+        List<ProductImportRequest> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductImportRequest product = new ProductImportRequest();
+            product.setName(WORDS[i % WORDS.length] + " SKU" + i % MODELS);
+            product.setDescription("Synthetic item " + i);
+            product.setPrice(new BigDecimal("9.99"));
+            product.setStock(100);
+            product.setCategory("category-" + i % 40);
+            product.setBrand("brand-" + i % 300);
+            batch.add(product);
+            if (batch.size() == BATCH_SIZE) {
+                productRepository.insertAll(batch);
+                batch.clear();
+            }
+        }
+        searchIndex.rebuild();
+        
+        String[] keywords = new Random(42).ints(QUERIES, 0, MODELS).mapToObj(n -> "sku" + n).toArray(String[]::new);
+        long indexP99 = p99("index", keywords, keyword -> assertTrue(searchIndex.search(keyword, 0, 20).getTotal() > 0));
+        long likeP99 = p99("like", keywords, keyword -> assertFalse(productRepository.findByNameContainingIgnoreCase(keyword).isEmpty()));
+        
+        System.out.printf("index p99 is %.1fx lower than like p99%n", (double) likeP99 / indexP99);
+    }
+    
+    // 先预热一轮, 再逐条计时, 返回 p99 纳秒
+    private long p99(String name, String[] keywords, Consumer<String> search) {
+        for (String keyword : Arrays.copyOf(keywords, 10)) {
+            search.accept(keyword);
+        }
+        long[] nanos = new long[keywords.length];
+        for (int i = 0; i < keywords.length; i++) {
+            long begin = System.nanoTime();
+            search.accept(keywords[i]);
+            nanos[i] = System.nanoTime() - begin;
+        }
+        Arrays.sort(nanos);
+        long p99 = nanos[(int) Math.ceil(nanos.length * 0.99) - 1];
+        System.out.printf("%s: products=%,d queries=%d p50=%.2f ms p99=%.2f ms%n", name, PRODUCTS, keywords.length,
+            nanos[nanos.length / 2] / 1e6, p99 / 1e6);
+        return p99;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+    private ProductSearchIndex searchIndex;
+    
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex();
+        searchIndex.index(product(1L, "iPhone 13", "Apple", "Phones", "Smartphone with A15 chip"));
+        searchIndex.index(product(2L, "Galaxy S22", "Samsung", "Phones", "Android phone, works with iPhone chargers"));
+        searchIndex.index(product(3L, "MacBook Pro", "Apple", "Laptops", "Laptop with M1 chip"));
+    }
+    
+    @Test
+    void tokenize_ShouldLowercaseAndSplitOnPunctuation() {
+        assertEquals(List.of("iphone", "13", "pro", "max"), ProductSearchIndex.tokenize("iPhone 13 Pro-Max"));
+        assertEquals(List.of("苹", "果", "iphone"), ProductSearchIndex.tokenize("苹果iPhone"));
+    }
+    
+    @Test
+    void search_ShouldRankNameMatchesAboveDescriptionMatches() {
+        // Act
+        ProductSearchIndex.Hits hits = searchIndex.search("iphone ", 0, 10);
+        
+        // Assert
+        assertEquals(2, hits.getTotal());
+        assertEquals(List.of(1L, 2L), ids(hits));
+    }
+    
+    @Test
+    void search_ShouldMatchBrandAndCategory() {
+        assertEquals(List.of(1L, 3L), ids(searchIndex.search("apple ", 0, 10)));
+        assertEquals(List.of(3L), ids(searchIndex.search("laptops ", 0, 10)));
+    }
+    
+    @Test
+    void search_ShouldPrefixMatchLastToken() {
+        assertEquals(List.of(3L), ids(searchIndex.search("macb", 0, 10)));
+        assertEquals(0, searchIndex.search("macb ", 0, 10).getTotal());
+    }
+    
+    @Test
+    void search_ShouldPaginate() {
+        ProductSearchIndex.Hits hits = searchIndex.search("chip", 1, 1);
+        
+        assertEquals(2, hits.getTotal());
+        assertEquals(1, hits.getHits().size());
+    }
+    
+    @Test
+    void index_ShouldReplacePreviousVersionOfProduct() {
+        // Act
+        searchIndex.index(product(3L, "ThinkPad X1", "Lenovo", "Laptops", "Business laptop"));
+        
+        // Assert
+        assertEquals(0, searchIndex.search("macbook ", 0, 10).getTotal());
+        assertEquals(List.of(3L), ids(searchIndex.search("thinkpad", 0, 10)));
+    }
+    
+    @Test
+    void remove_ShouldDropProductFromResults() {
+        // Act
+        searchIndex.remove(1L);
+        
+        // Assert
+        assertEquals(List.of(3L), ids(searchIndex.search("apple ", 0, 10)));
+    }
+    
+    @Test
+    void index_AfterRemove_ShouldReuseSlotWithoutLeakingOldTerms() {
+        // Arrange: 新商品复用被删除商品的下标
+        searchIndex.remove(2L);
+        searchIndex.index(product(4L, "Pixel 7", "Google", "Phones", "Tensor chip"));
+        
+        // Assert
+        assertEquals(0, searchIndex.search("galaxy ", 0, 10).getTotal());
+        assertEquals(List.of(4L), ids(searchIndex.search("pixel", 0, 10)));
+        assertEquals(List.of(1L, 4L), ids(searchIndex.search("phones ", 0, 10)).stream().sorted().toList());
+        assertEquals(3, searchIndex.search("chip ", 0, 10).getTotal());
+    }
+    
+    private List<Long> ids(ProductSearchIndex.Hits hits) {
+        return hits.getHits().stream()
+            .map(ProductSearchIndex.Hit::getProductId)
+            .collect(Collectors.toList());
+    }
+    
+    private Product product(Long id, String name, String brand, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(category);
+        product.setDescription(description);
+        return product;
+    }
+}
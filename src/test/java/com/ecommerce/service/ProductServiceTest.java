@@ -2,17 +2,20 @@ package com.ecommerce.service;
 
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.exception.InsufficientStockException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -23,6 +26,12 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private InventoryLedgerService inventoryLedgerService;
+    
     @InjectMocks
     private ProductService productService;
     
@@ -101,6 +110,68 @@ class ProductServiceTest {
         verify(productRepository, times(1)).save(product);
     }
     
+    @Test
+    void updateStock_WhenProductIsInLedger_ShouldLeaveStockColumnToLedger() {
+        // Arrange
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Flash Sale Product");
+        product.setStock(10);
+        
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(inventoryLedgerService.adjustStock(1L, 5)).thenReturn(true);
+        
+        // Act
+        productService.updateStock(1L, 5);
+        
+        // Assert
+        assertEquals(10, product.getStock());
+        verify(productRepository, never()).save(any(Product.class));
+    }
+    
+    @Test
+    void reserveStock_WhenAllRowsUpdated_ShouldSucceed() {
+        // Arrange
+        when(productRepository.decrementStock(any())).thenReturn(new int[]{1, 1});
+        
+        // Act
+        productService.reserveStock(Map.of(2L, 3, 1L, 1));
+        
+        // Assert
+        verify(productRepository, times(1)).decrementStock(any());
+        verify(productRepository, never()).findById(any());
+    }
+    
+    @Test
+    void reserveStock_WhenRowNotUpdated_ShouldThrowException() {
+        // Arrange
+        Product product = new Product();
+        product.setId(2L);
+        product.setName("Hot Product");
+        
+        when(productRepository.decrementStock(any())).thenReturn(new int[]{1, 0});
+        when(productRepository.findById(2L)).thenReturn(Optional.of(product));
+        
+        // Act & Assert
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class, () -> {
+            productService.reserveStock(Map.of(2L, 3, 1L, 1));
+        });
+        assertTrue(ex.getMessage().contains("Hot Product"));
+    }
+    
+    @Test
+    void reserveStock_WhenProductDeleted_ShouldStillReportInsufficientStock() {
+        // Arrange
+        when(productRepository.decrementStock(any())).thenReturn(new int[]{0});
+        when(productRepository.findById(7L)).thenReturn(Optional.empty());
+        
+        // Act & Assert
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class, () -> {
+            productService.reserveStock(Map.of(7L, 1));
+        });
+        assertTrue(ex.getMessage().contains("#7"));
+    }
+    
     @Test
     void searchProducts_ShouldReturnMatchingProducts() {
         // Arrange
@@ -0,0 +1,113 @@
+package com.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedStockCounterTest {
+    
+    @Test
+    void constructor_ShouldSpreadStockAcrossStripes() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+        
+        assertEquals(10, counter.available());
+    }
+    
+    @Test
+    void tryReserve_WhenQuantitySpansStripes_ShouldSucceed() {
+        // Arrange: 每个槽位只有 2, 单槽位无法满足
+        StripedStockCounter counter = new StripedStockCounter(8, 4);
+        
+        // Act & Assert
+        assertTrue(counter.tryReserve(7));
+        assertEquals(1, counter.available());
+        assertFalse(counter.tryReserve(2));
+        assertEquals(1, counter.available());
+    }
+    
+    @Test
+    void release_ShouldReturnStock() {
+        StripedStockCounter counter = new StripedStockCounter(1, 4);
+        
+        assertTrue(counter.tryReserve(1));
+        assertFalse(counter.tryReserve(1));
+        counter.release(1);
+        assertTrue(counter.tryReserve(1));
+    }
+    
+    @Test
+    void tryReserve_With64ThreadsOnOneSku_ShouldNeverOversell() throws Exception {
+        // Arrange
+        int threads = 64;
+        int attemptsPerThread = 10_000;
+        int initialStock = 100_000;
+        StripedStockCounter counter = new StripedStockCounter(initialStock, 16);
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        // Act
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < attemptsPerThread; j++) {
+                    if (counter.tryReserve(1)) {
+                        successes.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // Assert
+        assertEquals(initialStock, successes.get());
+        assertEquals(0, counter.available());
+    }
+    
+    @Test
+    void tryReserve_WhileStockIsReleasedConcurrently_ShouldNotReportFalseOutOfStock() throws Exception {
+        // Arrange: 共 20 件, 另一个线程每次最多占用 1 件, 预占 19 件只能走合并槽位且必须成功;
+        // 合并时另一个线程把库存回补到已清空的槽位, 不能因此漏算
+        StripedStockCounter counter = new StripedStockCounter(20, 16);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean running = new AtomicBoolean(true);
+        int failures = 0;
+        
+        // Act
+        Future<?> churn = executor.submit(() -> {
+            while (running.get()) {
+                if (counter.tryReserve(1)) {
+                    counter.release(1);
+                }
+            }
+        });
+        for (int i = 0; i < 20_000; i++) {
+            if (!counter.tryReserve(19)) {
+                failures++;
+                continue;
+            }
+            for (int j = 0; j < 19; j++) {
+                counter.release(1);
+            }
+        }
+        running.set(false);
+        churn.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+        
+        // Assert
+        assertEquals(0, failures);
+        assertEquals(20, counter.available());
+    }
+}